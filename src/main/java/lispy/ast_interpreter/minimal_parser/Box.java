@@ -0,0 +1,28 @@
+package lispy.ast_interpreter.minimal_parser;
+
+/**
+ * A variable which closures share with the scope that defines it (see
+ * `Scope`): its frame slot, and the slot of every closure which captured
+ * it, hold the same box.
+ */
+public final class Box {
+
+	public Object value;
+
+	private Box(Object value) {
+		this.value = value;
+	}
+
+	/**
+	 * The box in the slot, put there first if the slot still holds the
+	 * value itself, as a parameter does until it is captured.
+	 */
+	public static Box at(Object[] frame, int slot) {
+		var value = frame[slot];
+		if (value instanceof Box) return (Box) value;
+		var box = new Box(value);
+		frame[slot] = box;
+		return box;
+	}
+
+}
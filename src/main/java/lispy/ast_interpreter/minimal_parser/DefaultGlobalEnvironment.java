@@ -9,11 +9,31 @@ public class DefaultGlobalEnvironment extends Environment{
         super();
         System.out.println("Using default global envoirnment: " + this);
        
-        this.record.put("+", new AddNativeFunction());
-        this.record.put("-", new SubtractNativeFunction());
-        this.record.put("*", new MultiplyNativeFunction());
-        this.record.put("/", new DivideNativeFunction());
-        this.record.put("print", new PrintNativeFunction());
+        register("+", new AddNativeFunction());
+        register("-", new SubtractNativeFunction());
+        register("*", new MultiplyNativeFunction());
+        register("/", new DivideNativeFunction());
+        register("min", new MinNativeFunction());
+        register("max", new MaxNativeFunction());
+        register("print", new PrintNativeFunction());
+        register("vector", new VectorNativeFunction());
+        register("hash-map", new HashMapNativeFunction());
+        register("get", new GetNativeFunction());
+        register("assoc", new AssocNativeFunction());
+        register("dissoc", new DissocNativeFunction());
+        register("conj", new ConjNativeFunction());
+        register("pop", new PopNativeFunction());
+        register("count", new CountNativeFunction());
+        register("contains", new ContainsNativeFunction());
     }
 
-}
\ No newline at end of file
+    /**
+     * Binds the builtin to the name, replacing any binding of the name.
+     * Returns this environment, to chain registrations.
+     */
+    public DefaultGlobalEnvironment register(String name, LispyNativeFunction function) {
+        define(Symbol.intern(name), function);
+        return this;
+    }
+
+}
@@ -1,52 +1,83 @@
 package lispy.ast_interpreter.minimal_parser;
 
+import java.lang.invoke.SwitchPoint;
 import java.util.Map;
 import java.util.HashMap;
 
 
 public class Environment {
 	
-	Map<String, Object> record;
+	Map<Symbol, Object> record;
 	Environment parent;
+	/** The bindings which compiled code caches, see `watch`. */
+	private Map<Symbol, SwitchPoint> watches;
 	
 	public Environment(Map record, Environment parent) {
 		this.record = record; 
 		this.parent = parent;
-		record.put("true", true);
-		record.put("false", false);
-		record.put("none", null);
-		record.put("VERSION", 1.0);
 	}
 
 	public Environment(Environment parent) {
 		this(new HashMap<>(), parent);
 	}
 	
+	/**
+	 * Root environment, which holds the built-in constants. Nested
+	 * environments find them through their parent chain.
+	 */
 	public Environment() {
 		this(new HashMap<>(), null);
+		record.put(Symbol.TRUE, true);
+		record.put(Symbol.FALSE, false);
+		record.put(Symbol.NONE, null);
+		record.put(Symbol.VERSION, 1.0);
 	}
 
-	public Object define(String name, Object value) {
+	public Object define(Symbol name, Object value) {
 		record.put(name, value);
+		if (watches != null) {
+			var watch = watches.remove(name);
+			if (watch != null) SwitchPoint.invalidateAll(new SwitchPoint[] { watch });
+		}
 		return value;
 	}
 
-	public Object lookup(String name) throws IllegalAccessException {
+	/**
+	 * A switch point which is invalidated when the binding of the name in
+	 * this environment changes, through `define` or `assign`, so that a
+	 * value looked up here can be cached until then.
+	 */
+	public SwitchPoint watch(Symbol name) {
+		if (watches == null) watches = new HashMap<>();
+		return watches.computeIfAbsent(name, n -> new SwitchPoint());
+	}
+
+	public Object lookup(Symbol name) throws IllegalAccessException {
 //		if (record.containsKey(name)) return record.get(name);
 //		else throw new IllegalAccessException("Variable not defined");
 		return this.resolve(name).record.get(name);
 		
 	}
 	
-	public Environment resolve(String name) throws IllegalAccessException {
+	/**
+	 * The environment of the chain which defines the name, or null.
+	 */
+	public Environment find(Symbol name) {
+		for (var env = this; env != null; env = env.parent) {
+			if (env.record.containsKey(name)) return env;
+		}
+		return null;
+	}
+
+	public Environment resolve(Symbol name) throws IllegalAccessException {
 		if (this.record.containsKey(name)) return this;
 		if (this.parent == null)  throw new IllegalAccessException(name + " :> Variable not defined in env --> " + this);
 		return this.parent.resolve(name);
 	}
 
-	public Object assign(String name, Object value) {
+	public Object assign(Symbol name, Object value) {
 		try {
-			this.resolve(name).record.put(name, value);
+			this.resolve(name).define(name, value);
 		} catch (IllegalAccessException e) {
 			e.getMessage();
 		}
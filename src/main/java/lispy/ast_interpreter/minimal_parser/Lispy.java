@@ -1,27 +1,124 @@
 package lispy.ast_interpreter.minimal_parser;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.invoke.SwitchPoint;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+import lispy.ast_interpreter.minimal_parser.ast.*;
+import lispy.ast_interpreter.minimal_parser.bytecode.BytecodeCompiler;
+import lispy.ast_interpreter.minimal_parser.bytecode.Prototype;
+import lispy.ast_interpreter.minimal_parser.bytecode.VM;
+import lispy.ast_interpreter.minimal_parser.nodes.Node;
+import lispy.ast_interpreter.minimal_parser.nodes.NodeCompiler;
 
 public class Lispy {
+
+	/**
+	 * How `eval(Object)` runs a parsed expression.
+	 */
+	public enum Engine {
+		/** Walks the parsed expression with `eval(Object, Environment)`. */
+		AST,
+		/** Compiles the expression into executable nodes (`NodeCompiler`), then runs them. */
+		NODES,
+		/** Compiles the expression into bytecode (`BytecodeCompiler`), then runs it on a `VM`. */
+		BYTECODE
+	}
 	
 	String name;
-	Environment envGlobal;
-	private boolean jitTranspileDef;
+	DefaultGlobalEnvironment envGlobal;
+	final Engine engine;
+	/** Whether `def` is evaluated as the equivalent `var` of a `lambda`. */
+	private boolean transpileDef;
+	private int jitThreshold = NodeCompiler.DEFAULT_JIT_THRESHOLD;
+	/** Whether `eval(Object)` runs the `Optimizer` first. */
+	private boolean optimize = true;
+	private final Optimizer optimizer;
+	/**
+	 * The compiled forms of the expressions evaluated so far, so that an
+	 * expression evaluated again runs the same nodes, with their counters
+	 * and JIT-compiled code, or the same bytecode. A form is compiled again
+	 * once a builtin which the optimizer folded it against is redefined. An
+	 * expression which optimizes to itself is not kept: as the value of its
+	 * own weak key, it would never be released.
+	 */
+	final Map<Object, Compiled> compiled = new WeakHashMap<>();
+
+	/** A compiled form, with the assumptions of the optimizer it holds under. */
+	static final class Compiled {
+		final Object form;
+		final SwitchPoint[] assumptions;
+
+		Compiled(Object form, SwitchPoint[] assumptions) {
+			this.form = form;
+			this.assumptions = assumptions;
+		}
+
+		boolean holds() {
+			for (var assumption : assumptions) {
+				if (assumption.hasBeenInvalidated()) return false;
+			}
+			return true;
+		}
+	}
 	
-	public Lispy(String string) {
+	public Lispy(String string, Engine engine) {
 		name = string;
 		envGlobal = new DefaultGlobalEnvironment();
-		jitTranspileDef = true;
+		optimizer = new Optimizer(envGlobal);
+		this.engine = engine;
+		transpileDef = true;
+	}
+
+	public Lispy(String string) {
+		this(string, Engine.AST);
+	}
+
+	public Lispy(Engine engine) {
+		this("default", engine);
 	}
 	
 	public Lispy() {
 		this("default");
 	}
 	
-	public Object parse(String code) {
+	/**
+	 * Sets how many calls of a function the `NODES` engine interprets
+	 * before it compiles the function to JVM bytecode; 0 disables the JIT.
+	 */
+	public void setJitThreshold(int jitThreshold) {
+		this.jitThreshold = jitThreshold;
+	}
+
+	/**
+	 * Binds the builtin to the name in the global environment, replacing
+	 * any binding of the name (see `DefaultGlobalEnvironment.register`).
+	 * Returns this interpreter, to chain registrations.
+	 */
+	public Lispy register(String name, LispyNativeFunction function) {
+		envGlobal.register(name, function);
+		return this;
+	}
+
+	/**
+	 * Sets whether `eval(Object)` partially evaluates expressions with the
+	 * `Optimizer` before running them; on by default.
+	 */
+	public void setOptimize(boolean optimize) {
+		this.optimize = optimize;
+	}
+
+	public Object parse(CharSequence code) {
 		LispyParser p = new LispyParser();
 		Object parsed_output = null;
 		try {
@@ -34,87 +131,230 @@ public class Lispy {
 		return parsed_output;
 	}
 
+	/**
+	 * Parses the expression in the file, scanning the memory-mapped file
+	 * in place instead of reading it into a `String` (see `MappedSource`).
+	 */
+	public Object parseFile(Path path) throws IOException {
+		LispyParser p = new LispyParser();
+		Object parsed_output = null;
+		try {
+			parsed_output = p.parse(MappedSource.map(path));
+		} catch (ParseException e) {
+			e.printStackTrace();
+		}
+
+		return parsed_output;
+	}
+
+	/**
+	 * Parses and evaluates the top-level expressions of the file one at a
+	 * time, scanning the memory-mapped file in place. Returns the value of
+	 * the last one.
+	 */
+	public Object evalFile(Path path) throws ParseException, IOException {
+		LispyParser p = new LispyParser();
+		p.initString(MappedSource.map(path));
+		return evalForms(p);
+	}
+
+	/**
+	 * Parses and evaluates the top-level expressions of the reader one at a
+	 * time, so evaluation starts before the whole input is read, and only
+	 * one expression is held in memory. Returns the value of the last one.
+	 */
+	public Object evalAll(Reader reader) throws ParseException, IOException {
+		LispyParser p = new LispyParser();
+		p.initReader(reader);
+		return evalForms(p);
+	}
+
+	/**
+	 * Same as `evalAll(Reader)`, for UTF-8 source read from a channel.
+	 */
+	public Object evalAll(ReadableByteChannel channel) throws ParseException, IOException {
+		return evalAll(Channels.newReader(channel, StandardCharsets.UTF_8));
+	}
+
+	private Object evalForms(LispyParser p) throws ParseException, IOException {
+		Object result = null;
+		for (var expr = p.parseNext(); expr != null; expr = p.parseNext()) {
+			result = eval(expr);
+		}
+		return result;
+	}
+
 	public static void main(String[] args) {
 		System.out.println("Hello World!");
 	}
 	
 	
+	/**
+	 * Evaluates the parsed expression in the global environment, once
+	 * optimized (see `Optimizer`). The global functions which it defines
+	 * can be inlined into the expressions evaluated next.
+	 */
 	public Object eval(Object expr) {
-		return eval(expr, envGlobal);
+		Object result;
+		switch (engine) {
+		case NODES: {
+			var node = (Node) compiled(expr, e -> NodeCompiler.compile(e, envGlobal, jitThreshold));
+			result = node.execute(null);
+			break;
+		}
+		case BYTECODE: {
+			var prototype = (Prototype) compiled(expr, BytecodeCompiler::compile);
+			result = new VM(envGlobal).run(prototype);
+			break;
+		}
+		default:
+			result = eval(compiled(expr, e -> e), envGlobal);
+			break;
+		}
+		if (optimize) optimizer.defined((Exp) expr);
+		return result;
+	}
+
+	/**
+	 * The compiled form of the expression, from the cache while the
+	 * assumptions it was optimized under hold.
+	 */
+	private Object compiled(Object expr, Function<Exp, Object> compiler) {
+		var entry = compiled.get(expr);
+		if (entry != null && entry.holds()) return entry.form;
+		var form = compiler.apply(optimize(expr));
+		if (form != expr) compiled.put(expr, new Compiled(form, optimize ? optimizer.assumptions() : new SwitchPoint[0]));
+		else compiled.remove(expr);
+		return form;
+	}
+
+	private Exp optimize(Object expr) {
+		return optimize ? optimizer.optimize((Exp) expr) : (Exp) expr;
 	}
 	
 	public Object eval(Object expr, Environment env) {
-		
-		if (isVariableName(expr)) {
-			try {
-				System.out.println("TOKEN: Variable --> " + expr);
-				System.out.println("looking up variable: " + expr + " (in env --> " + env);
-				return env.lookup((String)expr);
-			} catch (IllegalAccessException e) {
-				e.getMessage();
-				throw new Error(expr + ": variable not defined/found in env=" + env);
-				//return null;
+		// Loops instead of recursing into the expressions in tail position:
+		// the branches of `if`, the last expression of `begin` and the body of
+		// a called function, so tail calls run in constant Java stack.
+		for (;;) {
+			if (expr instanceof SymbolExp) {
+				var name = ((SymbolExp) expr).symbol;
+				try {
+					return env.lookup(name);
+				} catch (IllegalAccessException e) {
+					e.getMessage();
+					throw new Error(name + ": variable not defined/found in env=" + env);
+					//return null;
 
+				}
+			}
+
+			if (expr instanceof NumberExp) return ((NumberExp) expr).value;
+
+			if (expr instanceof StringExp) return ((StringExp) expr).value;
+
+			if (expr instanceof InlinedCallExp) {
+				var inlined = (InlinedCallExp) expr;
+				expr = this.eval(inlined.function, env) == inlined.expected ? inlined.body : inlined.call;
+				continue;
+			}
+
+			if (!(expr instanceof ListExp)) throw new UnsupportedOperationException("Expression must be an atom (Number, String, Symbol) or List of expressions. Got " + expr.getClass() + ":" + expr.toString());
+
+			var list = (ListExp) expr;
+			switch (SpecialForm.of(list)) {
+			case BEGIN: {
+				if (list.size() == 1) return null;
+				if (list.binds) env = new Environment(env);
+				for (int i = 1; i < list.size() - 1; i++) this.eval(list.get(i), env);
+				expr = list.get(list.size() - 1);
+				continue;
 			}
-		}
 
-		if (expr instanceof String && expr.equals("none")) return null;
+			case IF: {
+				var cond = list.get(1);
+				expr = (boolean) this.eval(cond, env) ? list.get(2) : list.get(3);
+				continue;
+			}
+
+			case CALL: {
+				var lispyCallable = (LispyCallable) this.eval(list.get(0), env);
+
+				// handle native functions
+				if (lispyCallable.isNative()) {
+					return callNative((LispyNativeFunction) lispyCallable, list, env);
+				}
+
+				var args = new ArrayList<Object>();
+				for (int i = 1; i < list.size(); i++) {
+					args.add(this.eval(list.get(i), env));
+				}
+
+				// handle non-native functions: evaluate the body in this loop
+				var lispyFunction = (LispyFunction) lispyCallable;
+				env = activationEnv(lispyFunction, args);
+				expr = lispyFunction.body;
+				continue;
+			}
 
-		if (expr instanceof String && ((String)expr).matches("^\"[^\"]*\"")) {
-			System.out.println("TOKEN: String --> " + expr);
-			String str = (String) expr;
-			return str.substring(1, str.length() - 1);
+			default:
+				return evalList(list, env);
+			}
 		}
-		
-		if (expr instanceof Number) return expr;
-		
-		if (expr instanceof  List) return evalList((List) expr, env);
-		else throw new UnsupportedOperationException("Expression must be an atom (Number, String) or List of expressions. Got " + expr.getClass() + ":" + expr.toString());
 	}
 	
 	// ----------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------
 
-	public Object evalList(List expr, Environment env) {
-		var op = expr.get(0);
-		
-		if (op.equals(">")) {
-			var arg1 = (Number) this.eval(expr.get(1), env);
-			var arg2 = (Number) this.eval(expr.get(2), env);
-			return arg1.doubleValue() > arg2.doubleValue();
+	public Object evalList(ListExp expr, Environment env) {
+		switch (SpecialForm.of(expr)) {
+		case GREATER: {
+			var arg1 = this.eval(expr.get(1), env);
+			var arg2 = this.eval(expr.get(2), env);
+			return Numbers.greater(arg1, arg2);
 		}
-		
 
-		if (op.equals("<")) {
-			var arg1 = (Number) this.eval(expr.get(1), env);
-			var arg2 = (Number) this.eval(expr.get(2), env);
-			return arg1.doubleValue() < arg2.doubleValue();
+		case LESS: {
+			var arg1 = this.eval(expr.get(1), env);
+			var arg2 = this.eval(expr.get(2), env);
+			return Numbers.less(arg1, arg2);
 		}
 		
-		if (op.equals("var")) {
-			var name = (String) expr.get(1);
+		case VAR: {
+			var name = ((SymbolExp) expr.get(1)).symbol;
 			var value = expr.get(2);
 			return env.define(name, this.eval(value, env));
 		}
 		
-		if (op.equals("set")) {
-			var name = (String) expr.get(1);
+		case SET: {
+			if (expr.get(1) instanceof ListExp) {
+				// (set (prop object name) value)
+				var target = (ListExp) expr.get(1);
+				var object = this.eval(target.get(1), env);
+				var name = ((SymbolExp) target.get(2)).symbol;
+				return PropertyCache.set(object, name, this.eval(expr.get(2), env));
+			}
+			var name = ((SymbolExp) expr.get(1)).symbol;
 			var value = expr.get(2);
 			return env.assign(name, this.eval(value, env));
 		}
+
+		case PROP: {
+			var object = this.eval(expr.get(1), env);
+			return PropertyCache.get(object, ((SymbolExp) expr.get(2)).symbol);
+		}
 		
-		if (op.equals("begin")) {
-			System.out.println("Defining begin block in env:" + env);
-			var envBlock = new Environment(env);
+		case BEGIN: {
+			var envBlock = expr.binds ? new Environment(env) : env;
 			return evalBlock(expr, envBlock);
 		}
 		
-		if (op.equals("if")) {
+		case IF: {
 			var cond = expr.get(1);
 			if ((boolean) this.eval(cond, env)) return this.eval(expr.get(2), env);
 			else return this.eval(expr.get(3), env);
 		}
 		
-		if (op.equals("while")) {
+		case WHILE: {
 			Object result = null;
 			var cond = expr.get(1);
 			var body = expr.get(2);
@@ -126,12 +366,12 @@ public class Lispy {
 			return result;
 		}
 
-		if (op.equals("def")) {
-			var functionName = (String) expr.get(1);
+		case DEF: {
+			var functionName = ((SymbolExp) expr.get(1)).symbol;
 			var parameters = expr.get(2);
 			var body = expr.get(3);
 
-			if (!this.jitTranspileDef) {
+			if (!this.transpileDef) {
 				var lispyFunction = new LispyFunction(name, parameters, body, env);
 				env.define(functionName, lispyFunction);
 				System.out.println("function defined--> " + functionName + "; in env=" + env);
@@ -139,31 +379,29 @@ public class Lispy {
 			}
 			else {
 				// (var functionName (lambda parameters body))
-				System.out.println("JIT-transpiling " + functionName + "; in env=" + env);
-				var lambdaExpr = new ArrayList<Object>();
-				lambdaExpr.add("lambda");
-				lambdaExpr.add(parameters);
-				lambdaExpr.add(body);
+				System.out.println("Transpiling " + functionName + "; in env=" + env);
+				var lambdaExpr = new ListExp(new Exp[] {
+					new SymbolExp(Symbol.LAMBDA, expr.loc), parameters, body
+				}, expr.loc);
 
-				var defExpr = new ArrayList<Object>();
-				defExpr.add("var");
-				defExpr.add(functionName);
-				defExpr.add(lambdaExpr);
+				var defExpr = new ListExp(new Exp[] {
+					new SymbolExp(Symbol.VAR, expr.loc), expr.get(1), lambdaExpr
+				}, expr.loc);
 
 				return this.eval(defExpr, env);
 			}
 		}
 
-		if (op.equals("lambda")) {
+		case LAMBDA: {
 			var parameters = expr.get(1);
 			var body = expr.get(2);
 			var lispyFunction = new LispyFunction(null, parameters, body, env);
 			return lispyFunction;
 		}
 
-		if (op.equals("class")) {
+		case CLASS: {
 			System.out.println("Defining class; parent env:" + env);
-			String name = (String) expr.get(1);
+			var name = ((SymbolExp) expr.get(1)).symbol;
 			var parent = expr.get(2);
 			var body = expr.get(3);
 
@@ -172,95 +410,80 @@ public class Lispy {
 				parentEnv = env;
 				System.out.println("Class parent is NONE! Class parent env is " + parentEnv);
 			}
-			Environment classEnv = new Environment(parentEnv);
+			Environment classEnv = new LispyClass(name.name, parentEnv);
 			//this.eval(body, classEnv);
-			evalBlock((List<Object>)body, classEnv);
+			evalBlock((ListExp) body, classEnv);
 			System.out.println("Class --> " + name + " defined in env --> " + classEnv);
 			return env.define(name, classEnv);
 		}
 
-		if (op.equals("new")) {
+		case NEW: {
 			var className = expr.get(1);
-			Environment classEnv = (Environment) this.eval(className, env);
-			Environment instanceEnv = new Environment(classEnv);
+			var classEnv = (LispyClass) this.eval(className, env);
 
 			var args = new ArrayList<Object>();
-			args.add(instanceEnv); //self
+			args.add(new LispyObject(classEnv)); //self
 			for (int i = 2; i < expr.size(); i++) {
 				args.add(this.eval(expr.get(i), env));
 			}
-			try {
-				return callUserDefinedFunction((LispyFunction) classEnv.lookup("constructor"), args);
-			} catch (IllegalAccessException e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
-				System.exit(0);
-			}
+			return callUserDefinedFunction((LispyFunction) classEnv.member(Symbol.CONSTRUCTOR), args);
 		}
 
-		// -------------------------------------------------------------------------------
-		// defaulting to function call execution
-		var lispyCallable = (LispyCallable)this.eval(op, env);
-			var args = new ArrayList<Object>();
-			for (int i = 1; i < expr.size(); i++) {
-				args.add(this.eval(expr.get(i), env));
-			}
-			
-			// handle native functions
-			if (lispyCallable.isNative()) {
-				var lispyNativeFunction = (LispyNativeFunction) lispyCallable;
-				
-				System.out.println("'print' lookup:-> " + lispyNativeFunction);
-				return lispyNativeFunction.call(env, args);
+		default:
+			break;
+		}
 
-			}
-			
-			// handle non-native functions
-			var lispyFunction = (LispyFunction) lispyCallable;
-			return callUserDefinedFunction(lispyFunction, args);
-		// try {
-		// 	System.out.println("Found nothing");
-			
-		// }
-		// catch(Exception e) {
-		// 	e.printStackTrace();
-		// 	throw new UnsupportedOperationException("Not implemented error");
-		// }
-		
+		// `begin`, `if` and function calls are evaluated by `eval`, which
+		// runs their tail expressions in its loop.
+		return this.eval(expr, env);
+	}
+
+	/**
+	 * Calls the builtin with the arguments of the call, through the entry
+	 * point for their number (see `LispyNativeFunction`).
+	 */
+	private Object callNative(LispyNativeFunction function, ListExp call, Environment env) {
+		switch (call.size() - 1) {
+		case 0:
+			return function.call0(env);
+		case 1:
+			return function.call1(env, this.eval(call.get(1), env));
+		case 2:
+			return function.call2(env, this.eval(call.get(1), env), this.eval(call.get(2), env));
+		case 3:
+			return function.call3(env, this.eval(call.get(1), env), this.eval(call.get(2), env), this.eval(call.get(3), env));
+		default: {
+			var args = new Object[call.size() - 1];
+			for (int i = 0; i < args.length; i++) args[i] = this.eval(call.get(i + 1), env);
+			return function.callN(env, args);
+		}
+		}
 	}
 
 	private Object callUserDefinedFunction(LispyFunction lispyFunction, List<Object> args) {
+		return this.eval(lispyFunction.body, activationEnv(lispyFunction, args));
+	}
+
+	private static Environment activationEnv(LispyFunction lispyFunction, List<Object> args) {
+		int parameterCount = ((ListExp) lispyFunction.parameters).size();
+		if (args.size() != parameterCount) {
+			throw new IllegalArgumentException("<<Function>> " + (lispyFunction.name != null ? lispyFunction.name : "lambda")
+				+ ": " + args.size() + " arguments for " + parameterCount + " parameters");
+		}
 		var activationEnv = new Environment(lispyFunction.env);
 		for (int i = 0; i < args.size(); i++) {
-			String paramName = (String) ((List<Object>) lispyFunction.parameters).get(i);
+			var paramName = ((SymbolExp) ((ListExp) lispyFunction.parameters).get(i)).symbol;
 			var arg = args.get(i);
 			activationEnv.record.put(paramName, arg);
 		}
-
-		return this.eval(lispyFunction.body, activationEnv);
-
+		return activationEnv;
 	}
 	
-	public Object evalBlock(List expr, Environment envBlock) {
+	public Object evalBlock(ListExp expr, Environment envBlock) {
 		Object result = null;
 		//var envBlock = new Environment(env);
-		System.out.println("Block env:" + envBlock);
 		for (int i = 1; i < expr.size(); i++) result = this.eval(expr.get(i), envBlock);
 		return result;
 	}
 	
-	private boolean isVariableName(Object expr) {
-		if (expr instanceof String) {
-			var str = (String) expr;
-			if (str.matches("none")) return false;
-			System.out.println(expr + ":> String begins with quote: " + str.substring(0, 1).contains("\""));
-			if (str.substring(0, 1).contains("\"")) return false; //string literal
-			if (str.matches("[a-z|A-z][a-z|A-z|0-9]*")) return true; // identifier regex
-			//if (str.matches("[*+-/><=]")) return true;
-			if (str.matches("[*+-/]")) return true; // native functions
-			else return false;
-		}
-		else return false;
-	}
-	
 }
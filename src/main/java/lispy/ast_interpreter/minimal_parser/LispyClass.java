@@ -0,0 +1,86 @@
+package lispy.ast_interpreter.minimal_parser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The value of `(class Name parent ...)`: the environment in which the
+ * class body defines the members, chained to the parent class. Its
+ * instances are `LispyObject`s, which start with the root `shape` of the
+ * class.
+ *
+ * The members of the class and of its parent classes are also flattened
+ * into a method table, so that finding an inherited method is one lookup
+ * instead of a walk up the classes. The table is built when first needed,
+ * and dropped when the class or one of its parent classes defines a
+ * member; a cache which holds a member found in the table checks that the
+ * table is still the current one (see `PropertyCache`).
+ */
+public class LispyClass extends Environment {
+
+	public final String name;
+	final Shape shape = new Shape(this);
+	/** The most properties an instance got so far, to allocate new ones. */
+	int instanceSize;
+	/** The method table, or null until it is built again. */
+	Map<Symbol, Object> members;
+	private final List<LispyClass> subclasses = new ArrayList<>();
+
+	public LispyClass(String name, Environment parent) {
+		super(parent);
+		this.name = name;
+		if (parent instanceof LispyClass) ((LispyClass) parent).subclasses.add(this);
+	}
+
+	@Override
+	public Object define(Symbol name, Object value) {
+		super.define(name, value);
+		invalidate();
+		return value;
+	}
+
+	/**
+	 * The method table: each member of the class and of its parent
+	 * classes, as defined by the nearest one.
+	 */
+	Map<Symbol, Object> members() {
+		if (members == null) {
+			var table = parent instanceof LispyClass
+				? new HashMap<>(((LispyClass) parent).members()) : new HashMap<Symbol, Object>();
+			table.putAll(record);
+			members = table;
+		}
+		return members;
+	}
+
+	/**
+	 * The member of the class or of its parent classes.
+	 */
+	public Object member(Symbol name) {
+		var members = members();
+		var value = members.get(name);
+		if (value == null && !members.containsKey(name)) {
+			throw new Error(name + ": member not defined/found in " + this);
+		}
+		return value;
+	}
+
+	/**
+	 * Drops the method tables of the class and of its subclasses. A
+	 * subclass builds its table from the table of its parent, so the
+	 * subclasses of a class without one have none either.
+	 */
+	private void invalidate() {
+		if (members == null) return;
+		members = null;
+		for (var subclass : subclasses) subclass.invalidate();
+	}
+
+	@Override
+	public String toString() {
+		return "<<Class>> " + (name != null ? name : "anonymous");
+	}
+
+}
@@ -1,7 +1,72 @@
 package lispy.ast_interpreter.minimal_parser;
 
+import java.util.Arrays;
 import java.util.List;
 
+/**
+ * A builtin function. The evaluators call it through the entry point for
+ * the number of arguments of the call: `call0` to `call3` with the
+ * arguments as parameters, or `callN` with an array of them. A builtin
+ * which overrides the entry point of its arity is called without
+ * allocating anything for the arguments.
+ *
+ * The entry points default to `callN`, which defaults to `call` with the
+ * arguments in a list, so a builtin can implement `call` only. A builtin
+ * which declares its `arity` has the other entry points reject the call.
+ */
 public interface LispyNativeFunction extends LispyCallable {
+
+    /** The arity of a builtin which takes any number of arguments. */
+    int VARIADIC = -1;
+
     Object call(Environment env, List<Object> arguments);
+
+    /**
+     * The number of arguments the builtin takes, or `VARIADIC`.
+     */
+    default int arity() {
+        return VARIADIC;
+    }
+
+    default Object call0(Environment env) {
+        checkArity(0);
+        return callN(env, new Object[0]);
+    }
+
+    default Object call1(Environment env, Object a) {
+        checkArity(1);
+        return callN(env, new Object[] { a });
+    }
+
+    default Object call2(Environment env, Object a, Object b) {
+        checkArity(2);
+        return callN(env, new Object[] { a, b });
+    }
+
+    default Object call3(Environment env, Object a, Object b, Object c) {
+        checkArity(3);
+        return callN(env, new Object[] { a, b, c });
+    }
+
+    default Object callN(Environment env, Object[] arguments) {
+        checkArity(arguments.length);
+        return call(env, Arrays.asList(arguments));
+    }
+
+    /**
+     * Throws `IllegalArgumentException` if the builtin declares another
+     * arity than `count`.
+     */
+    default void checkArity(int count) {
+        int arity = arity();
+        if (arity != VARIADIC && arity != count) {
+            throw new IllegalArgumentException(this + ": " + count + " arguments for " + arity + " parameters");
+        }
+    }
+
+    @Override
+    default boolean isNative() {
+        return true;
+    }
+
 }
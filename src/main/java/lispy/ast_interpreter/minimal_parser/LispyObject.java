@@ -0,0 +1,70 @@
+package lispy.ast_interpreter.minimal_parser;
+
+import java.util.Arrays;
+
+/**
+ * An instance of a `LispyClass`: its properties in an array of slots,
+ * laid out by its `Shape`. A property which the object does not have is
+ * looked up in its class, then in the parent classes, where the methods
+ * are.
+ */
+public final class LispyObject {
+
+	Shape shape;
+	Object[] slots;
+
+	public LispyObject(LispyClass type) {
+		this.shape = type.shape;
+		this.slots = new Object[type.instanceSize];
+	}
+
+	public LispyClass type() {
+		return shape.type;
+	}
+
+	public Object get(Symbol name) {
+		int slot = shape.slot(name);
+		if (slot >= 0) return slots[slot];
+		var members = shape.type.members();
+		var value = members.get(name);
+		if (value == null && !members.containsKey(name)) {
+			throw new Error(name + ": property not defined/found in " + this);
+		}
+		return value;
+	}
+
+	public Object set(Symbol name, Object value) {
+		int slot = shape.slot(name);
+		if (slot < 0) slot = add(name);
+		slots[slot] = value;
+		return value;
+	}
+
+	/**
+	 * Moves the object to the shape with the property, and returns its
+	 * slot.
+	 */
+	int add(Symbol name) {
+		moveTo(shape.with(name));
+		return shape.size() - 1;
+	}
+
+	/**
+	 * Moves the object to a shape with more properties.
+	 */
+	void moveTo(Shape next) {
+		shape = next;
+		int size = next.size();
+		if (size > slots.length) {
+			var type = next.type;
+			type.instanceSize = Math.max(type.instanceSize, size);
+			slots = Arrays.copyOf(slots, type.instanceSize);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "<<Object>> " + (shape.type.name != null ? shape.type.name : "anonymous");
+	}
+
+}
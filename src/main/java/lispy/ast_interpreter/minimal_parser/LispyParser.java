@@ -13,21 +13,27 @@
  *     --grammar ~/path-to-grammar-file \
  *     --mode LALR1 \
  *     --output ~/ParserClassName.java
+ *
+ * Note: the generated tokenizer and handler dispatch were since rewritten
+ * by hand (a character scanner instead of regexps, and `switch` dispatch
+ * instead of reflection), keep them when regenerating.
  */
 
 package lispy.ast_interpreter.minimal_parser;
 
-import java.lang.reflect.Method;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.Stack;
+import lispy.ast_interpreter.minimal_parser.ast.*;
 
 //import java.util.ArrayList;
 
@@ -43,7 +49,7 @@ Default implementation:
       // Parser is created.
     }
 
-    public static void onParseBegin(String _string) {
+    public static void onParseBegin(CharSequence _string) {
       // Parsing is started.
     }
 
@@ -60,7 +66,7 @@ Default implementation:
       // Parser is created.
     }
 
-    public static void onParseBegin(String _string) {
+    public static void onParseBegin(CharSequence _string) {
       // Parsing is started.
     }
 
@@ -97,53 +103,18 @@ import java.util.Stack;
 // --------------------------------------------
 // Tokenizer.
 
-/**
- * Location object.
- */
-class YyLoc {
-  public YyLoc() {}
-
-  public int startOffset;
-  public int endOffset;
-  public int startLine;
-  public int endLine;
-  public int startColumn;
-  public int endColumn;
-
-  public YyLoc(int startOffset, int endOffset, int startLine,
-               int endLine, int startColumn, int endColumn) {
-    this.startOffset = startOffset;
-    this.endOffset = endOffset;
-    this.startLine = startLine;
-    this.endLine = endLine;
-    this.startColumn = startColumn;
-    this.endColumn = endColumn;
-  }
-
-  public static YyLoc yyloc(YyLoc start, YyLoc end) {
-    // Epsilon doesn't produce location.
-    if (start == null || end == null) {
-      return start == null ? end : start;
-    }
-
-    return new YyLoc(
-      start.startOffset,
-      end.endOffset,
-      start.startLine,
-      end.endLine,
-      start.startColumn,
-      end.endColumn
-    );
-  }
-}
-
 /**
  * Token class: encapsulates token type, and the matched value.
+ *
+ * The value can be lazy: a token of a fixed source only keeps the source,
+ * and the value is cut out of it at the token location when first asked
+ * for, so e.g. tokens of a memory-mapped file don't copy it.
  */
 class Token {
   // Basic data.
   public int type;
-  public String value;
+  private String value;
+  private CharSequence source;
 
   // Location data.
   YyLoc loc;
@@ -159,14 +130,29 @@ class Token {
     this.loc = loc;
   }
 
+  public Token(int type, CharSequence source, YyLoc loc) {
+    this.type = type;
+    this.source = source;
+    this.loc = loc;
+  }
+
+  public String getValue() {
+    if (value == null && source != null) {
+      value = source.subSequence(loc.startOffset, loc.endOffset).toString();
+      source = null;
+    }
+    return value;
+  }
+
   public String toString() {
-    return "{type: " + type + ", value: " + value + "}";
+    return "{type: " + type + ", value: " + getValue() + "}";
   }
 }
 
 /**
- * Regexp-based tokenizer. Applies lexical rules in order, until gets
- * a match; otherwise, throws the "Unexpected token" exception.
+ * Character-scanning tokenizer. Dispatches on the current character to
+ * the lex rule which can match there, and scans the token in place by
+ * cursor offsets; otherwise, throws the "Unexpected token" exception.
  *
  * Tokenizer should implement at least the following API:
  *
@@ -184,19 +170,26 @@ class Token {
 class Tokenizer {
 
   /**
-   * Tokenizing String.
+   * Tokenizing String. When reading from a `Reader`, this is a window
+   * over the input: `mString.charAt(0)` is the char at the absolute
+   * offset `mWindowStart`, and the window is refilled on demand.
    */
-  private String mString;
+  private CharSequence mString;
+  private int mWindowStart;
 
   /**
-   * Matched text.
+   * Streamed input, and the length of the whole input once it's known
+   * (-1 while the reader is not exhausted).
    */
-  public String yytext = null;
+  private boolean mStreaming;
+  private Reader mReader;
+  private char[] mReadBuffer;
+  private int mInputLength;
 
   /**
-   * Matched text length.
+   * Chars read from the `Reader` at once.
    */
-  public int yyleng = 0;
+  private static final int READ_BUFFER_SIZE = 8192;
 
   /**
    * EOF.
@@ -227,58 +220,23 @@ class Tokenizer {
   );
 
   /**
-   * Lex patterns, and their handler names.
+   * Lex rules, in the order of the grammar. The rule index is the index
+   * of its handler method. Instead of one regexp per rule, the rules are
+   * compiled by hand into the `scan` method below:
    *
-   * Example:
-   *
-   *   Pattern.compile("^\\s+"),
-   *   Pattern.compile("^\\d+"),
-   *   ...
+   *   0: \(                           '('
+   *   1: \)                           ')'
+   *   2: \s+                          (skipped)
+   *   3: [+|-]?(\d)+(\.[\d]*)?        NUMBER
+   *   4: [\w\-+*=<>/]+                SYMBOL
+   *   5: \"[^\"]*\"                    STRING
    */
-  private static final Pattern[] mLexPatterns = {
-    Pattern.compile("^\\("),
-    Pattern.compile("^\\)"),
-    Pattern.compile("^\\s+"),
-    Pattern.compile("^[+|-]?(\\d)+(\\.[\\d]*)?"),
-    Pattern.compile("^[\\w\\-+*=<>/]+"),
-    Pattern.compile("^\"[^\"]*\"")
-  };
-
-  /**
-   * Cache for the lex rule methods.
-   *
-   * Example:
-   *
-   *   mLexHandlerMethods[0] = Tokenizer.class.getDeclaredMethod("_lexRule0");
-   *   ...
-   */
-  private static final Method[] mLexHandlerMethods = new Method[6];
-  static {
-    try {
-      mLexHandlerMethods[0] = Tokenizer.class.getDeclaredMethod("_lexRule0");
-      mLexHandlerMethods[1] = Tokenizer.class.getDeclaredMethod("_lexRule1");
-      mLexHandlerMethods[2] = Tokenizer.class.getDeclaredMethod("_lexRule2");
-      mLexHandlerMethods[3] = Tokenizer.class.getDeclaredMethod("_lexRule3");
-      mLexHandlerMethods[4] = Tokenizer.class.getDeclaredMethod("_lexRule4");
-      mLexHandlerMethods[5] = Tokenizer.class.getDeclaredMethod("_lexRule5");
-    } catch (Exception ignore) {
-      // Ignore since the methods are exact.
-    }
-  };
-
-  private static final Pattern NL_RE = Pattern.compile("\\n");
-
-  /**
-   * Lex rules grouped by tokenizer state.
-   *
-   * Example:
-   *
-   *   { "INITIAL", new Integer[] { 0, 1, 2, 3 } },
-   *   ...
-   */
-  private static Map<String, Integer[]> mLexRulesByConditions = new HashMap<String, Integer[]>() {{
-    put("INITIAL", new Integer[] { 0, 1, 2, 3, 4, 5 });
-  }};
+  private static final int LEX_RULE_LPAREN = 0;
+  private static final int LEX_RULE_RPAREN = 1;
+  private static final int LEX_RULE_WHITESPACE = 2;
+  private static final int LEX_RULE_NUMBER = 3;
+  private static final int LEX_RULE_SYMBOL = 4;
+  private static final int LEX_RULE_STRING = 5;
 
   /**
    * Stack of lexer states.
@@ -290,6 +248,11 @@ class Tokenizer {
    */
   private int mCursor = 0;
 
+  /**
+   * Index of the lex rule matched by the last `scan`.
+   */
+  private int mMatchedRule;
+
   /**
    * Line-based location tracking.
    */
@@ -348,6 +311,21 @@ class Tokenizer {
     return "STRING";
   }
 
+  /**
+   * Dispatches to the handler of the lex rule with the given index.
+   */
+  private Object callLexRule(int rule) {
+    switch (rule) {
+      case 0: return _lexRule0();
+      case 1: return _lexRule1();
+      case 2: return _lexRule2();
+      case 3: return _lexRule3();
+      case 4: return _lexRule4();
+      case 5: return _lexRule5();
+      default: throw new IllegalStateException("Unknown lex rule: " + rule);
+    }
+  }
+
   // --------------------------------------------
   // Constructor.
 
@@ -355,12 +333,33 @@ class Tokenizer {
     //
   }
 
-  public Tokenizer(String tokenizingString) {
+  public Tokenizer(CharSequence tokenizingString) {
     initString(tokenizingString);
   }
 
-  public void initString(String tokenizingString) {
+  public void initString(CharSequence tokenizingString) {
+    mStreaming = false;
+    mReader = null;
+    mInputLength = tokenizingString.length();
+    init(tokenizingString);
+  }
+
+  /**
+   * Tokenizes the chars of the reader as they are needed: only the
+   * current token, and at most one read buffer of chars after it, are
+   * kept in memory. Read errors are thrown as `UncheckedIOException`.
+   */
+  public void initReader(Reader reader) {
+    mStreaming = true;
+    mReader = reader;
+    mReadBuffer = new char[READ_BUFFER_SIZE];
+    mInputLength = -1;
+    init(new StringBuilder(READ_BUFFER_SIZE));
+  }
+
+  private void init(CharSequence tokenizingString) {
     mString = tokenizingString;
+    mWindowStart = 0;
     mCursor = 0;
 
     mStates = new Stack<String>();
@@ -411,68 +410,138 @@ class Tokenizer {
   public Token getNextToken() throws ParseException {
     // Something was queued, return it.
     if (mTokensQueue.size() > 0) {
-      return toToken(mTokensQueue.remove(), "");
+      return new Token(mTokensMap.get(mTokensQueue.remove()), "", newLoc());
     }
 
-    if (!hasMoreTokens()) {
-      return EOF_TOKEN;
-    }
-
-    String str = mString.substring(mCursor);
-    Integer[] lexRulesForState = mLexRulesByConditions.get(getCurrentState());
+    while (hasMoreTokens()) {
+      if (isEOF()) {
+        mCursor++;
+        return EOF_TOKEN;
+      }
 
-    for (int i = 0; i < lexRulesForState.length; i++) {
-      String matched = match(str, mLexPatterns[i]);
+      int end = scan(mCursor);
 
-      // Manual handling of EOF token (the end of String). Return it
-      // as `EOF` symbol.
-      if (str.length() == 0 && matched != null && matched.length() == 0) {
-        mCursor++;
+      if (end < 0) {
+        throwUnexpectedToken(
+          charAt(mCursor),
+          mCurrentLine,
+          mCurrentColumn
+        );
       }
 
-      if (matched != null) {
-        this.yytext = matched;
-        this.yyleng = matched.length();
+      int rule = mMatchedRule;
+      int start = mCursor;
 
-        Object tokenType = null;
+      captureLocation(end);
+      mCursor = end;
 
-        try {
-          tokenType = mLexHandlerMethods[i].invoke(this);
-        } catch (Exception e) {
-          e.printStackTrace();
-          throw new ParseException(e.getMessage(), 0);
-        }
+      Object tokenType = callLexRule(rule);
 
-        if (tokenType == null) {
-          return getNextToken();
-        }
+      // Skipped token (e.g. whitespace), scan the next one.
+      if (tokenType == null) {
+        continue;
+      }
 
-        if (tokenType.getClass().isArray()) {
-          String[] tokensArray = (String[])tokenType;
-          tokenType = (String)tokensArray[0];
-          if (tokensArray.length > 1) {
-            for (int j = 1; j < tokensArray.length; j++) {
-              mTokensQueue.add(tokensArray[j]);
-            }
+      if (tokenType.getClass().isArray()) {
+        String[] tokensArray = (String[])tokenType;
+        tokenType = (String)tokensArray[0];
+        if (tokensArray.length > 1) {
+          for (int j = 1; j < tokensArray.length; j++) {
+            mTokensQueue.add(tokensArray[j]);
           }
         }
+      }
+
+      return toToken((String)tokenType, rule, start, end);
+    }
+
+    return EOF_TOKEN;
+  }
 
-        return toToken((String)tokenType, matched);
+  /**
+   * Scans one token starting at `start`: stores the index of the matched
+   * lex rule in `mMatchedRule`, and returns the end offset of the match,
+   * or -1 if no rule matches. Rules are tried in the grammar order, so
+   * e.g. "-5" is a NUMBER, while "-" and "-x" are SYMBOLs.
+   */
+  private int scan(int start) {
+    char c = charAt(start);
+
+    switch (c) {
+      case '(':
+        mMatchedRule = LEX_RULE_LPAREN;
+        return start + 1;
+
+      case ')':
+        mMatchedRule = LEX_RULE_RPAREN;
+        return start + 1;
+
+      case '"': {
+        int end = start + 1;
+        while (hasChar(end) && charAt(end) != '"') {
+          end++;
+        }
+        if (!hasChar(end)) {
+          // Unterminated string literal.
+          return -1;
+        }
+        mMatchedRule = LEX_RULE_STRING;
+        return end + 1;
       }
     }
 
-    if (isEOF()) {
-      mCursor++;
-      return EOF_TOKEN;
+    if (isWhitespace(c)) {
+      int end = start + 1;
+      while (hasChar(end) && isWhitespace(charAt(end))) {
+        end++;
+      }
+      mMatchedRule = LEX_RULE_WHITESPACE;
+      return end;
     }
 
-    throwUnexpectedToken(
-      str.charAt(0),
-      mCurrentLine,
-      mCurrentColumn
-    );
+    int digits = (c == '+' || c == '|' || c == '-') ? start + 1 : start;
+    if (hasChar(digits) && isDigit(charAt(digits))) {
+      int end = digits + 1;
+      while (hasChar(end) && isDigit(charAt(end))) {
+        end++;
+      }
+      if (hasChar(end) && charAt(end) == '.') {
+        end++;
+        while (hasChar(end) && isDigit(charAt(end))) {
+          end++;
+        }
+      }
+      mMatchedRule = LEX_RULE_NUMBER;
+      return end;
+    }
 
-    return null;
+    if (isSymbolChar(c)) {
+      int end = start + 1;
+      while (hasChar(end) && isSymbolChar(charAt(end))) {
+        end++;
+      }
+      mMatchedRule = LEX_RULE_SYMBOL;
+      return end;
+    }
+
+    return -1;
+  }
+
+  // `\s` of java.util.regex.
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+
+  // `\d` of java.util.regex.
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  // `[\w\-+*=<>/]` of java.util.regex.
+  private static boolean isSymbolChar(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || isDigit(c) ||
+      c == '_' || c == '-' || c == '+' || c == '*' || c == '=' ||
+      c == '<' || c == '>' || c == '/';
   }
 
   /**
@@ -481,9 +550,21 @@ class Tokenizer {
    * In addition, shows `line:column` location.
    */
   public void throwUnexpectedToken(char symbol, int line, int column) throws ParseException {
-    String lineSource = mString.split("\n")[line - 1];
+    // The line of the last token, or the current one. When streaming,
+    // only the part of it which is still in the window is shown.
+    int lineBegin = line == mTokenStartLine
+      ? mTokenStartOffset - mTokenStartColumn
+      : mCurrentLineBeginOffset;
+    int lineSourceBegin = Math.max(lineBegin, mWindowStart);
+    int lineSourceEnd = lineSourceBegin;
+    while (lineSourceEnd - mWindowStart < mString.length() && charAt(lineSourceEnd) != '\n') {
+      lineSourceEnd++;
+    }
+    String lineSource = mString.subSequence(
+      lineSourceBegin - mWindowStart, lineSourceEnd - mWindowStart).toString();
 
-    String pad = new String(new char[column]).replace("\0", " ");
+    int padLength = Math.max(column - (lineSourceBegin - lineBegin), 0);
+    String pad = new String(new char[padLength]).replace("\0", " ");
     String lineData = "\n\n" + lineSource + "\n" + pad + "^\n";
 
     throw new ParseException(
@@ -492,7 +573,7 @@ class Tokenizer {
     );
   }
 
-  private void captureLocation(String matched) {
+  private void captureLocation(int end) {
     // Absolute offsets.
     mTokenStartOffset = mCursor;
 
@@ -501,13 +582,14 @@ class Tokenizer {
     mTokenStartColumn = mTokenStartOffset - mCurrentLineBeginOffset;
 
     // Extract `\n` in the matched token.
-    Matcher nlMatcher = NL_RE.matcher(matched);
-    while (nlMatcher.find()) {
-      mCurrentLine++;
-      mCurrentLineBeginOffset = mTokenStartOffset + nlMatcher.start() + 1;
+    for (int i = mCursor; i < end; i++) {
+      if (charAt(i) == '\n') {
+        mCurrentLine++;
+        mCurrentLineBeginOffset = i + 1;
+      }
     }
 
-    mTokenEndOffset = mCursor + matched.length();
+    mTokenEndOffset = end;
 
     // Line-based locations, end.
     mTokenEndLine = mCurrentLine;
@@ -515,60 +597,96 @@ class Tokenizer {
       (mTokenEndOffset - mCurrentLineBeginOffset);
   }
 
-  private Token toToken(String tokenType, String yytext) {
+  private Token toToken(String tokenType, int rule, int start, int end) {
+    int type = mTokensMap.get(tokenType);
+
+    // Parens need no text.
+    if (rule == LEX_RULE_LPAREN) {
+      return new Token(type, "(", newLoc());
+    }
+    if (rule == LEX_RULE_RPAREN) {
+      return new Token(type, ")", newLoc());
+    }
+
+    // A fixed source is kept as is, so the value can be taken from it
+    // lazily; the window of a reader is refilled, so copy it out now.
+    if (!mStreaming) {
+      return new Token(type, mString, newLoc());
+    }
     return new Token(
-      mTokensMap.get(tokenType),
-      yytext,
-      new YyLoc(
-        mTokenStartOffset,
-        mTokenEndOffset,
-        mTokenStartLine,
-        mTokenEndLine,
-        mTokenStartColumn,
-        mTokenEndColumn
-      )
+      type,
+      mString.subSequence(start - mWindowStart, end - mWindowStart).toString(),
+      newLoc()
+    );
+  }
+
+  private YyLoc newLoc() {
+    return new YyLoc(
+      mTokenStartOffset,
+      mTokenEndOffset,
+      mTokenStartLine,
+      mTokenEndLine,
+      mTokenStartColumn,
+      mTokenEndColumn
     );
   }
 
   public boolean hasMoreTokens() {
-    return mCursor <= mString.length();
+    return hasChar(mCursor) || mCursor == mInputLength;
   }
 
   public boolean isEOF() {
-    return mCursor == mString.length();
+    return !hasChar(mCursor) && mCursor == mInputLength;
   }
 
-  private String match(String str, Pattern re) {
-    Matcher m = re.matcher(str);
-    String v = null;
-    if (m.find()) {
-      v = m.group(0);
-      captureLocation(v);
-      mCursor += v.length();
-    }
-    return v;
+  public String get() {
+    return mString.toString();
   }
 
-  public String get() {
-    return mString;
+  private char charAt(int offset) {
+    return mString.charAt(offset - mWindowStart);
   }
-}
 
-// --------------------------------------------
-// Parser.
+  /**
+   * Whether there is a char at the offset, reading it in if needed.
+   */
+  private boolean hasChar(int offset) {
+    return offset - mWindowStart < mString.length() || fill(offset);
+  }
+
+  /**
+   * Reads the reader up to the offset, first dropping the chars before
+   * the current token from the window. Returns false at the end of input.
+   */
+  private boolean fill(int offset) {
+    if (mReader == null) {
+      return false;
+    }
 
-class StackEntry {
-  public int symbol;
-  public Object semanticValue;
-  public YyLoc loc;
+    StringBuilder window = (StringBuilder) mString;
+    window.delete(0, mCursor - mWindowStart);
+    mWindowStart = mCursor;
 
-  public StackEntry(int symbol, Object semanticValue, YyLoc loc) {
-    this.symbol = symbol;
-    this.semanticValue = semanticValue;
-    this.loc = loc;
+    try {
+      while (offset - mWindowStart >= window.length()) {
+        int read = mReader.read(mReadBuffer);
+        if (read < 0) {
+          mReader = null;
+          mInputLength = mWindowStart + window.length();
+          return false;
+        }
+        window.append(mReadBuffer, 0, read);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return true;
   }
 }
 
+// --------------------------------------------
+// Parser.
+
 /**
  * Base class for the parser. Implements LR parsing algorithm.
  *
@@ -609,78 +727,128 @@ public class LispyParser {
   };
 
   /**
-   * Cache for the handler methods.
-   *
-   * Example:
-   *
-   *   mProductionHandlerMethods[0] = Parser.class.getDeclaredMethod("_handler0");
-   *   ...
+   * Encoded symbols: non-terminals are 0-3, terminals (the token types
+   * of the tokenizer) are 4-9.
    */
-  private static final Method[] mProductionHandlerMethods = new Method[9];
-  static {
-    try {
-      mProductionHandlerMethods[0] = LispyParser.class.getDeclaredMethod("_handler0");
-      mProductionHandlerMethods[1] = LispyParser.class.getDeclaredMethod("_handler1");
-      mProductionHandlerMethods[2] = LispyParser.class.getDeclaredMethod("_handler2");
-      mProductionHandlerMethods[3] = LispyParser.class.getDeclaredMethod("_handler3");
-      mProductionHandlerMethods[4] = LispyParser.class.getDeclaredMethod("_handler4");
-      mProductionHandlerMethods[5] = LispyParser.class.getDeclaredMethod("_handler5");
-      mProductionHandlerMethods[6] = LispyParser.class.getDeclaredMethod("_handler6");
-      mProductionHandlerMethods[7] = LispyParser.class.getDeclaredMethod("_handler7");
-      mProductionHandlerMethods[8] = LispyParser.class.getDeclaredMethod("_handler8");
-    } catch (Exception ignore) {
-      // Ignore since the methods are exact.
-    }
+  private static final int NON_TERMINALS = 4;
+  private static final int TERMINALS = 6;
+
+  /**
+   * Parsing action opcodes, stored in the low bits of an action table
+   * entry; the operand (next state, or production number) is stored in
+   * the remaining bits. A zero entry is a syntax error.
+   */
+  private static final int ERROR = 0;
+  private static final int SHIFT = 1;
+  private static final int REDUCE = 2;
+  private static final int ACCEPT = 3;
+
+  private static final int OPCODE_BITS = 2;
+  private static final int OPCODE_MASK = (1 << OPCODE_BITS) - 1;
+
+  // Table shorthands, after the "s5" / "r3" / "acc" notation of the
+  // Syntax tool.
+  private static int s(int state) {
+    return (state << OPCODE_BITS) | SHIFT;
+  }
+
+  private static int r(int production) {
+    return (production << OPCODE_BITS) | REDUCE;
+  }
+
+  private static final int acc = ACCEPT;
+
+  /**
+   * Actual parsing table, packed: the action for a state and a terminal
+   * is at `state * TERMINALS + (terminal - NON_TERMINALS)`.
+   */
+  private static final int[] mActionTable = {
+    //      NUMBER  STRING  SYMBOL  '('     ')'     $
+    /*  0 */ s(4),   s(5),   s(6),   s(7),   ERROR,  ERROR,
+    /*  1 */ ERROR,  ERROR,  ERROR,  ERROR,  ERROR,  acc,
+    /*  2 */ r(1),   r(1),   r(1),   r(1),   r(1),   r(1),
+    /*  3 */ r(2),   r(2),   r(2),   r(2),   r(2),   r(2),
+    /*  4 */ r(3),   r(3),   r(3),   r(3),   r(3),   r(3),
+    /*  5 */ r(4),   r(4),   r(4),   r(4),   r(4),   r(4),
+    /*  6 */ r(5),   r(5),   r(5),   r(5),   r(5),   r(5),
+    /*  7 */ r(8),   r(8),   r(8),   r(8),   r(8),   ERROR,
+    /*  8 */ s(4),   s(5),   s(6),   s(7),   s(9),   ERROR,
+    /*  9 */ r(6),   r(6),   r(6),   r(6),   r(6),   r(6),
+    /* 10 */ r(7),   r(7),   r(7),   r(7),   r(7),   ERROR,
   };
 
   /**
-   * Actual parsing table. An array of records, where
-   * index is a state number, and a value is a dictionary
-   * from an encoded symbol (number) to parsing action.
-   * The parsing action can be "Shift/s", "Reduce/r", a state
-   * transition number, or "Accept/acc".
-   *
-   * Example:
-   *
-   *   mTable.add(
-   *     new HashMap<Integer, String>() {{
-   *       put(0, "1");
-   *       put(3, "s2");
-   *       put(4, "s3");
-   *     }}
-   *   );
-   *   ...
+   * State transitions on non-terminals, packed: the next state for a
+   * state and a non-terminal is at `state * NON_TERMINALS + nonTerminal`.
+   * Zero means no transition (state 0 is never a target).
    */
-  private static List<Map<Integer, String>> mTable = new ArrayList<Map<Integer, String>>();
-  static {
-    mTable.add(new HashMap<Integer, String>() {{ put(0, "1"); put(1, "2"); put(2, "3"); put(4, "s4"); put(5, "s5"); put(6, "s6"); put(7, "s7"); }});
-    mTable.add(new HashMap<Integer, String>() {{ put(9, "acc"); }});
-    mTable.add(new HashMap<Integer, String>() {{ put(4, "r1"); put(5, "r1"); put(6, "r1"); put(7, "r1"); put(8, "r1"); put(9, "r1"); }});
-    mTable.add(new HashMap<Integer, String>() {{ put(4, "r2"); put(5, "r2"); put(6, "r2"); put(7, "r2"); put(8, "r2"); put(9, "r2"); }});
-    mTable.add(new HashMap<Integer, String>() {{ put(4, "r3"); put(5, "r3"); put(6, "r3"); put(7, "r3"); put(8, "r3"); put(9, "r3"); }});
-    mTable.add(new HashMap<Integer, String>() {{ put(4, "r4"); put(5, "r4"); put(6, "r4"); put(7, "r4"); put(8, "r4"); put(9, "r4"); }});
-    mTable.add(new HashMap<Integer, String>() {{ put(4, "r5"); put(5, "r5"); put(6, "r5"); put(7, "r5"); put(8, "r5"); put(9, "r5"); }});
-    mTable.add(new HashMap<Integer, String>() {{ put(3, "8"); put(4, "r8"); put(5, "r8"); put(6, "r8"); put(7, "r8"); put(8, "r8"); }});
-    mTable.add(new HashMap<Integer, String>() {{ put(0, "10"); put(1, "2"); put(2, "3"); put(4, "s4"); put(5, "s5"); put(6, "s6"); put(7, "s7"); put(8, "s9"); }});
-    mTable.add(new HashMap<Integer, String>() {{ put(4, "r6"); put(5, "r6"); put(6, "r6"); put(7, "r6"); put(8, "r6"); put(9, "r6"); }});
-    mTable.add(new HashMap<Integer, String>() {{ put(4, "r7"); put(5, "r7"); put(6, "r7"); put(7, "r7"); put(8, "r7"); }});
+  private static final int[] mGotoTable = {
+    //      Exp  Atom  List  ListEntries
+    /*  0 */ 1,   2,    3,    0,
+    /*  1 */ 0,   0,    0,    0,
+    /*  2 */ 0,   0,    0,    0,
+    /*  3 */ 0,   0,    0,    0,
+    /*  4 */ 0,   0,    0,    0,
+    /*  5 */ 0,   0,    0,    0,
+    /*  6 */ 0,   0,    0,    0,
+    /*  7 */ 0,   0,    0,    8,
+    /*  8 */ 10,  2,    3,    0,
+    /*  9 */ 0,   0,    0,    0,
+    /* 10 */ 0,   0,    0,    0,
   };
 
   /**
-   * Parsing stack. Stores instances of StackEntry.
+   * The only non-error action of each state, or ERROR if a state has
+   * several: such states can act without reading a lookahead token.
+   */
+  private static final int[] mDefaultActions = new int[mActionTable.length / TERMINALS];
+  static {
+    for (int state = 0; state < mDefaultActions.length; state++) {
+      int action = ERROR;
+      for (int i = state * TERMINALS; i < (state + 1) * TERMINALS; i++) {
+        int entry = mActionTable[i];
+        if (entry == ERROR || entry == action) {
+          continue;
+        }
+        if (action != ERROR || (entry & OPCODE_MASK) == SHIFT) {
+          action = ERROR;
+          break;
+        }
+        action = entry;
+      }
+      mDefaultActions[state] = action;
+    }
+  }
+
+  /**
+   * Lookahead token read past the end of the last expression returned
+   * by `parseNext`, if any.
+   */
+  Token mLookahead = null;
+
+  /**
+   * Parsing stacks, as growable arrays: semantic values and their
+   * locations, and the state numbers. The value stack is one entry
+   * shorter than the states stack (the initial state has no value).
    */
-  Stack<StackEntry> mValueStack = null;
+  Object[] mValueStack = null;
+  YyLoc[] mLocStack = null;
+  int mValueStackTop = 0;
+
+  int[] mStatesStack = null;
+  int mStatesStackTop = 0;
 
   /**
-   * States stack.
+   * Index of the first RHS value of the production being reduced, the
+   * handlers read their arguments `_1`, `_2`, ... from there.
    */
-  Stack<Integer> mStatesStack = null;
+  int mValueStackBase = 0;
 
   /**
    * __ holds a result value from a production
    * handler. In the grammar usually used as $$.
    */
-  StackEntry __ = null;
+  Object __ = null;
 
   /**
    * Constructor.
@@ -691,13 +859,18 @@ public class LispyParser {
     // in the tokenizer.initString("...").
     tokenizer = new Tokenizer();
 
+    mValueStack = new Object[16];
+    mLocStack = new YyLoc[16];
+    mStatesStack = new int[16];
+
     // Run init hook to setup callbacks, etc.
     ParserEvents.init();
   }
 
   /**
-   * Production handles. The handlers receive arguments as _1, _2, etc.
-   * The result is always stored in __.
+   * Production handles. The handlers receive arguments as _1, _2, etc.,
+   * and their locations as _1loc, _2loc, etc. The result is always stored
+   * in __.
    *
    * In grammar:
    *
@@ -707,201 +880,275 @@ public class LispyParser {
    *
    * public void _handler0() {
    *   // Prologue
-   *   StackEntry _3 = mValueStack.pop();
-   *   mValueStack.pop();
-   *   StackEntry _1 = mValueStack.pop();
+   *   Object _1 = mValueStack[mValueStackBase];
+   *   Object _3 = mValueStack[mValueStackBase + 2];
    *
-   *   __.semanticValue = (Integer)(_1.semanticValue) + (Integer)(_3.semanticValue);
+   *   __ = (Integer)(_1) + (Integer)(_3);
    * }
    */
-    void _handler0() {
+  void _handler0() {
     // Semantic values prologue.
-StackEntry _1 = mValueStack.pop();
+Object _1 = mValueStack[mValueStackBase];
 
-__.semanticValue = (_1.semanticValue);
+__ = (_1);
   }
 
   void _handler1() {
     // Semantic values prologue.
-StackEntry _1 = mValueStack.pop();
+Object _1 = mValueStack[mValueStackBase];
 
-__.semanticValue = (_1.semanticValue);
+__ = (_1);
   }
 
   void _handler2() {
     // Semantic values prologue.
-StackEntry _1 = mValueStack.pop();
+Object _1 = mValueStack[mValueStackBase];
 
-__.semanticValue = (_1.semanticValue);
+__ = (_1);
   }
 
   void _handler3() {
     // Semantic values prologue.
-StackEntry _1 = mValueStack.pop();
+Object _1 = mValueStack[mValueStackBase];
+YyLoc _1loc = mLocStack[mValueStackBase];
 
-__.semanticValue = Double.parseDouble((String)(_1.semanticValue));
+__ = new NumberExp(Numbers.parse((String)(_1)), _1loc);
   }
 
   void _handler4() {
     // Semantic values prologue.
-StackEntry _1 = mValueStack.pop();
+Object _1 = mValueStack[mValueStackBase];
+YyLoc _1loc = mLocStack[mValueStackBase];
 
-__.semanticValue = (_1.semanticValue);
+String s = (String)(_1); __ = new StringExp(s.substring(1, s.length() - 1), _1loc);
   }
 
   void _handler5() {
     // Semantic values prologue.
-StackEntry _1 = mValueStack.pop();
+Object _1 = mValueStack[mValueStackBase];
+YyLoc _1loc = mLocStack[mValueStackBase];
 
-__.semanticValue = (_1.semanticValue);
+__ = new SymbolExp(Symbol.intern((String)(_1)), _1loc);
   }
 
   void _handler6() {
     // Semantic values prologue.
-mValueStack.pop();
-StackEntry _2 = mValueStack.pop();
-mValueStack.pop();
+Object _2 = mValueStack[mValueStackBase + 1];
+YyLoc _1loc = mLocStack[mValueStackBase];
+YyLoc _3loc = mLocStack[mValueStackBase + 2];
 
-__.semanticValue = (_2.semanticValue);
+__ = new ListExp((List<Exp>)(_2), YyLoc.yyloc(_1loc, _3loc));
   }
 
   void _handler7() {
     // Semantic values prologue.
-StackEntry _2 = mValueStack.pop();
-StackEntry _1 = mValueStack.pop();
+Object _1 = mValueStack[mValueStackBase];
+Object _2 = mValueStack[mValueStackBase + 1];
 
-((List)(_1.semanticValue)).add((_2.semanticValue)); __.semanticValue = (_1.semanticValue);
+((List<Exp>)(_1)).add((Exp)(_2)); __ = (_1);
   }
 
   void _handler8() {
     // Semantic values prologue.
 
 
-__.semanticValue = new ArrayList<Object>();
+__ = new ArrayList<Exp>();
+  }
+
+  /**
+   * Dispatches to the semantic action handler of the given production.
+   */
+  private void callProductionHandler(int productionNumber) {
+    switch (productionNumber) {
+      case 0: _handler0(); break;
+      case 1: _handler1(); break;
+      case 2: _handler2(); break;
+      case 3: _handler3(); break;
+      case 4: _handler4(); break;
+      case 5: _handler5(); break;
+      case 6: _handler6(); break;
+      case 7: _handler7(); break;
+      case 8: _handler8(); break;
+      default: throw new IllegalStateException("Unknown production: " + productionNumber);
+    }
+  }
+
+  private void pushState(int state) {
+    if (mStatesStackTop == mStatesStack.length) {
+      mStatesStack = Arrays.copyOf(mStatesStack, mStatesStackTop * 2);
+    }
+    mStatesStack[mStatesStackTop++] = state;
+  }
+
+  private void pushValue(Object value, YyLoc loc) {
+    if (mValueStackTop == mValueStack.length) {
+      mValueStack = Arrays.copyOf(mValueStack, mValueStackTop * 2);
+      mLocStack = Arrays.copyOf(mLocStack, mValueStackTop * 2);
+    }
+    mValueStack[mValueStackTop] = value;
+    mLocStack[mValueStackTop] = loc;
+    mValueStackTop++;
   }
 
   /**
    * Main parsing method which applies LR-algorithm.
    */
-  public Object parse(String str) throws ParseException {
+  public Object parse(CharSequence str) throws ParseException {
     // On parse begin hook.
     ParserEvents.onParseBegin(str);
 
     tokenizer.initString(str);
+    mLookahead = null;
 
-    // Initialize the parsing stack to the initial state 0.
-    mValueStack = new Stack<StackEntry>();
-    mStatesStack = new Stack<Integer>();
-    mStatesStack.push(0);
-
-    Token token = tokenizer.getNextToken();
-    Token shiftedToken = null;
+    return parseExp(false);
+  }
 
-    do {
-      if (token == null) {
-        unexpectedEndOfInput();
-      }
+  /**
+   * Starts parsing a sequence of top-level expressions from the string,
+   * which are then returned one at a time by `parseNext`.
+   */
+  public void initString(CharSequence str) {
+    tokenizer.initString(str);
+    mLookahead = null;
+  }
 
-      int state = mStatesStack.peek();
-      int column = token.type;
+  /**
+   * Starts parsing a sequence of top-level expressions from the reader,
+   * which are then returned one at a time by `parseNext`. The input is
+   * read incrementally, so memory use does not depend on its size.
+   */
+  public void initReader(Reader reader) {
+    tokenizer.initReader(reader);
+    mLookahead = null;
+  }
 
-      if (!mTable.get(state).containsKey(column)) {
-        unexpectedToken(token);
-        break;
+  /**
+   * Parses the next top-level expression of the input set by `initString`
+   * or `initReader`, or returns null at the end of input. A form is
+   * returned as soon as its last token is read, without waiting for the
+   * next one.
+   */
+  public Object parseNext() throws ParseException, IOException {
+    try {
+      if (mLookahead == null) {
+        mLookahead = tokenizer.getNextToken();
       }
-
-      String entry = mTable.get(state).get(column);
-
-      // ---------------------------------------------------
-      // "Shift". Shift-entries always have 's' as their
-      // first char, after which goes *next state number*, e.g. "s5".
-      // On shift we push the token, and the next state on the stack.
-      if (entry.charAt(0) == 's') {
-        YyLoc loc = null;
-
-        // Push token.
-        mValueStack.push(new StackEntry(token.type, token.value, token.loc));
-
-        // Push next state number: "s5" -> 5
-        mStatesStack.push(Integer.valueOf(entry.substring(1)));
-
-        shiftedToken = token;
-        token = tokenizer.getNextToken();
+      if (mLookahead.type == Tokenizer.EOF_TOKEN.type) {
+        return null;
       }
+      return parseExp(true);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
 
-      // ---------------------------------------------------
-      // "Reduce". Reduce-entries always have 'r' as their
-      // first char, after which goes *production number* to
-      // reduce by, e.g. "r3" - reduce by production 3 in the grammar.
-      // On reduce, we pop of the stack number of symbols on the RHS
-      // of the production, and their pushed state numbers, i.e.
-      // total RHS * 2 symbols.
-      else if (entry.charAt(0) == 'r') {
-        // "r3" -> 3
-        int productionNumber = Integer.valueOf(entry.substring(1));
-        int[] production = mProductions[productionNumber];
-
-        // The length of RHS is stored in the production[1].
-        int rhsLength = production[1];
-        if (rhsLength != 0) {
-          while (rhsLength-- > 0) {
-            // Pop the state number.
-            mStatesStack.pop();
-          }
+  /**
+   * Parses one expression. With `multiForm`, the expression doesn't have
+   * to be followed by the end of input: states with a single possible
+   * action take it without reading a lookahead token, so the parse stops
+   * right after the expression, and a lookahead token which was read is
+   * kept in `mLookahead` for the next call.
+   */
+  private Object parseExp(boolean multiForm) throws ParseException {
+    // Initialize the parsing stack to the initial state 0.
+    Arrays.fill(mValueStack, 0, mValueStackTop, null);
+    Arrays.fill(mLocStack, 0, mValueStackTop, null);
+    mValueStackTop = 0;
+    mStatesStackTop = 0;
+    pushState(0);
+
+    Token token = mLookahead;
+    mLookahead = null;
+
+    while (true) {
+      int state = mStatesStack[mStatesStackTop - 1];
+      int entry = multiForm ? mDefaultActions[state] : ERROR;
+
+      if (entry == ERROR) {
+        if (token == null) {
+          token = tokenizer.getNextToken();
         }
+        entry = mActionTable[state * TERMINALS + (token.type - NON_TERMINALS)];
+      }
 
-        int previousState = mStatesStack.peek();
-        int symbolToReduceWith = production[0];
+      switch (entry & OPCODE_MASK) {
+        // ---------------------------------------------------
+        // "Shift": the operand is the *next state number*.
+        // On shift we push the token, and the next state on the stack.
+        case SHIFT: {
+          // Push token.
+          pushValue(token.getValue(), token.loc);
 
-        __ = new StackEntry(symbolToReduceWith, null, null);
+          // Push next state number.
+          pushState(entry >>> OPCODE_BITS);
 
-        // Execute the semantic action handler.
-        this.tokenizer.yytext = shiftedToken != null ? shiftedToken.value : null;
-        this.tokenizer.yyleng = shiftedToken != null ? shiftedToken.value.length() : 0;
+          token = null;
+          break;
+        }
 
-        try {
-          mProductionHandlerMethods[productionNumber].invoke(this);
-        } catch (Exception e) {
-          e.printStackTrace();
-          throw new ParseException(e.getMessage(), 0);
+        // ---------------------------------------------------
+        // "Reduce": the operand is the *production number* to
+        // reduce by. On reduce, we pop of the stack number of symbols
+        // on the RHS of the production, and their pushed state numbers.
+        case REDUCE: {
+          int productionNumber = entry >>> OPCODE_BITS;
+          int[] production = mProductions[productionNumber];
+
+          // The length of RHS is stored in the production[1].
+          int rhsLength = production[1];
+          mStatesStackTop -= rhsLength;
+
+          int previousState = mStatesStack[mStatesStackTop - 1];
+          int symbolToReduceWith = production[0];
+
+          // Execute the semantic action handler, its arguments are the
+          // top `rhsLength` values.
+          mValueStackBase = mValueStackTop - rhsLength;
+          __ = null;
+          callProductionHandler(productionNumber);
+
+          // Then replace the RHS with the LHS on the stack.
+          Arrays.fill(mValueStack, mValueStackBase, mValueStackTop, null);
+          Arrays.fill(mLocStack, mValueStackBase, mValueStackTop, null);
+          mValueStackTop = mValueStackBase;
+          pushValue(__, null);
+
+          // And the next state number.
+          pushState(mGotoTable[previousState * NON_TERMINALS + symbolToReduceWith]);
+          break;
         }
 
-        // Then push LHS onto the stack.
-        mValueStack.push(__);
+        // ---------------------------------------------------
+        // Accept. Pop starting production and its state number.
+        case ACCEPT: {
+          // Pop state number.
+          mStatesStackTop--;
+
+          // Pop the parsed value.
+          Object parsedValue = mValueStack[--mValueStackTop];
+          mValueStack[mValueStackTop] = null;
+          mLocStack[mValueStackTop] = null;
+
+          if (multiForm) {
+            mLookahead = token;
+          } else if (
+            mStatesStackTop != 1 ||
+            mStatesStack[0] != 0 ||
+            tokenizer.hasMoreTokens()
+          ) {
+            unexpectedToken(token);
+          }
 
-        // And the next state number.
-        int nextState = Integer.valueOf(
-          mTable.get(previousState).get(symbolToReduceWith)
-        );
+          ParserEvents.onParseEnd(parsedValue);
 
-        mStatesStack.push(nextState);
-      }
-      // ---------------------------------------------------
-      // Accept. Pop starting production and its state number.
-      else if (entry.charAt(0) == 'a') {
-        // Pop state number.
-        mStatesStack.pop();
-
-        // Pop the parsed value.
-        StackEntry parsed = mValueStack.pop();
-
-        if (
-          mStatesStack.size() != 1 ||
-          mStatesStack.peek() != 0 ||
-          tokenizer.hasMoreTokens()
-        ) {
-          unexpectedToken(token);
+          return parsedValue;
         }
 
-        Object parsedValue = parsed.semanticValue;
-        ParserEvents.onParseEnd(parsedValue);
-
-        return parsedValue;
+        default:
+          unexpectedToken(token);
+          return null;
       }
-
-    } while (tokenizer.hasMoreTokens() || mStatesStack.size() > 1);
-
-    return null;
+    }
   }
 
   private void unexpectedToken(Token token) throws ParseException {
@@ -910,7 +1157,7 @@ __.semanticValue = new ArrayList<Object>();
     }
 
     tokenizer.throwUnexpectedToken(
-      token.value.charAt(0),
+      token.getValue().charAt(0),
       token.loc.startLine,
       token.loc.startColumn
     );
@@ -0,0 +1,73 @@
+package lispy.ast_interpreter.minimal_parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A `CharSequence` view of ASCII or UTF-8 source in a byte buffer, usually
+ * a memory-mapped file, so the tokenizer can scan it without reading it into
+ * a `String`. Each byte is one char: the syntax of Lispy is ASCII, and bytes
+ * of multi-byte UTF-8 chars can only occur in string literals, so offsets and
+ * columns are counted in bytes. `toString` decodes the bytes as UTF-8, which
+ * is how token values are cut out of the source.
+ */
+public final class MappedSource implements CharSequence {
+
+	private final ByteBuffer buffer;
+	private final int start;
+	private final int length;
+
+	public MappedSource(ByteBuffer buffer) {
+		this(buffer, 0, buffer.limit());
+	}
+
+	private MappedSource(ByteBuffer buffer, int start, int length) {
+		this.buffer = buffer;
+		this.start = start;
+		this.length = length;
+	}
+
+	/**
+	 * Maps the whole file read-only. Files of 2GB or more can't be mapped
+	 * into one buffer.
+	 */
+	public static MappedSource map(Path path) throws IOException {
+		try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException(path + ": too large to map (" + size + " bytes)");
+			}
+			return new MappedSource(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+		}
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		return (char) (buffer.get(start + index) & 0xFF);
+	}
+
+	@Override
+	public CharSequence subSequence(int from, int to) {
+		if (from < 0 || to > length || from > to) {
+			throw new IndexOutOfBoundsException("[" + from + ", " + to + ") of " + length);
+		}
+		return new MappedSource(buffer, start + from, to - from);
+	}
+
+	@Override
+	public String toString() {
+		var bytes = new byte[length];
+		buffer.get(start, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,195 @@
+package lispy.ast_interpreter.minimal_parser;
+
+import java.math.BigInteger;
+
+/**
+ * The numeric tower. Integers are `Long`s, or `BigInteger`s beyond the
+ * range of a long; other numbers are `Double`s.
+ *
+ * Integer arithmetic is exact: a result which overflows a long is promoted
+ * to a `BigInteger`, and a `BigInteger` result which fits in a long is a
+ * `Long` again. An operation with a `Double` operand, or a division with a
+ * remainder, gives a `Double`. So does a division by zero, as before:
+ * infinity or NaN.
+ */
+public final class Numbers {
+
+	private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
+	private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE);
+
+	private Numbers() {
+	}
+
+	/**
+	 * The number of a NUMBER token: an integer, unless it has a decimal
+	 * point. Integers are scanned here, without going through
+	 * `Double.parseDouble`.
+	 */
+	public static Number parse(String text) {
+		int length = text.length();
+		int i = 0;
+		boolean negative = false;
+		if (length > 1 && (text.charAt(0) == '-' || text.charAt(0) == '+')) {
+			negative = text.charAt(0) == '-';
+			i = 1;
+		}
+		if (text.indexOf('.', i) >= 0) return Double.parseDouble(text);
+
+		// Accumulates negatively, since the range of a long reaches one
+		// further below zero.
+		long value = 0;
+		for (; i < length; i++) {
+			int digit = text.charAt(i) - '0';
+			if (digit < 0 || digit > 9) throw new NumberFormatException("For input string: \"" + text + "\"");
+			if (value < Long.MIN_VALUE / 10 || value * 10 < Long.MIN_VALUE + digit) return normalize(new BigInteger(text));
+			value = value * 10 - digit;
+		}
+		if (negative) return value;
+		if (value == Long.MIN_VALUE) return new BigInteger(text);
+		return -value;
+	}
+
+	public static Number add(Object a, Object b) {
+		if (a instanceof Long && b instanceof Long) {
+			long x = (Long) a;
+			long y = (Long) b;
+			long result = x + y;
+			if (((x ^ result) & (y ^ result)) >= 0) return result;
+		}
+		else if (a instanceof Double || b instanceof Double) return toDouble(a) + toDouble(b);
+		return normalize(big(a).add(big(b)));
+	}
+
+	public static Number subtract(Object a, Object b) {
+		if (a instanceof Long && b instanceof Long) {
+			long x = (Long) a;
+			long y = (Long) b;
+			long result = x - y;
+			if (((x ^ y) & (x ^ result)) >= 0) return result;
+		}
+		else if (a instanceof Double || b instanceof Double) return toDouble(a) - toDouble(b);
+		return normalize(big(a).subtract(big(b)));
+	}
+
+	public static Number multiply(Object a, Object b) {
+		if (a instanceof Long && b instanceof Long) {
+			long x = (Long) a;
+			long y = (Long) b;
+			long result = x * y;
+			if (Math.multiplyHigh(x, y) == result >> 63) return result;
+		}
+		else if (a instanceof Double || b instanceof Double) return toDouble(a) * toDouble(b);
+		return normalize(big(a).multiply(big(b)));
+	}
+
+	public static Number divide(Object a, Object b) {
+		if (a instanceof Double || b instanceof Double) return toDouble(a) / toDouble(b);
+		if (a instanceof Long && b instanceof Long) {
+			long x = (Long) a;
+			long y = (Long) b;
+			if (y == 0 || x % y != 0) return (double) x / y;
+			if (x != Long.MIN_VALUE || y != -1) return x / y;
+		}
+		var y = big(b);
+		if (y.signum() == 0) return toDouble(a) / 0.;
+		var quotientAndRemainder = big(a).divideAndRemainder(y);
+		if (quotientAndRemainder[1].signum() != 0) return toDouble(a) / toDouble(b);
+		return normalize(quotientAndRemainder[0]);
+	}
+
+	/**
+	 * The sum of the numbers, added from the left as by `add`. The loop
+	 * keeps a long while the operands are longs and the sum fits, and a
+	 * double once the sum is one, boxing nothing in between.
+	 */
+	public static Number sum(Object[] numbers) {
+		int i = 0;
+		long sum = 0;
+		for (; i < numbers.length && numbers[i] instanceof Long; i++) {
+			long x = (Long) numbers[i];
+			long result = sum + x;
+			if (((sum ^ result) & (x ^ result)) < 0) break;
+			sum = result;
+		}
+		Number result = sum;
+		for (; i < numbers.length && !(result instanceof Double); i++) result = add(result, numbers[i]);
+		if (i == numbers.length) return result;
+
+		double total = (Double) result;
+		for (; i < numbers.length; i++) total += toDouble(numbers[i]);
+		return total;
+	}
+
+	/**
+	 * The product of the numbers, multiplied from the left as by
+	 * `multiply`, on a long or a double while possible, as `sum`.
+	 */
+	public static Number product(Object[] numbers) {
+		int i = 0;
+		long product = 1;
+		for (; i < numbers.length && numbers[i] instanceof Long; i++) {
+			long x = (Long) numbers[i];
+			long result = product * x;
+			if (Math.multiplyHigh(product, x) != result >> 63) break;
+			product = result;
+		}
+		Number result = product;
+		for (; i < numbers.length && !(result instanceof Double); i++) result = multiply(result, numbers[i]);
+		if (i == numbers.length) return result;
+
+		double total = (Double) result;
+		for (; i < numbers.length; i++) total *= toDouble(numbers[i]);
+		return total;
+	}
+
+	/**
+	 * The least of the numbers, the first one of equal ones; there must be
+	 * at least one.
+	 */
+	public static Number min(Object[] numbers) {
+		var min = numbers[0];
+		for (int i = 1; i < numbers.length; i++) {
+			if (less(numbers[i], min)) min = numbers[i];
+		}
+		return (Number) min;
+	}
+
+	/**
+	 * The greatest of the numbers, the first one of equal ones; there must
+	 * be at least one.
+	 */
+	public static Number max(Object[] numbers) {
+		var max = numbers[0];
+		for (int i = 1; i < numbers.length; i++) {
+			if (greater(numbers[i], max)) max = numbers[i];
+		}
+		return (Number) max;
+	}
+
+	public static boolean less(Object a, Object b) {
+		if (a instanceof Long && b instanceof Long) return (Long) a < (Long) b;
+		if (a instanceof Double || b instanceof Double) return toDouble(a) < toDouble(b);
+		return big(a).compareTo(big(b)) < 0;
+	}
+
+	public static boolean greater(Object a, Object b) {
+		if (a instanceof Long && b instanceof Long) return (Long) a > (Long) b;
+		if (a instanceof Double || b instanceof Double) return toDouble(a) > toDouble(b);
+		return big(a).compareTo(big(b)) > 0;
+	}
+
+	private static double toDouble(Object number) {
+		return ((Number) number).doubleValue();
+	}
+
+	private static BigInteger big(Object number) {
+		if (number instanceof BigInteger) return (BigInteger) number;
+		return BigInteger.valueOf((Long) number);
+	}
+
+	private static Number normalize(BigInteger value) {
+		if (value.compareTo(LONG_MIN) >= 0 && value.compareTo(LONG_MAX) <= 0) return value.longValue();
+		return value;
+	}
+
+}
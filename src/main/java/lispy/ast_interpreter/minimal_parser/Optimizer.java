@@ -0,0 +1,552 @@
+package lispy.ast_interpreter.minimal_parser;
+
+import java.lang.invoke.SwitchPoint;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lispy.ast_interpreter.minimal_parser.ast.*;
+import lispy.ast_interpreter.minimal_parser.native_functions.*;
+
+/**
+ * Partially evaluates a parsed expression before it runs, whatever the
+ * engine:
+ *
+ * - folds `+ - * /` with any number of number operands, and `<` and `>`
+ *   with two number operands, into their result;
+ * - replaces an `if` whose condition is `true` or `false` by the branch it
+ *   takes;
+ * - replaces the variables of a `begin` block which are bound to a number
+ *   or a string, and never `set` or redefined, by their value;
+ * - inlines the calls of small functions (see `inline`).
+ *
+ * The arithmetic builtins are folded only while the global environment
+ * binds them to the natives of `DefaultGlobalEnvironment`, and only if the
+ * expression does not bind their names itself; the same goes for `true`
+ * and `false`. The expression is optimized against the global bindings of
+ * the time; `assumptions` tells when a builtin which it was folded against
+ * is redefined, so that the caller optimizes it again.
+ *
+ * An optimizer is kept across the top-level expressions of a program, to
+ * remember the global functions which they define (see `defined`).
+ */
+public final class Optimizer {
+
+	/** The most nodes of a function body which `inline` copies to a call. */
+	static final int INLINE_SIZE = 16;
+
+	/** A global function, with the value it had when defined. */
+	private static final class Definition {
+		final ListExp parameters;
+		final Exp body;
+		final Object value;
+
+		Definition(ListExp parameters, Exp body, Object value) {
+			this.parameters = parameters;
+			this.body = body;
+			this.value = value;
+		}
+	}
+
+	private final Environment global;
+	private final Map<Symbol, Definition> definitions = new HashMap<>();
+	/** The names which the expression binds, or assigns, somewhere. */
+	private final Set<Symbol> bound = new HashSet<>();
+	/** The switch points of the builtins which the expression relies on. */
+	private final List<SwitchPoint> assumptions = new ArrayList<>();
+
+	public Optimizer(Environment global) {
+		this.global = global;
+	}
+
+	public static Exp optimize(Exp expr, Environment global) {
+		return new Optimizer(global).optimize(expr);
+	}
+
+	public Exp optimize(Exp expr) {
+		if (expr == null) return null;
+		bound.clear();
+		assumptions.clear();
+		bindings(expr);
+		return expression(expr, Map.of());
+	}
+
+	/**
+	 * The switch points which are invalidated when the global environment
+	 * redefines a builtin, `true` or `false`, which the expression last
+	 * optimized was folded against: its optimized form holds until then.
+	 */
+	public SwitchPoint[] assumptions() {
+		return assumptions.toArray(new SwitchPoint[0]);
+	}
+
+	/**
+	 * Notes the global function which the top-level expression, once
+	 * evaluated, has defined: `(def name ...)` or `(var name (lambda ...))`.
+	 * The expressions optimized next inline its calls, guarded by the value
+	 * which the name holds now.
+	 */
+	public void defined(Exp expr) {
+		if (!(expr instanceof ListExp)) return;
+		var list = (ListExp) expr;
+		Exp parameters;
+		Exp body;
+		switch (SpecialForm.of(list)) {
+		case DEF:
+			parameters = list.get(2);
+			body = list.get(3);
+			break;
+		case VAR: {
+			if (!(list.get(2) instanceof ListExp)) return;
+			var lambda = (ListExp) list.get(2);
+			if (SpecialForm.of(lambda) != SpecialForm.LAMBDA) return;
+			parameters = lambda.get(1);
+			body = lambda.get(2);
+			break;
+		}
+		default:
+			return;
+		}
+		var name = ((SymbolExp) list.get(1)).symbol;
+		definitions.put(name, new Definition((ListExp) parameters, body, lookup(name)));
+	}
+
+	/**
+	 * The expression optimized, with the variables in `constants` replaced
+	 * by their value. A variable bound to a lambda is left as it is: its
+	 * function is only inlined into calls.
+	 */
+	private Exp expression(Exp expr, Map<Symbol, Exp> constants) {
+		if (expr instanceof SymbolExp) {
+			var value = constants.get(((SymbolExp) expr).symbol);
+			return value == null || value instanceof ListExp ? expr : value;
+		}
+		if (expr instanceof ListExp) return list((ListExp) expr, constants);
+		return expr;
+	}
+
+	private Exp list(ListExp expr, Map<Symbol, Exp> constants) {
+		switch (SpecialForm.of(expr)) {
+		case GREATER:
+		case LESS: {
+			var list = rebuild(expr, 1, constants);
+			if (list.size() != 3 || !(list.get(1) instanceof NumberExp) || !(list.get(2) instanceof NumberExp)) return list;
+			var a = ((NumberExp) list.get(1)).value;
+			var b = ((NumberExp) list.get(2)).value;
+			var value = SpecialForm.of(list) == SpecialForm.LESS ? Numbers.less(a, b) : Numbers.greater(a, b);
+			var symbol = value ? Symbol.TRUE : Symbol.FALSE;
+			return truth(symbol) != null ? new SymbolExp(symbol, expr.loc) : list;
+		}
+
+		case VAR:
+		case SET:
+			// (var name value), (set name value), (set (prop object name) value)
+			if (expr.get(1) instanceof ListExp) {
+				var target = list((ListExp) expr.get(1), constants);
+				return new ListExp(new Exp[] { expr.get(0), target, expression(expr.get(2), constants) }, expr.loc);
+			}
+			return rebuild(expr, 2, constants);
+
+		case PROP:
+			// (prop object name): the name is not a variable.
+			return new ListExp(new Exp[] { expr.get(0), expression(expr.get(1), constants), expr.get(2) }, expr.loc);
+
+		case BEGIN:
+			return block(expr, constants);
+
+		case IF: {
+			var list = rebuild(expr, 1, constants);
+			var condition = list.get(1) instanceof SymbolExp ? truth(((SymbolExp) list.get(1)).symbol) : null;
+			if (condition == null) return list;
+			if (condition) return list.get(2);
+			// Without an else branch, left for the engine to handle.
+			return list.size() > 3 ? list.get(3) : list;
+		}
+
+		case WHILE:
+			return rebuild(expr, 1, constants);
+
+		case DEF: {
+			// (def name (parameters) body)
+			var body = function(expr.get(2), expr.get(3), constants);
+			return new ListExp(new Exp[] { expr.get(0), expr.get(1), expr.get(2), body }, expr.loc);
+		}
+
+		case LAMBDA: {
+			// (lambda (parameters) body)
+			var body = function(expr.get(1), expr.get(2), constants);
+			return new ListExp(new Exp[] { expr.get(0), expr.get(1), body }, expr.loc);
+		}
+
+		case CLASS: {
+			// (class name parent (begin members...)): the members stay
+			// variables, as instances can reach them.
+			var parent = expression(expr.get(2), constants);
+			var body = (ListExp) expr.get(3);
+			var inner = without(constants, declarations(body));
+			var members = rebuild(body, 1, inner);
+			return new ListExp(new Exp[] { expr.get(0), expr.get(1), parent, members }, expr.loc);
+		}
+
+		case NEW:
+			return rebuild(expr, 1, constants);
+
+		default: {
+			var list = rebuild(expr, 0, constants);
+			var inlined = inline(list, constants);
+			if (inlined != null) return inlined;
+			if (list.size() < 2 || !(list.get(0) instanceof SymbolExp)) return list;
+			var operands = new Object[list.size() - 1];
+			for (int i = 0; i < operands.length; i++) {
+				if (!(list.get(i + 1) instanceof NumberExp)) return list;
+				operands[i] = ((NumberExp) list.get(i + 1)).value;
+			}
+			var value = fold(((SymbolExp) list.get(0)).symbol, operands);
+			return value != null ? new NumberExp(value, expr.loc) : list;
+		}
+		}
+	}
+
+	/**
+	 * The `begin` block optimized. Its own declarations hide the outer
+	 * constants of the same name in the whole block; a variable bound to a
+	 * constant, and written nowhere else in the block, is replaced in the
+	 * rest of the block, and so is a function which the block defines, and
+	 * never writes again: its calls are inlined.
+	 */
+	private Exp block(ListExp expr, Map<Symbol, Exp> constants) {
+		var inner = without(constants, declarations(expr));
+		var writes = new HashMap<Symbol, Integer>();
+		writes(expr, writes);
+
+		var elements = new Exp[expr.size()];
+		elements[0] = expr.get(0);
+		for (int i = 1; i < expr.size(); i++) {
+			var element = expression(expr.get(i), inner);
+			elements[i] = element;
+			if (!(element instanceof ListExp)) continue;
+
+			var definition = (ListExp) element;
+			Exp value;
+			switch (SpecialForm.of(definition)) {
+			case VAR:
+				value = definition.get(2);
+				break;
+			case DEF:
+				// As (var name (lambda parameters body)).
+				value = new ListExp(new Exp[] { new SymbolExp(Symbol.LAMBDA, definition.loc),
+					definition.get(2), definition.get(3) }, definition.loc);
+				break;
+			default:
+				continue;
+			}
+			var name = ((SymbolExp) definition.get(1)).symbol;
+			if (writes.get(name) == 1 && (value instanceof NumberExp || value instanceof StringExp || lambda(value))) {
+				inner.put(name, value);
+			}
+		}
+		return new ListExp(elements, expr.loc);
+	}
+
+	private Exp function(Exp parameters, Exp body, Map<Symbol, Exp> constants) {
+		var names = new HashSet<Symbol>();
+		var list = (ListExp) parameters;
+		for (int i = 0; i < list.size(); i++) names.add(((SymbolExp) list.get(i)).symbol);
+		return expression(body, without(constants, names));
+	}
+
+	/**
+	 * The list with its elements from `from` on optimized.
+	 */
+	private ListExp rebuild(ListExp expr, int from, Map<Symbol, Exp> constants) {
+		var elements = new Exp[expr.size()];
+		for (int i = 0; i < elements.length; i++) {
+			elements[i] = i < from ? expr.get(i) : expression(expr.get(i), constants);
+		}
+		return new ListExp(elements, expr.loc);
+	}
+
+	// -------------------------------------------------------------------------------
+	// inlining
+
+	/**
+	 * The call with the body of its function in its place, or null if the
+	 * function is not a known, small one. The function is either
+	 *
+	 * - bound to a lambda by an enclosing block, which never writes the name
+	 *   again: the call always runs that lambda;
+	 * - or a global function of an earlier expression (see `defined`), still
+	 *   bound to the same value, which the expression does not bind: the
+	 *   call is replaced by an `InlinedCallExp`, which checks the value of
+	 *   the name first.
+	 *
+	 * The body must be small, and only read variables, call arithmetic
+	 * builtins, compare with `<` and `>` and branch with `if`; so it calls
+	 * no function which could be recursive, and binds no name which an
+	 * argument could be captured by. The variables it reads, other than its
+	 * parameters, must be globals wherever it is inlined: names which the
+	 * expression binds nowhere.
+	 */
+	private Exp inline(ListExp call, Map<Symbol, Exp> constants) {
+		if (call.size() == 0 || !(call.get(0) instanceof SymbolExp)) return null;
+		var name = ((SymbolExp) call.get(0)).symbol;
+		var local = constants.get(name);
+		Definition definition;
+		if (local instanceof ListExp) {
+			var lambda = (ListExp) local;
+			definition = new Definition((ListExp) lambda.get(1), lambda.get(2), null);
+		}
+		else if (local == null && !bound.contains(name) && definitions.containsKey(name)) {
+			definition = definitions.get(name);
+			if (lookup(name) != definition.value) return null;
+		}
+		else return null;
+
+		var body = substitute(definition.parameters, definition.body, call);
+		if (body == null) return null;
+		body = expression(body, constants);
+		if (local != null) return body;
+		return new InlinedCallExp((SymbolExp) call.get(0), definition.value, body, call);
+	}
+
+	/**
+	 * The body with the arguments of the call in place of the parameters, or
+	 * null if the body cannot be inlined. An argument other than a constant
+	 * must be used by the body: a variable, as many times as the body likes;
+	 * an expression as simple as the body, exactly once.
+	 */
+	private Exp substitute(ListExp parameters, Exp body, ListExp call) {
+		if (parameters.size() != call.size() - 1) return null;
+		int size = size(body);
+		if (size < 0 || size > INLINE_SIZE) return null;
+
+		var arguments = new HashMap<Symbol, Exp>();
+		for (int i = 0; i < parameters.size(); i++) {
+			var parameter = ((SymbolExp) parameters.get(i)).symbol;
+			var argument = call.get(i + 1);
+			int uses = uses(body, parameter);
+			if (argument instanceof SymbolExp) {
+				if (uses == 0) return null;
+			}
+			else if (!(argument instanceof NumberExp) && !(argument instanceof StringExp)) {
+				if (uses != 1 || size(argument) < 0) return null;
+			}
+			arguments.put(parameter, argument);
+		}
+		if (arguments.size() != parameters.size() || !reads(body, arguments.keySet())) return null;
+		return replace(body, arguments);
+	}
+
+	/**
+	 * The number of nodes of the expression, or -1 if it does anything but
+	 * read variables, call the arithmetic builtins, compare with `<` and
+	 * `>`, and branch with `if`.
+	 */
+	private int size(Exp expr) {
+		if (expr instanceof NumberExp || expr instanceof StringExp || expr instanceof SymbolExp) return 1;
+		if (!(expr instanceof ListExp)) return -1;
+		var list = (ListExp) expr;
+		switch (SpecialForm.of(list)) {
+		case GREATER:
+		case LESS:
+			if (list.size() != 3) return -1;
+			break;
+		case IF:
+			if (list.size() < 3 || list.size() > 4) return -1;
+			break;
+		case CALL:
+			if (list.size() == 0 || !(list.get(0) instanceof SymbolExp)) return -1;
+			if (arithmetic(((SymbolExp) list.get(0)).symbol) == null) return -1;
+			break;
+		default:
+			return -1;
+		}
+		int size = 1;
+		for (int i = 1; i < list.size(); i++) {
+			int element = size(list.get(i));
+			if (element < 0) return -1;
+			size += element;
+		}
+		return size;
+	}
+
+	/**
+	 * How many times the expression, as accepted by `size`, reads the
+	 * variable.
+	 */
+	private static int uses(Exp expr, Symbol name) {
+		if (expr instanceof SymbolExp) return ((SymbolExp) expr).symbol == name ? 1 : 0;
+		if (!(expr instanceof ListExp)) return 0;
+		var list = (ListExp) expr;
+		int uses = 0;
+		for (int i = 1; i < list.size(); i++) uses += uses(list.get(i), name);
+		return uses;
+	}
+
+	/**
+	 * Whether the expression, as accepted by `size`, only reads the
+	 * parameters and names which the optimized expression binds nowhere.
+	 */
+	private boolean reads(Exp expr, Set<Symbol> parameters) {
+		if (expr instanceof SymbolExp) {
+			var name = ((SymbolExp) expr).symbol;
+			return parameters.contains(name) || !bound.contains(name);
+		}
+		if (!(expr instanceof ListExp)) return true;
+		var list = (ListExp) expr;
+		for (int i = 1; i < list.size(); i++) {
+			if (!reads(list.get(i), parameters)) return false;
+		}
+		return true;
+	}
+
+	private static Exp replace(Exp expr, Map<Symbol, Exp> arguments) {
+		if (expr instanceof SymbolExp) return arguments.getOrDefault(((SymbolExp) expr).symbol, expr);
+		if (!(expr instanceof ListExp)) return expr;
+		var list = (ListExp) expr;
+		var elements = new Exp[list.size()];
+		elements[0] = list.get(0);
+		for (int i = 1; i < elements.length; i++) elements[i] = replace(list.get(i), arguments);
+		return new ListExp(elements, list.loc);
+	}
+
+	private static boolean lambda(Exp expr) {
+		return expr instanceof ListExp && SpecialForm.of((ListExp) expr) == SpecialForm.LAMBDA;
+	}
+
+	// -------------------------------------------------------------------------------
+	// builtins
+
+	/**
+	 * The result of the arithmetic builtin on constants, or null if the
+	 * name is not bound to the builtin.
+	 */
+	private Number fold(Symbol name, Object[] operands) {
+		var function = arithmetic(name);
+		if (function == null) return null;
+		return (Number) ((LispyNativeFunction) function).callN(null, operands);
+	}
+
+	/**
+	 * The arithmetic builtin which the name is bound to, or null.
+	 */
+	private Object arithmetic(Symbol name) {
+		if (bound.contains(name)) return null;
+		var function = lookup(name);
+		if (function instanceof AddNativeFunction || function instanceof SubtractNativeFunction
+			|| function instanceof MultiplyNativeFunction || function instanceof DivideNativeFunction) {
+			assume(name);
+			return function;
+		}
+		return null;
+	}
+
+	/**
+	 * The value of `true` or `false`, or null if the name is not one of
+	 * them, or does not hold its usual value.
+	 */
+	private Boolean truth(Symbol name) {
+		if (name != Symbol.TRUE && name != Symbol.FALSE) return null;
+		if (bound.contains(name)) return null;
+		var value = lookup(name);
+		if (value != Boolean.valueOf(name == Symbol.TRUE)) return null;
+		assume(name);
+		return (Boolean) value;
+	}
+
+	/**
+	 * Notes that the expression relies on the global binding of the name.
+	 */
+	private void assume(Symbol name) {
+		var watch = global.find(name).watch(name);
+		if (!assumptions.contains(watch)) assumptions.add(watch);
+	}
+
+	private Object lookup(Symbol name) {
+		try {
+			return global.lookup(name);
+		} catch (IllegalAccessException e) {
+			return null;
+		}
+	}
+
+	// -------------------------------------------------------------------------------
+	// bindings
+
+	/**
+	 * Collects the names bound anywhere in the expression into `bound`.
+	 */
+	private void bindings(Exp expr) {
+		if (!(expr instanceof ListExp)) return;
+		var list = (ListExp) expr;
+		var form = SpecialForm.of(list);
+		switch (form) {
+		case VAR:
+		case SET:
+		case DEF:
+		case CLASS:
+			if (list.get(1) instanceof SymbolExp) bound.add(((SymbolExp) list.get(1)).symbol);
+			break;
+		default:
+			break;
+		}
+		var parameters = form == SpecialForm.DEF ? list.get(2) : form == SpecialForm.LAMBDA ? list.get(1) : null;
+		if (parameters instanceof ListExp) {
+			var names = (ListExp) parameters;
+			for (int i = 0; i < names.size(); i++) bound.add(((SymbolExp) names.get(i)).symbol);
+		}
+		for (int i = 0; i < list.size(); i++) {
+			if (list.get(i) != parameters) bindings(list.get(i));
+		}
+	}
+
+	/**
+	 * Counts the `var`, `set`, `def` and `class` forms of each name in the
+	 * expression, at any depth.
+	 */
+	private static void writes(Exp expr, Map<Symbol, Integer> writes) {
+		if (!(expr instanceof ListExp)) return;
+		var list = (ListExp) expr;
+		switch (SpecialForm.of(list)) {
+		case VAR:
+		case SET:
+		case DEF:
+		case CLASS:
+			if (list.get(1) instanceof SymbolExp) writes.merge(((SymbolExp) list.get(1)).symbol, 1, Integer::sum);
+			break;
+		default:
+			break;
+		}
+		for (int i = 0; i < list.size(); i++) writes(list.get(i), writes);
+	}
+
+	/**
+	 * The names which the elements of the block declare.
+	 */
+	private static Set<Symbol> declarations(ListExp block) {
+		var names = new HashSet<Symbol>();
+		for (int i = 1; i < block.size(); i++) {
+			if (!(block.get(i) instanceof ListExp)) continue;
+			var element = (ListExp) block.get(i);
+			switch (SpecialForm.of(element)) {
+			case VAR:
+			case DEF:
+			case CLASS:
+				names.add(((SymbolExp) element.get(1)).symbol);
+				break;
+			default:
+				break;
+			}
+		}
+		return names;
+	}
+
+	private static Map<Symbol, Exp> without(Map<Symbol, Exp> constants, Set<Symbol> names) {
+		var map = new HashMap<>(constants);
+		map.keySet().removeAll(names);
+		return map;
+	}
+
+}
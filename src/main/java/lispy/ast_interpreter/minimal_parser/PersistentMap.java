@@ -0,0 +1,307 @@
+package lispy.ast_interpreter.minimal_parser;
+
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable hash map, the value of `(hash-map ...)`: a hash array
+ * mapped trie. Each level of the trie takes 5 bits of the hash of a key,
+ * and a node holds a bitmap of the 32 values of these bits it has an
+ * entry for, and its entries packed in that order: a key with its value,
+ * or a node one level down. Keys with the same hash share a collision
+ * node. An update copies only the path from the root to the entry it
+ * changes, at most log32(n) nodes, and shares the rest of the trie with
+ * the map it came from.
+ *
+ * Keys compare with `equals`, so `1` and `1.0` are different keys. The
+ * `none` key is kept apart from the trie, which marks a nested node with
+ * a null key. A map is never changed once built, so it can be shared
+ * freely, across threads too.
+ */
+public final class PersistentMap {
+
+	private static final int BITS = 5;
+	private static final int MASK = (1 << BITS) - 1;
+
+	public static final PersistentMap EMPTY = new PersistentMap(0, null, false, null);
+
+	private final int size;
+	private final Node root;
+	private final boolean hasNone;
+	private final Object noneValue;
+
+	private PersistentMap(int size, Node root, boolean hasNone, Object noneValue) {
+		this.size = size;
+		this.root = root;
+		this.hasNone = hasNone;
+		this.noneValue = noneValue;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public Object get(Object key) {
+		return get(key, null);
+	}
+
+	/**
+	 * The value of the key, or `missing` if the map has no such key.
+	 */
+	public Object get(Object key, Object missing) {
+		if (key == null) return hasNone ? noneValue : missing;
+		return root != null ? root.get(0, key.hashCode(), key, missing) : missing;
+	}
+
+	public boolean containsKey(Object key) {
+		return get(key, Node.class) != Node.class;
+	}
+
+	/**
+	 * This map with the key bound to the value.
+	 */
+	public PersistentMap put(Object key, Object value) {
+		if (key == null) {
+			if (hasNone && noneValue == value) return this;
+			return new PersistentMap(hasNone ? size : size + 1, root, true, value);
+		}
+		var added = new boolean[1];
+		var newRoot = (root != null ? root : BitmapNode.EMPTY).put(0, key.hashCode(), key, value, added);
+		if (newRoot == root) return this;
+		return new PersistentMap(added[0] ? size + 1 : size, newRoot, hasNone, noneValue);
+	}
+
+	/**
+	 * This map without the key.
+	 */
+	public PersistentMap remove(Object key) {
+		if (key == null) return hasNone ? new PersistentMap(size - 1, root, false, null) : this;
+		if (root == null) return this;
+		var newRoot = root.remove(0, key.hashCode(), key);
+		if (newRoot == root) return this;
+		return new PersistentMap(size - 1, newRoot, hasNone, noneValue);
+	}
+
+	public void forEach(BiConsumer<Object, Object> action) {
+		if (hasNone) action.accept(null, noneValue);
+		if (root != null) root.forEach(action);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) return true;
+		if (!(other instanceof PersistentMap) || ((PersistentMap) other).size != size) return false;
+		var map = (PersistentMap) other;
+		var equal = new boolean[] { true };
+		forEach((key, value) -> {
+			if (equal[0] && !Objects.equals(value, map.get(key, Node.class))) equal[0] = false;
+		});
+		return equal[0];
+	}
+
+	@Override
+	public int hashCode() {
+		var hash = new int[1];
+		forEach((key, value) -> hash[0] += Objects.hashCode(key) ^ Objects.hashCode(value));
+		return hash[0];
+	}
+
+	@Override
+	public String toString() {
+		var builder = new StringBuilder("{");
+		forEach((key, value) -> {
+			if (builder.length() > 1) builder.append(", ");
+			builder.append(key).append(' ').append(value);
+		});
+		return builder.append('}').toString();
+	}
+
+	/**
+	 * A node of the trie, at the level where `shift` bits of the hash were
+	 * taken by the levels above. The nodes return themselves when an update
+	 * changes nothing, and `remove` returns null for a node left empty.
+	 */
+	private interface Node {
+
+		Object get(int shift, int hash, Object key, Object missing);
+
+		Node put(int shift, int hash, Object key, Object value, boolean[] added);
+
+		Node remove(int shift, int hash, Object key);
+
+		void forEach(BiConsumer<Object, Object> action);
+
+	}
+
+	private static int bit(int hash, int shift) {
+		return 1 << ((hash >>> shift) & MASK);
+	}
+
+	private static final class BitmapNode implements Node {
+
+		static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+		final int bitmap;
+		/** Key and value pairs; a null key, with the nested node. */
+		final Object[] array;
+
+		BitmapNode(int bitmap, Object[] array) {
+			this.bitmap = bitmap;
+			this.array = array;
+		}
+
+		private int index(int bit) {
+			return Integer.bitCount(bitmap & (bit - 1));
+		}
+
+		@Override
+		public Object get(int shift, int hash, Object key, Object missing) {
+			int bit = bit(hash, shift);
+			if ((bitmap & bit) == 0) return missing;
+			int i = 2 * index(bit);
+			var k = array[i];
+			if (k == null) return ((Node) array[i + 1]).get(shift + BITS, hash, key, missing);
+			return key.equals(k) ? array[i + 1] : missing;
+		}
+
+		@Override
+		public Node put(int shift, int hash, Object key, Object value, boolean[] added) {
+			int bit = bit(hash, shift);
+			int i = 2 * index(bit);
+			if ((bitmap & bit) == 0) {
+				var copy = new Object[array.length + 2];
+				System.arraycopy(array, 0, copy, 0, i);
+				copy[i] = key;
+				copy[i + 1] = value;
+				System.arraycopy(array, i, copy, i + 2, array.length - i);
+				added[0] = true;
+				return new BitmapNode(bitmap | bit, copy);
+			}
+
+			var k = array[i];
+			var v = array[i + 1];
+			if (k == null) {
+				var node = ((Node) v).put(shift + BITS, hash, key, value, added);
+				return node == v ? this : with(i + 1, node);
+			}
+			if (key.equals(k)) return v == value ? this : with(i + 1, value);
+
+			// Two keys for the entry: they move one level down.
+			added[0] = true;
+			var copy = array.clone();
+			copy[i] = null;
+			copy[i + 1] = node(shift + BITS, k, v, hash, key, value);
+			return new BitmapNode(bitmap, copy);
+		}
+
+		@Override
+		public Node remove(int shift, int hash, Object key) {
+			int bit = bit(hash, shift);
+			if ((bitmap & bit) == 0) return this;
+			int i = 2 * index(bit);
+			var k = array[i];
+			var v = array[i + 1];
+			if (k == null) {
+				var node = ((Node) v).remove(shift + BITS, hash, key);
+				if (node == v) return this;
+				if (node != null) return with(i + 1, node);
+			} else if (!key.equals(k)) {
+				return this;
+			}
+
+			if (bitmap == bit) return null;
+			var copy = new Object[array.length - 2];
+			System.arraycopy(array, 0, copy, 0, i);
+			System.arraycopy(array, i + 2, copy, i, copy.length - i);
+			return new BitmapNode(bitmap ^ bit, copy);
+		}
+
+		@Override
+		public void forEach(BiConsumer<Object, Object> action) {
+			for (int i = 0; i < array.length; i += 2) {
+				if (array[i] == null) ((Node) array[i + 1]).forEach(action);
+				else action.accept(array[i], array[i + 1]);
+			}
+		}
+
+		private BitmapNode with(int i, Object element) {
+			var copy = array.clone();
+			copy[i] = element;
+			return new BitmapNode(bitmap, copy);
+		}
+
+		/** The node of two entries with different keys. */
+		private static Node node(int shift, Object k1, Object v1, int h2, Object k2, Object v2) {
+			int h1 = k1.hashCode();
+			if (h1 == h2) return new CollisionNode(h1, new Object[] { k1, v1, k2, v2 });
+			var added = new boolean[1];
+			return EMPTY.put(shift, h1, k1, v1, added).put(shift, h2, k2, v2, added);
+		}
+
+	}
+
+	/** The entries of keys which have the same hash. */
+	private static final class CollisionNode implements Node {
+
+		final int hash;
+		/** Key and value pairs. */
+		final Object[] array;
+
+		CollisionNode(int hash, Object[] array) {
+			this.hash = hash;
+			this.array = array;
+		}
+
+		private int index(Object key) {
+			for (int i = 0; i < array.length; i += 2) {
+				if (key.equals(array[i])) return i;
+			}
+			return -1;
+		}
+
+		@Override
+		public Object get(int shift, int hash, Object key, Object missing) {
+			int i = index(key);
+			return i >= 0 ? array[i + 1] : missing;
+		}
+
+		@Override
+		public Node put(int shift, int hash, Object key, Object value, boolean[] added) {
+			if (hash != this.hash) {
+				// Another hash: this node moves one level down.
+				return new BitmapNode(bit(this.hash, shift), new Object[] { null, this }).put(shift, hash, key, value, added);
+			}
+			int i = index(key);
+			if (i >= 0) {
+				if (array[i + 1] == value) return this;
+				var copy = array.clone();
+				copy[i + 1] = value;
+				return new CollisionNode(hash, copy);
+			}
+			var copy = new Object[array.length + 2];
+			System.arraycopy(array, 0, copy, 0, array.length);
+			copy[array.length] = key;
+			copy[array.length + 1] = value;
+			added[0] = true;
+			return new CollisionNode(hash, copy);
+		}
+
+		@Override
+		public Node remove(int shift, int hash, Object key) {
+			int i = index(key);
+			if (i < 0) return this;
+			if (array.length == 2) return null;
+			var copy = new Object[array.length - 2];
+			System.arraycopy(array, 0, copy, 0, i);
+			System.arraycopy(array, i + 2, copy, i, copy.length - i);
+			return new CollisionNode(hash, copy);
+		}
+
+		@Override
+		public void forEach(BiConsumer<Object, Object> action) {
+			for (int i = 0; i < array.length; i += 2) action.accept(array[i], array[i + 1]);
+		}
+
+	}
+
+}
@@ -0,0 +1,245 @@
+package lispy.ast_interpreter.minimal_parser;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * An immutable vector, the value of `(vector ...)`: a tree of 32-way nodes
+ * holding the elements in its leaves, plus a tail of the last elements,
+ * up to 32. An update copies only the path from the root to the leaf it
+ * changes, at most log32(n) nodes of 32 references, and shares the rest
+ * of the tree with the vector it came from. Adding or removing the last
+ * element usually only copies the tail.
+ *
+ * A vector is never changed once built, so it can be shared freely, across
+ * threads too.
+ */
+public final class PersistentVector implements Iterable<Object> {
+
+	private static final int BITS = 5;
+	private static final int WIDTH = 1 << BITS;
+	private static final int MASK = WIDTH - 1;
+	private static final Object[] EMPTY_NODE = new Object[WIDTH];
+
+	public static final PersistentVector EMPTY = new PersistentVector(0, BITS, EMPTY_NODE, new Object[0]);
+
+	private final int size;
+	/** The bits of an index which the root consumes, shifted by this. */
+	private final int shift;
+	private final Object[] root;
+	private final Object[] tail;
+
+	private PersistentVector(int size, int shift, Object[] root, Object[] tail) {
+		this.size = size;
+		this.shift = shift;
+		this.root = root;
+		this.tail = tail;
+	}
+
+	public static PersistentVector of(Object... elements) {
+		var vector = EMPTY;
+		for (var element : elements) vector = vector.add(element);
+		return vector;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public Object get(int index) {
+		return leaf(check(index))[index & MASK];
+	}
+
+	/**
+	 * This vector with the element at the index replaced; an index of
+	 * `size()` adds the element.
+	 */
+	public PersistentVector set(int index, Object value) {
+		if (index == size) return add(value);
+		check(index);
+		if (index >= tailOffset()) {
+			var newTail = tail.clone();
+			newTail[index & MASK] = value;
+			return new PersistentVector(size, shift, root, newTail);
+		}
+		return new PersistentVector(size, shift, set(shift, root, index, value), tail);
+	}
+
+	/**
+	 * This vector with the element added at the end.
+	 */
+	public PersistentVector add(Object value) {
+		if (size - tailOffset() < WIDTH) {
+			var newTail = new Object[tail.length + 1];
+			System.arraycopy(tail, 0, newTail, 0, tail.length);
+			newTail[tail.length] = value;
+			return new PersistentVector(size + 1, shift, root, newTail);
+		}
+
+		// The full tail goes into the tree, which grows a level when full.
+		Object[] newRoot;
+		int newShift = shift;
+		if ((size >>> BITS) > (1 << shift)) {
+			newRoot = new Object[WIDTH];
+			newRoot[0] = root;
+			newRoot[1] = path(shift, tail);
+			newShift += BITS;
+		} else {
+			newRoot = pushTail(shift, root);
+		}
+		return new PersistentVector(size + 1, newShift, newRoot, new Object[] { value });
+	}
+
+	/**
+	 * This vector without its last element.
+	 */
+	public PersistentVector pop() {
+		if (size == 0) throw new IllegalStateException("pop of an empty vector");
+		if (size == 1) return EMPTY;
+		if (size - tailOffset() > 1) {
+			var newTail = new Object[tail.length - 1];
+			System.arraycopy(tail, 0, newTail, 0, newTail.length);
+			return new PersistentVector(size - 1, shift, root, newTail);
+		}
+
+		// The last leaf of the tree becomes the tail.
+		var newTail = leaf(size - 2);
+		var newRoot = popTail(shift, root);
+		int newShift = shift;
+		if (newRoot == null) newRoot = EMPTY_NODE;
+		if (shift > BITS && newRoot[1] == null) {
+			newRoot = (Object[]) newRoot[0];
+			newShift -= BITS;
+		}
+		return new PersistentVector(size - 1, newShift, newRoot, newTail);
+	}
+
+	/**
+	 * The index which a Lispy integer stands for.
+	 */
+	public static int index(Object key) {
+		if (key instanceof Long || key instanceof Integer) {
+			long index = ((Number) key).longValue();
+			if (index == (int) index) return (int) index;
+		}
+		throw new IllegalArgumentException("not an index of a vector: " + key);
+	}
+
+	private int check(int index) {
+		if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index + " out of a vector of " + size);
+		return index;
+	}
+
+	/** The index of the first element of the tail. */
+	private int tailOffset() {
+		return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+	}
+
+	/** The leaf, or the tail, holding the element at the index. */
+	private Object[] leaf(int index) {
+		if (index >= tailOffset()) return tail;
+		var node = root;
+		for (int level = shift; level > 0; level -= BITS) {
+			node = (Object[]) node[(index >>> level) & MASK];
+		}
+		return node;
+	}
+
+	private static Object[] set(int level, Object[] node, int index, Object value) {
+		var copy = node.clone();
+		if (level == 0) {
+			copy[index & MASK] = value;
+		} else {
+			int child = (index >>> level) & MASK;
+			copy[child] = set(level - BITS, (Object[]) node[child], index, value);
+		}
+		return copy;
+	}
+
+	private Object[] pushTail(int level, Object[] node) {
+		int child = ((size - 1) >>> level) & MASK;
+		var copy = node.clone();
+		if (level == BITS) {
+			copy[child] = tail;
+		} else {
+			var below = (Object[]) node[child];
+			copy[child] = below != null ? pushTail(level - BITS, below) : path(level - BITS, tail);
+		}
+		return copy;
+	}
+
+	/** The node removed the last leaf from, or null if it had no other. */
+	private Object[] popTail(int level, Object[] node) {
+		int child = ((size - 2) >>> level) & MASK;
+		if (level > BITS) {
+			var below = popTail(level - BITS, (Object[]) node[child]);
+			if (below == null && child == 0) return null;
+			var copy = node.clone();
+			copy[child] = below;
+			return copy;
+		}
+		if (child == 0) return null;
+		var copy = node.clone();
+		copy[child] = null;
+		return copy;
+	}
+
+	/** The leaf under as many single-child nodes as the level needs. */
+	private static Object[] path(int level, Object[] leaf) {
+		if (level == 0) return leaf;
+		var node = new Object[WIDTH];
+		node[0] = path(level - BITS, leaf);
+		return node;
+	}
+
+	@Override
+	public Iterator<Object> iterator() {
+		return new Iterator<>() {
+			int index;
+			Object[] leaf;
+
+			@Override
+			public boolean hasNext() {
+				return index < size;
+			}
+
+			@Override
+			public Object next() {
+				if (index >= size) throw new NoSuchElementException();
+				if ((index & MASK) == 0 || leaf == null) leaf = leaf(index);
+				return leaf[index++ & MASK];
+			}
+		};
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) return true;
+		if (!(other instanceof PersistentVector) || ((PersistentVector) other).size != size) return false;
+		var elements = ((PersistentVector) other).iterator();
+		for (var element : this) {
+			if (!Objects.equals(element, elements.next())) return false;
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = 1;
+		for (var element : this) hash = 31 * hash + Objects.hashCode(element);
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		var builder = new StringBuilder("[");
+		var separator = "";
+		for (var element : this) {
+			builder.append(separator).append(element);
+			separator = " ";
+		}
+		return builder.append(']').toString();
+	}
+
+}
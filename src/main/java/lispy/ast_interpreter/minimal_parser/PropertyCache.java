@@ -0,0 +1,121 @@
+package lispy.ast_interpreter.minimal_parser;
+
+/**
+ * The inline cache of a `prop` site: the shapes of the objects seen there
+ * (see `Shape`), each with the slot of the property, and for a write which
+ * added the property, the shape the object moved to. An object of a cached
+ * shape is read or written without looking the name up. The cache holds up
+ * to `POLYMORPHIC` shapes; beyond, the site looks names up every time.
+ *
+ * A property which the object does not have is a member of its class,
+ * typically a method: the site caches the member for the shape, with the
+ * method table of the class it was found in (see `LispyClass`). It holds
+ * while the class keeps that table, that is until the class or a parent
+ * class defines a member. The members of a class read as a property of
+ * the class itself are not cached.
+ *
+ * `get` and `set` without a cache are for the tree-walker, which has no
+ * place to keep one per site.
+ */
+public final class PropertyCache {
+
+	public static final int POLYMORPHIC = 4;
+
+	public final Symbol name;
+	private final Shape[] shapes = new Shape[POLYMORPHIC];
+	private final Shape[] next = new Shape[POLYMORPHIC];
+	/** The slot of the property, or -1 for a member of the class. */
+	private final int[] slots = new int[POLYMORPHIC];
+	private final Object[] members = new Object[POLYMORPHIC];
+	/** The method table each member was found in. */
+	private final Object[] tables = new Object[POLYMORPHIC];
+	private int size;
+
+	public PropertyCache(Symbol name) {
+		this.name = name;
+	}
+
+	public Object get(Object receiver) {
+		if (!(receiver instanceof LispyObject)) return get(receiver, name);
+		var object = (LispyObject) receiver;
+		var shape = object.shape;
+		for (int i = 0; i < size; i++) {
+			if (shapes[i] == shape) {
+				int slot = slots[i];
+				if (slot >= 0) return object.slots[slot];
+				if (tables[i] == shape.type.members) return members[i];
+				// The class was redefined since.
+				members[i] = object.get(name);
+				tables[i] = shape.type.members;
+				return members[i];
+			}
+		}
+		int slot = shape.slot(name);
+		if (slot < 0) {
+			var member = object.get(name);
+			if (cache(shape, shape, -1)) {
+				members[size - 1] = member;
+				tables[size - 1] = shape.type.members;
+			}
+			return member;
+		}
+		cache(shape, shape, slot);
+		return object.slots[slot];
+	}
+
+	public Object set(Object receiver, Object value) {
+		if (!(receiver instanceof LispyObject)) return set(receiver, name, value);
+		var object = (LispyObject) receiver;
+		var shape = object.shape;
+		for (int i = 0; i < size; i++) {
+			if (shapes[i] == shape) {
+				if (next[i] != shape) object.moveTo(next[i]);
+				object.slots[slots[i]] = value;
+				return value;
+			}
+		}
+		int slot = shape.slot(name);
+		if (slot < 0) slot = object.add(name);
+		cache(shape, object.shape, slot);
+		object.slots[slot] = value;
+		return value;
+	}
+
+	private boolean cache(Shape shape, Shape after, int slot) {
+		if (size == POLYMORPHIC) return false;
+		shapes[size] = shape;
+		next[size] = after;
+		slots[size] = slot;
+		size++;
+		return true;
+	}
+
+	/**
+	 * `(prop receiver name)`: a property of an object, or a member of a
+	 * class.
+	 */
+	public static Object get(Object receiver, Symbol name) {
+		if (receiver instanceof LispyObject) return ((LispyObject) receiver).get(name);
+		return type(receiver, name).member(name);
+	}
+
+	/**
+	 * `(set (prop receiver name) value)`: sets a property of an object, or
+	 * defines a member of a class.
+	 */
+	public static Object set(Object receiver, Symbol name, Object value) {
+		if (receiver instanceof LispyObject) return ((LispyObject) receiver).set(name, value);
+		return type(receiver, name).define(name, value);
+	}
+
+	private static LispyClass type(Object receiver, Symbol name) {
+		if (receiver instanceof LispyClass) return (LispyClass) receiver;
+		throw new Error(name + ": property of a value which is not an object: " + receiver);
+	}
+
+	@Override
+	public String toString() {
+		return "prop " + name;
+	}
+
+}
@@ -0,0 +1,337 @@
+package lispy.ast_interpreter.minimal_parser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lispy.ast_interpreter.minimal_parser.ast.*;
+
+/**
+ * Compile-time view of a frame, used by the compilers to resolve variables
+ * to lexical addresses.
+ *
+ * Functions and `begin` blocks are scopes, whose variables get a slot in
+ * the scope's frame: an `Object[]` whose slot 0 is the enclosing frame.
+ * Names which are not bound lexically are globals. The members of a class
+ * body live in the class environment instead (slot 1 of the class body
+ * frame), so a name seen from inside a class body is looked up there
+ * first, at run time.
+ *
+ * A reference sees the variables its scope defined before it, as with
+ * `Lispy.eval`, and, from inside a nested function, which runs later, all
+ * the variables of the enclosing scopes, so that functions can call
+ * themselves and each other.
+ *
+ * Functions are flat closures: a closure holds the variables of the
+ * enclosing scopes which its function uses (see `captures`), not the
+ * enclosing frames, and slot 0 of the frame of a call is that array of
+ * captured variables, so that the function reaches them as one more frame
+ * up. A captured variable which is assigned, or defined after the closure
+ * may be created, is shared in a `Box`; the others, parameters which
+ * nothing assigns and class environments, are copied.
+ *
+ * A `begin` block which defines nothing has no scope: its code runs in the
+ * enclosing one (see `block`). The variables of a block nested in a
+ * function or in another block go in the frame of that scope, so that a
+ * loop body does not allocate a frame per iteration.
+ */
+public final class Scope {
+
+	public enum Kind {
+		FUNCTION,
+		BLOCK,
+		CLASS
+	}
+
+	/**
+	 * Where a name lives, seen from a scope.
+	 */
+	public static final class Address {
+		public enum Kind {
+			/** In the frame `depth` levels up, at `slot`. */
+			LOCAL,
+			/** In the global environment. */
+			GLOBAL,
+			/** In the class environment of the frame `depth` levels up, if defined there; else at `outer`. */
+			MEMBER
+		}
+
+		public final Kind kind;
+		public final int depth;
+		public final int slot;
+		/** Whether a `LOCAL` slot holds the `Box` of the variable. */
+		public final boolean boxed;
+		public final Address outer;
+
+		Address(Kind kind, int depth, int slot, Address outer) {
+			this(kind, depth, slot, false, outer);
+		}
+
+		Address(Kind kind, int depth, int slot, boolean boxed, Address outer) {
+			this.kind = kind;
+			this.depth = depth;
+			this.slot = slot;
+			this.boxed = boxed;
+			this.outer = outer;
+		}
+	}
+
+	public final Scope parent;
+	public final Kind kind;
+	/** The scope whose frame holds the slots: this one, or the one a block is merged into. */
+	private final Scope frame;
+	private final Map<Symbol, Integer> slots = new HashMap<>();
+	/** The variables defined so far, in the order of the source. */
+	private final Set<Symbol> defined = new HashSet<>();
+	private final Set<Symbol> parameters = new HashSet<>();
+	/** The names which nested functions or classes use, and the names assigned. */
+	private final Set<Symbol> used = new HashSet<>();
+	private final Set<Symbol> assigned = new HashSet<>();
+	/** What a closure of the function captures, by address from the parent scope, from slot 1 on. */
+	private final List<Address> captures = new ArrayList<>();
+	private final Map<List<Integer>, Integer> captureSlots = new HashMap<>();
+	private int size;
+
+	public Scope(Scope parent, Kind kind) {
+		this(parent, kind, false);
+	}
+
+	private Scope(Scope parent, Kind kind, boolean merged) {
+		this.parent = parent;
+		this.kind = kind;
+		this.frame = merged ? parent.frame : this;
+		this.size = kind == Kind.CLASS ? 2 : 1;
+	}
+
+	/**
+	 * The scope of the `begin` block in `parent` (null at the top level),
+	 * with the variables of the block declared. A block which defines
+	 * nothing runs in `parent` itself, which is returned. A block in a
+	 * function or a block is merged into the frame of that scope, unless
+	 * it creates functions or classes: they could capture the variables of
+	 * one run of the block, which the next run would overwrite.
+	 */
+	public static Scope block(Scope parent, ListExp block) {
+		if (!block.binds) return parent;
+		boolean merged = parent != null && parent.kind != Kind.CLASS && !captures(block);
+		var scope = new Scope(parent, Kind.BLOCK, merged);
+		for (int i = 1; i < block.size(); i++) scope.hoist(block.get(i));
+		return scope;
+	}
+
+	/**
+	 * Whether the scope has a frame of its own, rather than the slots of
+	 * the frame of an enclosing scope.
+	 */
+	public boolean hasFrame() {
+		return frame == this;
+	}
+
+	/**
+	 * The number of slots of the frame, slot 0 included.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public void declare(Symbol name) {
+		if (!slots.containsKey(name)) slots.put(name, frame.size++);
+	}
+
+	/**
+	 * Declares a variable which is defined from the start of the scope,
+	 * like a parameter.
+	 */
+	public void bind(Symbol name) {
+		declare(name);
+		defined.add(name);
+		parameters.add(name);
+	}
+
+	/**
+	 * Declares the variables which the expression defines in this scope,
+	 * without going into the nested scopes, and notes which of the
+	 * variables the nested functions use.
+	 */
+	public void hoist(Exp expr) {
+		declarations(expr);
+		uses(expr, false);
+	}
+
+	private void declarations(Exp expr) {
+		if (!(expr instanceof ListExp)) return;
+		var list = (ListExp) expr;
+
+		switch (SpecialForm.of(list)) {
+		case VAR:
+		case CLASS:
+			declare(((SymbolExp) list.get(1)).symbol);
+			declarations(list.get(2));
+			return;
+
+		case DEF:
+			declare(((SymbolExp) list.get(1)).symbol);
+			return;
+
+		case BEGIN:
+		case LAMBDA:
+			return;
+
+		default:
+			for (int i = 0; i < list.size(); i++) declarations(list.get(i));
+		}
+	}
+
+	/**
+	 * Notes the names which the expression assigns, and those it uses from
+	 * inside a function or a class (`nested`). Shadowing is ignored: a
+	 * name may be boxed for nothing, never the other way round.
+	 */
+	private void uses(Exp expr, boolean nested) {
+		if (expr instanceof SymbolExp) {
+			if (nested) used.add(((SymbolExp) expr).symbol);
+			return;
+		}
+		if (expr instanceof InlinedCallExp) {
+			uses(((InlinedCallExp) expr).call, nested);
+			return;
+		}
+		if (!(expr instanceof ListExp)) return;
+		var list = (ListExp) expr;
+
+		int from = 1;
+		switch (SpecialForm.of(list)) {
+		case SET:
+			from = 1;
+			if (list.get(1) instanceof SymbolExp) assigned.add(((SymbolExp) list.get(1)).symbol);
+			break;
+		case PROP:
+			// (prop object name)
+			uses(list.get(1), nested);
+			return;
+		case VAR:
+			from = 2;
+			assigned.add(((SymbolExp) list.get(1)).symbol);
+			break;
+		case DEF:
+			// (def name (parameters) body)
+			from = 3;
+			nested = true;
+			assigned.add(((SymbolExp) list.get(1)).symbol);
+			break;
+		case CLASS:
+			from = 2;
+			nested = true;
+			assigned.add(((SymbolExp) list.get(1)).symbol);
+			break;
+		case LAMBDA:
+			from = 2;
+			nested = true;
+			break;
+		case CALL:
+			from = 0;
+			break;
+		default:
+		}
+		for (int i = from; i < list.size(); i++) uses(list.get(i), nested);
+	}
+
+	/**
+	 * Whether the variable is shared with closures through a `Box`.
+	 */
+	private boolean boxed(Symbol name) {
+		return used.contains(name) && (assigned.contains(name) || !parameters.contains(name));
+	}
+
+	/**
+	 * What a closure of this function captures: the addresses, seen from
+	 * the scope around the function, of the variables which the closure
+	 * holds from slot 1 on. A `boxed` address is read as its `Box`.
+	 */
+	public List<Address> captures() {
+		return captures;
+	}
+
+	/**
+	 * Where `(var name ...)` in `scope` (null at the top level) stores the
+	 * variable, which is visible from then on. A member has no `outer`.
+	 */
+	public static Address define(Scope scope, Symbol name) {
+		if (scope == null) return new Address(Address.Kind.GLOBAL, 0, 0, null);
+		if (scope.kind == Kind.CLASS) return new Address(Address.Kind.MEMBER, 0, 1, null);
+		scope.defined.add(name);
+		return new Address(Address.Kind.LOCAL, 0, scope.slots.get(name), scope.boxed(name), null);
+	}
+
+	/**
+	 * Where a reference to the name from `scope` (null at the top level)
+	 * finds the variable.
+	 */
+	public static Address resolve(Scope scope, Symbol name) {
+		return resolve(scope, name, 0, false);
+	}
+
+	/**
+	 * @param later whether the reference runs after `scope` is complete,
+	 *   from inside a nested function
+	 */
+	private static Address resolve(Scope scope, Symbol name, int depth, boolean later) {
+		if (scope == null) return new Address(Address.Kind.GLOBAL, 0, 0, null);
+		if (scope.kind == Kind.CLASS) {
+			return new Address(Address.Kind.MEMBER, depth, 1, resolve(scope.parent, name, depth + 1, later));
+		}
+		var slot = scope.slots.get(name);
+		if (slot != null && (later || scope.defined.contains(name))) {
+			return new Address(Address.Kind.LOCAL, depth, slot, scope.boxed(name), null);
+		}
+		if (scope.kind == Kind.FUNCTION) return scope.capture(resolve(scope.parent, name, 0, true), depth + 1);
+		return resolve(scope.parent, name, scope.hasFrame() ? depth + 1 : depth, later);
+	}
+
+	/**
+	 * The address, from `depth` frames below this function's frame, of the
+	 * variable at `address` from the parent scope, which the closures of
+	 * the function capture.
+	 */
+	private Address capture(Address address, int depth) {
+		switch (address.kind) {
+		case LOCAL:
+			return new Address(Address.Kind.LOCAL, depth, captureSlot(address), address.boxed, null);
+		case MEMBER:
+			var classEnv = new Address(Address.Kind.LOCAL, address.depth, address.slot, null);
+			return new Address(Address.Kind.MEMBER, depth, captureSlot(classEnv), capture(address.outer, depth));
+		default:
+			return address;
+		}
+	}
+
+	private int captureSlot(Address address) {
+		return captureSlots.computeIfAbsent(List.of(address.depth, address.slot), key -> {
+			captures.add(address);
+			return captures.size();
+		});
+	}
+
+	/**
+	 * Whether the expression creates a function or a class.
+	 */
+	private static boolean captures(Exp expr) {
+		if (expr instanceof InlinedCallExp) return captures(((InlinedCallExp) expr).call);
+		if (!(expr instanceof ListExp)) return false;
+		var list = (ListExp) expr;
+		switch (SpecialForm.of(list)) {
+		case DEF:
+		case LAMBDA:
+		case CLASS:
+			return true;
+		default:
+			for (int i = 0; i < list.size(); i++) {
+				if (captures(list.get(i))) return true;
+			}
+			return false;
+		}
+	}
+
+}
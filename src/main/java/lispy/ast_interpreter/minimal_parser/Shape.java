@@ -0,0 +1,60 @@
+package lispy.ast_interpreter.minimal_parser;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The layout of the properties of objects (see `LispyObject`): which slot
+ * holds each property. Objects of a class start with the root shape of
+ * the class; adding a property moves an object to the next shape, which
+ * is created once per shape and name. Objects which got the same
+ * properties in the same order share their shape, and a shape stands for
+ * its class, so a shape seen before tells where a property is (see
+ * `PropertyCache`).
+ */
+public final class Shape {
+
+	final LispyClass type;
+	private final Map<Symbol, Integer> slots;
+	/** The shapes with one more property, by its name. */
+	private final Map<Symbol, Shape> transitions = new HashMap<>();
+
+	Shape(LispyClass type) {
+		this(type, Map.of());
+	}
+
+	private Shape(LispyClass type, Map<Symbol, Integer> slots) {
+		this.type = type;
+		this.slots = slots;
+	}
+
+	/**
+	 * The number of properties.
+	 */
+	public int size() {
+		return slots.size();
+	}
+
+	/**
+	 * The slot of the property, or -1.
+	 */
+	public int slot(Symbol name) {
+		var slot = slots.get(name);
+		return slot != null ? slot : -1;
+	}
+
+	/**
+	 * The shape with the property added, in the next slot.
+	 */
+	public Shape with(Symbol name) {
+		var shape = transitions.get(name);
+		if (shape == null) {
+			var next = new HashMap<>(slots);
+			next.put(name, slots.size());
+			shape = new Shape(type, next);
+			transitions.put(name, shape);
+		}
+		return shape;
+	}
+
+}
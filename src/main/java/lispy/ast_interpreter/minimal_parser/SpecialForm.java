@@ -0,0 +1,46 @@
+package lispy.ast_interpreter.minimal_parser;
+
+import lispy.ast_interpreter.minimal_parser.ast.ListExp;
+import lispy.ast_interpreter.minimal_parser.ast.SymbolExp;
+
+/**
+ * Special forms, by the symbol they start with. Every other list is a
+ * function call (`CALL`).
+ */
+public enum SpecialForm {
+	CALL(null),
+	GREATER(">"),
+	LESS("<"),
+	VAR("var"),
+	SET("set"),
+	BEGIN("begin"),
+	IF("if"),
+	WHILE("while"),
+	DEF("def"),
+	LAMBDA("lambda"),
+	CLASS("class"),
+	NEW("new"),
+	PROP("prop");
+
+	public final String keyword;
+
+	SpecialForm(String keyword) {
+		this.keyword = keyword;
+	}
+
+	/**
+	 * The form of a list, by its first element.
+	 */
+	public static SpecialForm of(ListExp list) {
+		if (list.size() == 0) return CALL;
+		var op = list.get(0);
+		return op instanceof SymbolExp ? ((SymbolExp) op).symbol.form : CALL;
+	}
+
+	static SpecialForm of(String name) {
+		for (var form : values()) {
+			if (name.equals(form.keyword)) return form;
+		}
+		return CALL;
+	}
+}
@@ -0,0 +1,42 @@
+package lispy.ast_interpreter.minimal_parser;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interned symbol: there is one `Symbol` per name, so symbols are compared
+ * by identity, and hash by identity in environment records. A symbol which
+ * names a special form knows it, so recognizing a special form is a field
+ * read. Symbols are never removed from the intern table.
+ */
+public final class Symbol {
+
+	private static final ConcurrentHashMap<String, Symbol> table = new ConcurrentHashMap<>();
+
+	public final String name;
+	public final SpecialForm form;
+
+	private Symbol(String name) {
+		this.name = name;
+		this.form = SpecialForm.of(name);
+	}
+
+	public static Symbol intern(String name) {
+		var symbol = table.get(name);
+		return symbol != null ? symbol : table.computeIfAbsent(name, Symbol::new);
+	}
+
+	public static final Symbol TRUE = intern("true");
+	public static final Symbol FALSE = intern("false");
+	public static final Symbol NONE = intern("none");
+	public static final Symbol VERSION = intern("VERSION");
+
+	public static final Symbol VAR = intern("var");
+	public static final Symbol LAMBDA = intern("lambda");
+	public static final Symbol CONSTRUCTOR = intern("constructor");
+
+	@Override
+	public String toString() {
+		return name;
+	}
+
+}
@@ -0,0 +1,41 @@
+package lispy.ast_interpreter.minimal_parser;
+
+/**
+ * Location object: the source range of a token, or of an expression.
+ */
+public class YyLoc {
+  public YyLoc() {}
+
+  public int startOffset;
+  public int endOffset;
+  public int startLine;
+  public int endLine;
+  public int startColumn;
+  public int endColumn;
+
+  public YyLoc(int startOffset, int endOffset, int startLine,
+               int endLine, int startColumn, int endColumn) {
+    this.startOffset = startOffset;
+    this.endOffset = endOffset;
+    this.startLine = startLine;
+    this.endLine = endLine;
+    this.startColumn = startColumn;
+    this.endColumn = endColumn;
+  }
+
+  public static YyLoc yyloc(YyLoc start, YyLoc end) {
+    // Epsilon doesn't produce location.
+    if (start == null || end == null) {
+      return start == null ? end : start;
+    }
+
+    return new YyLoc(
+      start.startOffset,
+      end.endOffset,
+      start.startLine,
+      end.endLine,
+      start.startColumn,
+      end.endColumn
+    );
+  }
+}
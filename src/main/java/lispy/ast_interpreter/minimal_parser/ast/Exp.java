@@ -0,0 +1,18 @@
+package lispy.ast_interpreter.minimal_parser.ast;
+
+import lispy.ast_interpreter.minimal_parser.YyLoc;
+
+/**
+ * Parsed expression. The parser classifies atoms once, so evaluation only
+ * has to switch on the node type: a number, a string (without its quotes),
+ * a symbol, or a list of expressions.
+ */
+public abstract class Exp {
+
+	public final YyLoc loc;
+
+	protected Exp(YyLoc loc) {
+		this.loc = loc;
+	}
+
+}
@@ -0,0 +1,30 @@
+package lispy.ast_interpreter.minimal_parser.ast;
+
+/**
+ * A call whose function body the `Optimizer` has inlined: `body` is the
+ * body of the function with the arguments in place of its parameters. The
+ * function is a global, which a program can redefine, so `body` stands for
+ * the call only while `function` still evaluates to `expected`; otherwise
+ * the engines run `call` as written.
+ */
+public final class InlinedCallExp extends Exp {
+
+	public final SymbolExp function;
+	public final Object expected;
+	public final Exp body;
+	public final ListExp call;
+
+	public InlinedCallExp(SymbolExp function, Object expected, Exp body, ListExp call) {
+		super(call.loc);
+		this.function = function;
+		this.expected = expected;
+		this.body = body;
+		this.call = call;
+	}
+
+	@Override
+	public String toString() {
+		return call.toString();
+	}
+
+}
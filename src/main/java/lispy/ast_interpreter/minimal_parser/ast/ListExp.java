@@ -0,0 +1,67 @@
+package lispy.ast_interpreter.minimal_parser.ast;
+
+import java.util.List;
+import lispy.ast_interpreter.minimal_parser.SpecialForm;
+import lispy.ast_interpreter.minimal_parser.YyLoc;
+
+/**
+ * A list of expressions: a special form, or a call.
+ */
+public final class ListExp extends Exp {
+
+	private final Exp[] elements;
+	/**
+	 * Whether the list defines variables (`var`, `def`, `class`) in the
+	 * scope it runs in, leaving out nested functions and blocks; for a
+	 * `begin` block, in its own scope. A block which defines nothing needs
+	 * no scope of its own.
+	 */
+	public final boolean binds;
+
+	public ListExp(List<Exp> elements, YyLoc loc) {
+		this(elements.toArray(new Exp[0]), loc);
+	}
+
+	public ListExp(Exp[] elements, YyLoc loc) {
+		super(loc);
+		this.elements = elements;
+		this.binds = binds();
+	}
+
+	private boolean binds() {
+		switch (SpecialForm.of(this)) {
+		case VAR:
+		case DEF:
+		case CLASS:
+			return true;
+		case LAMBDA:
+			return false;
+		default:
+			for (var element : elements) {
+				if (!(element instanceof ListExp)) continue;
+				var list = (ListExp) element;
+				if (list.binds && SpecialForm.of(list) != SpecialForm.BEGIN) return true;
+			}
+			return false;
+		}
+	}
+
+	public int size() {
+		return elements.length;
+	}
+
+	public Exp get(int index) {
+		return elements[index];
+	}
+
+	@Override
+	public String toString() {
+		var sb = new StringBuilder("(");
+		for (int i = 0; i < elements.length; i++) {
+			if (i > 0) sb.append(' ');
+			sb.append(elements[i]);
+		}
+		return sb.append(')').toString();
+	}
+
+}
@@ -0,0 +1,19 @@
+package lispy.ast_interpreter.minimal_parser.ast;
+
+import lispy.ast_interpreter.minimal_parser.YyLoc;
+
+public final class NumberExp extends Exp {
+
+	public final Number value;
+
+	public NumberExp(Number value, YyLoc loc) {
+		super(loc);
+		this.value = value;
+	}
+
+	@Override
+	public String toString() {
+		return value.toString();
+	}
+
+}
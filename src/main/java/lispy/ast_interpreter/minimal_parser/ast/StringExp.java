@@ -0,0 +1,22 @@
+package lispy.ast_interpreter.minimal_parser.ast;
+
+import lispy.ast_interpreter.minimal_parser.YyLoc;
+
+public final class StringExp extends Exp {
+
+	/**
+	 * The value of the literal, without the quotes.
+	 */
+	public final String value;
+
+	public StringExp(String value, YyLoc loc) {
+		super(loc);
+		this.value = value;
+	}
+
+	@Override
+	public String toString() {
+		return "\"" + value + "\"";
+	}
+
+}
@@ -0,0 +1,20 @@
+package lispy.ast_interpreter.minimal_parser.ast;
+
+import lispy.ast_interpreter.minimal_parser.Symbol;
+import lispy.ast_interpreter.minimal_parser.YyLoc;
+
+public final class SymbolExp extends Exp {
+
+	public final Symbol symbol;
+
+	public SymbolExp(Symbol symbol, YyLoc loc) {
+		super(loc);
+		this.symbol = symbol;
+	}
+
+	@Override
+	public String toString() {
+		return symbol.name;
+	}
+
+}
@@ -0,0 +1,343 @@
+package lispy.ast_interpreter.minimal_parser.bytecode;
+
+import static lispy.ast_interpreter.minimal_parser.bytecode.Opcode.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lispy.ast_interpreter.minimal_parser.PropertyCache;
+import lispy.ast_interpreter.minimal_parser.Scope;
+import lispy.ast_interpreter.minimal_parser.SpecialForm;
+import lispy.ast_interpreter.minimal_parser.Symbol;
+import lispy.ast_interpreter.minimal_parser.ast.*;
+
+/**
+ * Compiles a parsed expression into bytecode for the `VM`, with the same
+ * semantics as `Lispy.eval`. Every expression compiles to code which
+ * pushes exactly one value. Variables are resolved to their lexical
+ * address (see `Scope`); each function is compiled by its own
+ * `BytecodeCompiler`, into its own `Prototype`. Calls in tail position in
+ * a function body compile to `TAIL_CALL`.
+ */
+public final class BytecodeCompiler {
+
+	private final Scope scope0;
+	private Scope scope;
+
+	private int[] code = new int[64];
+	private int length;
+	private final List<Object> constants = new ArrayList<>();
+	private final Map<Object, Integer> constantIndexes = new HashMap<>();
+	private int stackDepth;
+	private int maxStack;
+
+	private BytecodeCompiler(Scope scope) {
+		this.scope0 = scope;
+		this.scope = scope;
+	}
+
+	/**
+	 * Compiles the expression to run at the top level of the global
+	 * environment.
+	 */
+	public static Prototype compile(Exp expr) {
+		var compiler = new BytecodeCompiler(null);
+		compiler.expression(expr);
+		compiler.emit(RETURN);
+		return compiler.prototype("(top level)", 0, 0, 0);
+	}
+
+	private Prototype prototype(String name, int parameterCount, int frameSize, int captureCount) {
+		return new Prototype(name, parameterCount, frameSize, captureCount, maxStack,
+			Arrays.copyOf(code, length), constants.toArray());
+	}
+
+	private void expression(Exp expr) {
+		expression(expr, false);
+	}
+
+	private void expression(Exp expr, boolean tail) {
+		if (expr instanceof SymbolExp) {
+			var name = ((SymbolExp) expr).symbol;
+			read(name, Scope.resolve(scope, name));
+		}
+
+		else if (expr instanceof ListExp) list((ListExp) expr, tail);
+
+		else if (expr instanceof InlinedCallExp) inlined((InlinedCallExp) expr, tail);
+
+		else if (expr instanceof NumberExp) constant(((NumberExp) expr).value);
+
+		else if (expr instanceof StringExp) constant(((StringExp) expr).value);
+
+		else throw new UnsupportedOperationException("Expression must be an atom (Number, String, Symbol) or List of expressions. Got " + expr.getClass() + ":" + expr.toString());
+	}
+
+	/**
+	 * Runs the inlined body while the function is the one inlined, else the
+	 * call.
+	 */
+	private void inlined(InlinedCallExp expr, boolean tail) {
+		expression(expr.function);
+		constant(expr.expected);
+		int toCall = emit(JUMP_IF_NOT_SAME, 0);
+		stack(-2);
+		expression(expr.body, tail);
+		int toEnd = emit(JUMP, 0);
+		stack(-1);
+		code[toCall + 1] = length;
+		expression(expr.call, tail);
+		code[toEnd + 1] = length;
+	}
+
+	private void list(ListExp expr, boolean tail) {
+		switch (SpecialForm.of(expr)) {
+		case GREATER:
+			expression(expr.get(1));
+			expression(expr.get(2));
+			emit(GREATER);
+			stack(-1);
+			break;
+
+		case LESS:
+			expression(expr.get(1));
+			expression(expr.get(2));
+			emit(LESS);
+			stack(-1);
+			break;
+
+		case VAR: {
+			var name = symbol(expr.get(1));
+			expression(expr.get(2));
+			write(name, Scope.define(scope, name), true);
+			break;
+		}
+
+		case SET: {
+			if (expr.get(1) instanceof ListExp) {
+				// (set (prop object name) value)
+				var target = (ListExp) expr.get(1);
+				expression(target.get(1));
+				expression(expr.get(2));
+				emit(SET_PROP, constantIndex(new PropertyCache(symbol(target.get(2)))));
+				stack(-1);
+				break;
+			}
+			var name = symbol(expr.get(1));
+			expression(expr.get(2));
+			write(name, Scope.resolve(scope, name), false);
+			break;
+		}
+
+		case PROP:
+			expression(expr.get(1));
+			emit(GET_PROP, constantIndex(new PropertyCache(symbol(expr.get(2)))));
+			break;
+
+		case BEGIN: {
+			var outer = scope;
+			scope = Scope.block(outer, expr);
+			if (scope == outer || !scope.hasFrame()) {
+				block(expr, 1, tail);
+				scope = outer;
+				break;
+			}
+			int enter = emit(ENTER, 0);
+			block(expr, 1, tail);
+			emit(LEAVE);
+			code[enter + 1] = scope.size();
+			scope = outer;
+			break;
+		}
+
+		case IF: {
+			expression(expr.get(1));
+			int toElse = emit(JUMP_IF_FALSE, 0);
+			stack(-1);
+			expression(expr.get(2), tail);
+			int toEnd = emit(JUMP, 0);
+			stack(-1);
+			code[toElse + 1] = length;
+			if (expr.size() > 3) expression(expr.get(3), tail);
+			else constant(null);
+			code[toEnd + 1] = length;
+			break;
+		}
+
+		case WHILE: {
+			// The result of the last iteration stays on the stack.
+			constant(null);
+			int loop = length;
+			expression(expr.get(1));
+			int toEnd = emit(JUMP_IF_FALSE, 0);
+			stack(-1);
+			emit(POP);
+			stack(-1);
+			expression(expr.get(2));
+			emit(JUMP, loop);
+			code[toEnd + 1] = length;
+			break;
+		}
+
+		case DEF: {
+			// (var name (lambda parameters body))
+			var name = symbol(expr.get(1));
+			function(name.name, expr.get(2), expr.get(3));
+			write(name, Scope.define(scope, name), true);
+			break;
+		}
+
+		case LAMBDA:
+			function(null, expr.get(1), expr.get(2));
+			break;
+
+		case CLASS: {
+			var name = symbol(expr.get(1));
+			expression(expr.get(2));
+			emit(CLASS, constantIndex(name.name));
+			stack(-1);
+			scope = new Scope(scope, Scope.Kind.CLASS);
+			var body = (ListExp) expr.get(3);
+			for (int i = 1; i < body.size(); i++) {
+				expression(body.get(i));
+				emit(POP);
+				stack(-1);
+			}
+			scope = scope.parent;
+			emit(END_CLASS);
+			stack(1);
+			write(name, Scope.define(scope, name), true);
+			break;
+		}
+
+		case NEW:
+			for (int i = 1; i < expr.size(); i++) expression(expr.get(i));
+			emit(NEW, expr.size() - 2);
+			stack(-(expr.size() - 2));
+			break;
+
+		default:
+			for (int i = 0; i < expr.size(); i++) expression(expr.get(i));
+			emit(tail ? TAIL_CALL : CALL, expr.size() - 1);
+			stack(-(expr.size() - 1));
+		}
+	}
+
+	/**
+	 * The forms of a block, all but the last one's value dropped.
+	 */
+	private void block(ListExp expr, int from, boolean tail) {
+		if (from == expr.size()) constant(null);
+		for (int i = from; i < expr.size(); i++) {
+			if (i > from) {
+				emit(POP);
+				stack(-1);
+			}
+			expression(expr.get(i), tail && i == expr.size() - 1);
+		}
+	}
+
+	private void function(String name, Exp parameters, Exp body) {
+		var list = (ListExp) parameters;
+		var compiler = new BytecodeCompiler(new Scope(scope, Scope.Kind.FUNCTION));
+		for (int i = 0; i < list.size(); i++) compiler.scope.bind(symbol(list.get(i)));
+		compiler.scope.hoist(body);
+		compiler.expression(body, true);
+		compiler.emit(RETURN);
+		var captures = compiler.scope0.captures();
+		var prototype = compiler.prototype(name, list.size(), compiler.scope0.size(), captures.size());
+
+		for (var address : captures) {
+			if (address.boxed) emit(BOX, address.depth, address.slot);
+			else if (address.depth == 0) emit(LOAD0, address.slot);
+			else emit(LOAD, address.depth, address.slot);
+			stack(1);
+		}
+		emit(CLOSURE, constantIndex(prototype));
+		stack(1 - captures.size());
+	}
+
+	// -------------------------------------------------------------------------------
+	// variable access, by address
+
+	private void read(Symbol name, Scope.Address address) {
+		switch (address.kind) {
+		case LOCAL:
+			if (address.boxed) emit(LOAD_BOXED, address.depth, address.slot);
+			else if (address.depth == 0) emit(LOAD0, address.slot);
+			else emit(LOAD, address.depth, address.slot);
+			stack(1);
+			break;
+		case MEMBER: {
+			int member = emit(MEMBER, address.depth, address.slot, constantIndex(name), 0);
+			read(name, address.outer);
+			code[member + 4] = length;
+			break;
+		}
+		default:
+			emit(GLOBAL, constantIndex(name));
+			stack(1);
+		}
+	}
+
+	/**
+	 * Stores the value on top of the stack, leaving it there.
+	 */
+	private void write(Symbol name, Scope.Address address, boolean define) {
+		switch (address.kind) {
+		case LOCAL:
+			if (address.boxed) emit(STORE_BOXED, address.depth, address.slot);
+			else if (address.depth == 0) emit(STORE0, address.slot);
+			else emit(STORE, address.depth, address.slot);
+			break;
+		case MEMBER:
+			if (address.outer == null) {
+				emit(DEFINE_MEMBER, address.depth, constantIndex(name));
+			}
+			else {
+				int member = emit(SET_MEMBER, address.depth, address.slot, constantIndex(name), 0);
+				write(name, address.outer, define);
+				code[member + 4] = length;
+			}
+			break;
+		default:
+			emit(define ? DEFINE_GLOBAL : SET_GLOBAL, constantIndex(name));
+		}
+	}
+
+	// -------------------------------------------------------------------------------
+
+	private void constant(Object value) {
+		emit(CONST, constantIndex(value));
+		stack(1);
+	}
+
+	private int constantIndex(Object value) {
+		return constantIndexes.computeIfAbsent(value, v -> {
+			constants.add(v);
+			return constants.size() - 1;
+		});
+	}
+
+	/**
+	 * Appends an instruction, and returns its offset.
+	 */
+	private int emit(int... instruction) {
+		if (length + instruction.length > code.length) code = Arrays.copyOf(code, code.length * 2);
+		System.arraycopy(instruction, 0, code, length, instruction.length);
+		length += instruction.length;
+		return length - instruction.length;
+	}
+
+	private void stack(int delta) {
+		stackDepth += delta;
+		maxStack = Math.max(maxStack, stackDepth);
+	}
+
+	private static Symbol symbol(Exp expr) {
+		return ((SymbolExp) expr).symbol;
+	}
+
+}
@@ -0,0 +1,29 @@
+package lispy.ast_interpreter.minimal_parser.bytecode;
+
+import lispy.ast_interpreter.minimal_parser.LispyCallable;
+
+/**
+ * User-defined function of the VM: the compiled function, and the
+ * variables it captured, from slot 1 on (null if none).
+ */
+final class Closure implements LispyCallable {
+
+	final Prototype prototype;
+	final Object[] captured;
+
+	Closure(Prototype prototype, Object[] captured) {
+		this.prototype = prototype;
+		this.captured = captured;
+	}
+
+	@Override
+	public boolean isNative() {
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return "<<Function>> " + (prototype.name != null ? prototype.name : "lambda");
+	}
+
+}
@@ -0,0 +1,102 @@
+package lispy.ast_interpreter.minimal_parser.bytecode;
+
+/**
+ * The instructions of the VM. The code of a function is an `int[]`: each
+ * instruction is its opcode followed by its operands. `k` operands index
+ * the constant pool of the function; jump targets are code offsets.
+ * Stack effects are given as (before -- after).
+ */
+final class Opcode {
+
+	/** `k`: ( -- constant ) */
+	static final int CONST = 0;
+	/** `slot`: ( -- value ), from the current frame. */
+	static final int LOAD0 = 1;
+	/** `depth slot`: ( -- value ), from the frame `depth` levels up. */
+	static final int LOAD = 2;
+	/** `slot`: ( value -- value ), into the current frame. */
+	static final int STORE0 = 3;
+	/** `depth slot`: ( value -- value ) */
+	static final int STORE = 4;
+	/** `k` (symbol): ( -- value ), from the global environment. */
+	static final int GLOBAL = 5;
+	/** `k` (symbol): ( value -- value ) */
+	static final int DEFINE_GLOBAL = 6;
+	/** `k` (symbol): ( value -- value ) */
+	static final int SET_GLOBAL = 7;
+	/**
+	 * `depth slot k target`: ( -- value ), from the class environment at
+	 * `slot` of the frame `depth` levels up (a class body frame, or the
+	 * variables a closure captured), then jumps to `target`; falls through
+	 * to the outer lookup if the class does not define it.
+	 */
+	static final int MEMBER = 8;
+	/** `depth k`: ( value -- value ), into the class environment. */
+	static final int DEFINE_MEMBER = 9;
+	/** `depth slot k target`: ( value -- value ), like `MEMBER`. */
+	static final int SET_MEMBER = 10;
+	/** ( value -- ) */
+	static final int POP = 11;
+	/** `target` */
+	static final int JUMP = 12;
+	/** `target`: ( condition -- ) */
+	static final int JUMP_IF_FALSE = 13;
+	/** ( a b -- a<b ) */
+	static final int LESS = 14;
+	/** ( a b -- a>b ) */
+	static final int GREATER = 15;
+	/** `size`: enters a new frame of `size` slots. */
+	static final int ENTER = 16;
+	/** Leaves the current frame for the enclosing one. */
+	static final int LEAVE = 17;
+	/**
+	 * `k` (prototype): ( captured... -- closure ), with the variables the
+	 * prototype captures (see `Prototype.captureCount`).
+	 */
+	static final int CLOSURE = 18;
+	/** `argc`: ( function args... -- result ) */
+	static final int CALL = 19;
+	/** ( result -- ), back to the caller. */
+	static final int RETURN = 20;
+	/** `k` (name): ( parent -- ), enters a class body frame, with a new class. */
+	static final int CLASS = 21;
+	/** ( -- class ), leaves the class body frame. */
+	static final int END_CLASS = 22;
+	/** `argc`: ( class args... -- result ), calls the constructor with a new instance. */
+	static final int NEW = 23;
+	/**
+	 * `argc`: ( function args... -- result ), a `CALL` in tail position:
+	 * the callee replaces the current function, and returns to its caller.
+	 */
+	static final int TAIL_CALL = 24;
+	/** `target`: ( a b -- ), jumps unless a and b are the same object. */
+	static final int JUMP_IF_NOT_SAME = 25;
+	/** `depth slot`: ( -- value ), through the `Box` of a shared variable. */
+	static final int LOAD_BOXED = 26;
+	/** `depth slot`: ( value -- value ) */
+	static final int STORE_BOXED = 27;
+	/** `depth slot`: ( -- box ), the `Box` itself, for a closure to capture. */
+	static final int BOX = 28;
+	/** `k` (`PropertyCache`): ( object -- value ), `(prop object name)`. */
+	static final int GET_PROP = 29;
+	/** `k` (`PropertyCache`): ( object value -- value ) */
+	static final int SET_PROP = 30;
+
+	static final String[] NAMES = {
+		"CONST", "LOAD0", "LOAD", "STORE0", "STORE", "GLOBAL", "DEFINE_GLOBAL", "SET_GLOBAL",
+		"MEMBER", "DEFINE_MEMBER", "SET_MEMBER", "POP", "JUMP", "JUMP_IF_FALSE", "LESS", "GREATER",
+		"ENTER", "LEAVE", "CLOSURE", "CALL", "RETURN", "CLASS", "END_CLASS", "NEW",
+		"TAIL_CALL", "JUMP_IF_NOT_SAME", "LOAD_BOXED", "STORE_BOXED", "BOX", "GET_PROP", "SET_PROP"
+	};
+
+	static final int[] OPERANDS = {
+		1, 1, 2, 1, 2, 1, 1, 1,
+		4, 2, 4, 0, 1, 1, 0, 0,
+		1, 0, 1, 1, 0, 1, 0, 1,
+		1, 1, 2, 2, 2, 1, 1
+	};
+
+	private Opcode() {
+	}
+
+}
@@ -0,0 +1,65 @@
+package lispy.ast_interpreter.minimal_parser.bytecode;
+
+/**
+ * Compiled function, or top-level expression: its code and constant pool,
+ * and the sizes the VM reserves for a call.
+ */
+public final class Prototype {
+
+	final String name;
+	final int parameterCount;
+	/** Slots of the frame of a call, slot 0 (the captured variables) included. */
+	final int frameSize;
+	/** The number of variables a closure captures, from slot 1 on. */
+	final int captureCount;
+	/** The deepest the operand stack gets, while running this code. */
+	final int maxStack;
+	final int[] code;
+	final Object[] constants;
+
+	Prototype(String name, int parameterCount, int frameSize, int captureCount, int maxStack, int[] code, Object[] constants) {
+		this.name = name;
+		this.parameterCount = parameterCount;
+		this.frameSize = frameSize;
+		this.captureCount = captureCount;
+		this.maxStack = maxStack;
+		this.code = code;
+		this.constants = constants;
+	}
+
+	/**
+	 * A listing of the code, one instruction per line, followed by the
+	 * listings of the nested functions.
+	 */
+	public String disassemble() {
+		var sb = new StringBuilder();
+		sb.append("function ").append(name != null ? name : "lambda")
+			.append(" (parameters ").append(parameterCount)
+			.append(", frame ").append(frameSize)
+			.append(", stack ").append(maxStack).append(")\n");
+		for (int pc = 0; pc < code.length; ) {
+			int op = code[pc];
+			sb.append(String.format("%4d %s", pc, Opcode.NAMES[op]));
+			for (int i = 1; i <= Opcode.OPERANDS[op]; i++) sb.append(' ').append(code[pc + i]);
+			if (op == Opcode.CONST || op == Opcode.GLOBAL || op == Opcode.CLASS
+				|| op == Opcode.GET_PROP || op == Opcode.SET_PROP) sb.append("  ; ").append(constant(code[pc + 1]));
+			sb.append('\n');
+			pc += 1 + Opcode.OPERANDS[op];
+		}
+		for (var constant : constants) {
+			if (constant instanceof Prototype) sb.append('\n').append(((Prototype) constant).disassemble());
+		}
+		return sb.toString();
+	}
+
+	private String constant(int k) {
+		var constant = constants[k];
+		return constant instanceof String ? "\"" + constant + "\"" : String.valueOf(constant);
+	}
+
+	@Override
+	public String toString() {
+		return "<<Prototype>> " + (name != null ? name : "lambda");
+	}
+
+}
@@ -0,0 +1,362 @@
+package lispy.ast_interpreter.minimal_parser.bytecode;
+
+import java.util.Arrays;
+import lispy.ast_interpreter.minimal_parser.Box;
+import lispy.ast_interpreter.minimal_parser.Environment;
+import lispy.ast_interpreter.minimal_parser.LispyCallable;
+import lispy.ast_interpreter.minimal_parser.LispyClass;
+import lispy.ast_interpreter.minimal_parser.LispyNativeFunction;
+import lispy.ast_interpreter.minimal_parser.LispyObject;
+import lispy.ast_interpreter.minimal_parser.Numbers;
+import lispy.ast_interpreter.minimal_parser.PropertyCache;
+import lispy.ast_interpreter.minimal_parser.Symbol;
+
+/**
+ * Runs compiled code: a dispatch loop over the instructions (see `Opcode`),
+ * with one operand stack for all the calls. A call of a user-defined
+ * function does not recurse on the Java stack; the caller's position is
+ * saved on the VM's own call stack, and the loop continues in the callee.
+ * A tail call saves nothing: the callee takes the place of the caller.
+ */
+public final class VM {
+
+	private final Environment global;
+
+	public VM(Environment global) {
+		this.global = global;
+	}
+
+	public Object run(Prototype main) {
+		var stack = new Object[Math.max(64, main.maxStack)];
+		int sp = 0;
+
+		// Saved callers.
+		var callerPrototypes = new Prototype[16];
+		var callerPcs = new int[16];
+		var callerFrames = new Object[16][];
+		int calls = 0;
+
+		var prototype = main;
+		var code = main.code;
+		var constants = main.constants;
+		Object[] frame = null;
+		int pc = 0;
+
+		for (;;) {
+			switch (code[pc++]) {
+			case Opcode.CONST:
+				stack[sp++] = constants[code[pc++]];
+				break;
+
+			case Opcode.LOAD0:
+				stack[sp++] = frame[code[pc++]];
+				break;
+
+			case Opcode.LOAD: {
+				var f = frameAt(frame, code[pc++]);
+				stack[sp++] = f[code[pc++]];
+				break;
+			}
+
+			case Opcode.STORE0:
+				frame[code[pc++]] = stack[sp - 1];
+				break;
+
+			case Opcode.STORE: {
+				var f = frameAt(frame, code[pc++]);
+				f[code[pc++]] = stack[sp - 1];
+				break;
+			}
+
+			case Opcode.LOAD_BOXED: {
+				var f = frameAt(frame, code[pc++]);
+				stack[sp++] = Box.at(f, code[pc++]).value;
+				break;
+			}
+
+			case Opcode.STORE_BOXED: {
+				var f = frameAt(frame, code[pc++]);
+				Box.at(f, code[pc++]).value = stack[sp - 1];
+				break;
+			}
+
+			case Opcode.BOX: {
+				var f = frameAt(frame, code[pc++]);
+				stack[sp++] = Box.at(f, code[pc++]);
+				break;
+			}
+
+			case Opcode.GLOBAL:
+				stack[sp++] = lookup(global, (Symbol) constants[code[pc++]]);
+				break;
+
+			case Opcode.DEFINE_GLOBAL:
+				global.define((Symbol) constants[code[pc++]], stack[sp - 1]);
+				break;
+
+			case Opcode.SET_GLOBAL:
+				global.assign((Symbol) constants[code[pc++]], stack[sp - 1]);
+				break;
+
+			case Opcode.MEMBER: {
+				var f = frameAt(frame, code[pc++]);
+				var classEnv = (Environment) f[code[pc++]];
+				var name = (Symbol) constants[code[pc++]];
+				int target = code[pc++];
+				var env = classEnv.find(name);
+				if (env != null) {
+					stack[sp++] = lookup(env, name);
+					pc = target;
+				}
+				break;
+			}
+
+			case Opcode.DEFINE_MEMBER: {
+				var classEnv = (Environment) frameAt(frame, code[pc++])[1];
+				classEnv.define((Symbol) constants[code[pc++]], stack[sp - 1]);
+				break;
+			}
+
+			case Opcode.SET_MEMBER: {
+				var f = frameAt(frame, code[pc++]);
+				var classEnv = (Environment) f[code[pc++]];
+				var name = (Symbol) constants[code[pc++]];
+				int target = code[pc++];
+				var env = classEnv.find(name);
+				if (env != null) {
+					env.define(name, stack[sp - 1]);
+					pc = target;
+				}
+				break;
+			}
+
+			case Opcode.GET_PROP:
+				stack[sp - 1] = ((PropertyCache) constants[code[pc++]]).get(stack[sp - 1]);
+				break;
+
+			case Opcode.SET_PROP: {
+				var value = stack[--sp];
+				stack[sp] = null;
+				stack[sp - 1] = ((PropertyCache) constants[code[pc++]]).set(stack[sp - 1], value);
+				break;
+			}
+
+			case Opcode.POP:
+				stack[--sp] = null;
+				break;
+
+			case Opcode.JUMP:
+				pc = code[pc];
+				break;
+
+			case Opcode.JUMP_IF_FALSE: {
+				int target = code[pc++];
+				var condition = (boolean) stack[--sp];
+				stack[sp] = null;
+				if (!condition) pc = target;
+				break;
+			}
+
+			case Opcode.JUMP_IF_NOT_SAME: {
+				int target = code[pc++];
+				var b = stack[--sp];
+				var a = stack[--sp];
+				stack[sp] = stack[sp + 1] = null;
+				if (a != b) pc = target;
+				break;
+			}
+
+			case Opcode.LESS: {
+				var arg2 = stack[--sp];
+				var arg1 = stack[sp - 1];
+				stack[sp] = null;
+				stack[sp - 1] = Numbers.less(arg1, arg2);
+				break;
+			}
+
+			case Opcode.GREATER: {
+				var arg2 = stack[--sp];
+				var arg1 = stack[sp - 1];
+				stack[sp] = null;
+				stack[sp - 1] = Numbers.greater(arg1, arg2);
+				break;
+			}
+
+			case Opcode.ENTER: {
+				var f = new Object[code[pc++]];
+				f[0] = frame;
+				frame = f;
+				break;
+			}
+
+			case Opcode.LEAVE:
+				frame = (Object[]) frame[0];
+				break;
+
+			case Opcode.CLOSURE: {
+				var callee = (Prototype) constants[code[pc++]];
+				Object[] captured = null;
+				if (callee.captureCount > 0) {
+					captured = new Object[callee.captureCount + 1];
+					sp -= callee.captureCount;
+					System.arraycopy(stack, sp, captured, 1, callee.captureCount);
+					Arrays.fill(stack, sp, sp + callee.captureCount, null);
+				}
+				stack[sp++] = new Closure(callee, captured);
+				break;
+			}
+
+			case Opcode.CALL:
+			case Opcode.TAIL_CALL: {
+				boolean tail = code[pc - 1] == Opcode.TAIL_CALL;
+				int argc = code[pc++];
+				int base = sp - argc - 1;
+				var callable = (LispyCallable) stack[base];
+
+				if (callable.isNative()) {
+					var result = callNative((LispyNativeFunction) callable, stack, base + 1, argc);
+					Arrays.fill(stack, base, sp, null);
+					sp = base;
+					stack[sp++] = result;
+					break;
+				}
+
+				var closure = (Closure) callable;
+				var callee = closure.prototype;
+				var calleeFrame = newFrame(closure, argc);
+				System.arraycopy(stack, base + 1, calleeFrame, 1, argc);
+				Arrays.fill(stack, base, sp, null);
+				sp = base;
+
+				if (!tail) {
+					if (calls == callerPcs.length) {
+						callerPrototypes = Arrays.copyOf(callerPrototypes, calls * 2);
+						callerPcs = Arrays.copyOf(callerPcs, calls * 2);
+						callerFrames = Arrays.copyOf(callerFrames, calls * 2);
+					}
+					callerPrototypes[calls] = prototype;
+					callerPcs[calls] = pc;
+					callerFrames[calls] = frame;
+					calls++;
+				}
+				if (sp + callee.maxStack > stack.length) stack = Arrays.copyOf(stack, (sp + callee.maxStack) * 2);
+
+				prototype = callee;
+				code = callee.code;
+				constants = callee.constants;
+				frame = calleeFrame;
+				pc = 0;
+				break;
+			}
+
+			case Opcode.NEW: {
+				int argc = code[pc++];
+				int base = sp - argc - 1;
+				var classEnv = (LispyClass) stack[base];
+
+				var closure = (Closure) classEnv.member(Symbol.CONSTRUCTOR);
+				var callee = closure.prototype;
+				var calleeFrame = newFrame(closure, argc + 1);
+				calleeFrame[1] = new LispyObject(classEnv);
+				System.arraycopy(stack, base + 1, calleeFrame, 2, argc);
+				Arrays.fill(stack, base, sp, null);
+				sp = base;
+
+				if (calls == callerPcs.length) {
+					callerPrototypes = Arrays.copyOf(callerPrototypes, calls * 2);
+					callerPcs = Arrays.copyOf(callerPcs, calls * 2);
+					callerFrames = Arrays.copyOf(callerFrames, calls * 2);
+				}
+				callerPrototypes[calls] = prototype;
+				callerPcs[calls] = pc;
+				callerFrames[calls] = frame;
+				calls++;
+				if (sp + callee.maxStack > stack.length) stack = Arrays.copyOf(stack, (sp + callee.maxStack) * 2);
+
+				prototype = callee;
+				code = callee.code;
+				constants = callee.constants;
+				frame = calleeFrame;
+				pc = 0;
+				break;
+			}
+
+			case Opcode.RETURN: {
+				var result = stack[--sp];
+				stack[sp] = null;
+				if (calls == 0) return result;
+
+				calls--;
+				prototype = callerPrototypes[calls];
+				code = prototype.code;
+				constants = prototype.constants;
+				pc = callerPcs[calls];
+				frame = callerFrames[calls];
+				callerPrototypes[calls] = null;
+				callerFrames[calls] = null;
+				stack[sp++] = result;
+				break;
+			}
+
+			case Opcode.CLASS: {
+				var name = (String) constants[code[pc++]];
+				var parentEnv = (Environment) stack[--sp];
+				stack[sp] = null;
+				frame = new Object[] { frame, new LispyClass(name, parentEnv) };
+				break;
+			}
+
+			case Opcode.END_CLASS:
+				stack[sp++] = frame[1];
+				frame = (Object[]) frame[0];
+				break;
+
+			default:
+				throw new IllegalStateException("Bad opcode " + code[pc - 1] + " at " + (pc - 1) + " in " + prototype);
+			}
+		}
+	}
+
+	private static Object[] frameAt(Object[] frame, int depth) {
+		for (int i = 0; i < depth; i++) frame = (Object[]) frame[0];
+		return frame;
+	}
+
+	/**
+	 * Calls the builtin with the `argc` arguments on the stack from `from`,
+	 * through the entry point for their number.
+	 */
+	private Object callNative(LispyNativeFunction function, Object[] stack, int from, int argc) {
+		switch (argc) {
+		case 0: return function.call0(global);
+		case 1: return function.call1(global, stack[from]);
+		case 2: return function.call2(global, stack[from], stack[from + 1]);
+		case 3: return function.call3(global, stack[from], stack[from + 1], stack[from + 2]);
+		default: return function.callN(global, Arrays.copyOfRange(stack, from, from + argc));
+		}
+	}
+
+	/**
+	 * A frame for a call of the closure with `argc` arguments, to be
+	 * stored from slot 1 on.
+	 */
+	private static Object[] newFrame(Closure closure, int argc) {
+		var callee = closure.prototype;
+		if (argc != callee.parameterCount) {
+			throw new IllegalArgumentException(closure + ": " + argc
+				+ " arguments for " + callee.parameterCount + " parameters");
+		}
+		var frame = new Object[callee.frameSize];
+		frame[0] = closure.captured;
+		return frame;
+	}
+
+	private static Object lookup(Environment env, Symbol name) {
+		try {
+			return env.lookup(name);
+		} catch (IllegalAccessException e) {
+			throw new Error(name + ": variable not defined/found in env=" + env);
+		}
+	}
+
+}
@@ -3,7 +3,11 @@ package lispy.ast_interpreter.minimal_parser.native_functions;
 import java.util.List;
 import lispy.ast_interpreter.minimal_parser.Environment;
 import lispy.ast_interpreter.minimal_parser.LispyNativeFunction;
+import lispy.ast_interpreter.minimal_parser.Numbers;
 
+/**
+ * `(+ numbers...)`: the sum of any number of numbers, 0 for none.
+ */
 public class AddNativeFunction implements LispyNativeFunction{
 
     @Override
@@ -13,7 +17,37 @@ public class AddNativeFunction implements LispyNativeFunction{
 
     @Override
     public Object call(Environment env, List<Object> arguments) {
-        return (double) arguments.get(0) + (double) arguments.get(1);
+        return callN(env, arguments.toArray());
+    }
+
+    @Override
+    public Object call0(Environment env) {
+        return 0L;
+    }
+
+    @Override
+    public Object call1(Environment env, Object a) {
+        return Numbers.add(0L, a);
+    }
+
+    @Override
+    public Object call2(Environment env, Object a, Object b) {
+        return Numbers.add(a, b);
+    }
+
+    @Override
+    public Object call3(Environment env, Object a, Object b, Object c) {
+        return Numbers.add(Numbers.add(a, b), c);
+    }
+
+    @Override
+    public Object callN(Environment env, Object[] arguments) {
+        return Numbers.sum(arguments);
+    }
+
+    @Override
+    public String toString() {
+        return "<<Native Function>> +";
     }
   
 }
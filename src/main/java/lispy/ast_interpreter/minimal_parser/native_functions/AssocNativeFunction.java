@@ -0,0 +1,44 @@
+package lispy.ast_interpreter.minimal_parser.native_functions;
+
+import java.util.List;
+import lispy.ast_interpreter.minimal_parser.Environment;
+import lispy.ast_interpreter.minimal_parser.LispyNativeFunction;
+import lispy.ast_interpreter.minimal_parser.PersistentMap;
+import lispy.ast_interpreter.minimal_parser.PersistentVector;
+
+/**
+ * `(assoc collection key value)`: the vector with the element at the index
+ * replaced, or added at the end for an index of its size; or the map with
+ * the key bound to the value.
+ */
+public class AssocNativeFunction implements LispyNativeFunction{
+
+    @Override
+    public boolean isNative() {
+        return true;
+    }
+
+    @Override
+    public int arity() {
+        return 3;
+    }
+
+    @Override
+    public Object call(Environment env, List<Object> arguments) {
+        checkArity(arguments.size());
+        return call3(env, arguments.get(0), arguments.get(1), arguments.get(2));
+    }
+
+    @Override
+    public Object call3(Environment env, Object a, Object b, Object c) {
+        if (a instanceof PersistentMap) return ((PersistentMap) a).put(b, c);
+        if (a instanceof PersistentVector) return ((PersistentVector) a).set(PersistentVector.index(b), c);
+        throw new IllegalArgumentException(this + ": not a collection: " + a);
+    }
+
+    @Override
+    public String toString() {
+        return "<<Native Function>> assoc";
+    }
+  
+}
@@ -0,0 +1,49 @@
+package lispy.ast_interpreter.minimal_parser.native_functions;
+
+import java.util.List;
+import lispy.ast_interpreter.minimal_parser.Environment;
+import lispy.ast_interpreter.minimal_parser.LispyNativeFunction;
+import lispy.ast_interpreter.minimal_parser.PersistentVector;
+
+/**
+ * `(conj vector elements...)`: the vector with the elements added at the
+ * end.
+ */
+public class ConjNativeFunction implements LispyNativeFunction{
+
+    @Override
+    public boolean isNative() {
+        return true;
+    }
+
+    @Override
+    public Object call(Environment env, List<Object> arguments) {
+        return callN(env, arguments.toArray());
+    }
+
+    @Override
+    public Object call2(Environment env, Object a, Object b) {
+        return vector(a).add(b);
+    }
+
+    @Override
+    public Object callN(Environment env, Object[] arguments) {
+        if (arguments.length == 0) throw new IllegalArgumentException(this + ": 0 arguments for at least 1 parameter");
+        var vector = vector(arguments[0]);
+        for (int i = 1; i < arguments.length; i++) {
+            vector = vector.add(arguments[i]);
+        }
+        return vector;
+    }
+
+    private PersistentVector vector(Object a) {
+        if (a instanceof PersistentVector) return (PersistentVector) a;
+        throw new IllegalArgumentException(this + ": not a vector: " + a);
+    }
+
+    @Override
+    public String toString() {
+        return "<<Native Function>> conj";
+    }
+  
+}
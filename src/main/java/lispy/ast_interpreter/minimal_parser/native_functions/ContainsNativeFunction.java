@@ -0,0 +1,46 @@
+package lispy.ast_interpreter.minimal_parser.native_functions;
+
+import java.util.List;
+import lispy.ast_interpreter.minimal_parser.Environment;
+import lispy.ast_interpreter.minimal_parser.LispyNativeFunction;
+import lispy.ast_interpreter.minimal_parser.PersistentMap;
+import lispy.ast_interpreter.minimal_parser.PersistentVector;
+
+/**
+ * `(contains collection key)`: whether the map has the key, or the index
+ * is within the vector.
+ */
+public class ContainsNativeFunction implements LispyNativeFunction{
+
+    @Override
+    public boolean isNative() {
+        return true;
+    }
+
+    @Override
+    public int arity() {
+        return 2;
+    }
+
+    @Override
+    public Object call(Environment env, List<Object> arguments) {
+        checkArity(arguments.size());
+        return call2(env, arguments.get(0), arguments.get(1));
+    }
+
+    @Override
+    public Object call2(Environment env, Object a, Object b) {
+        if (a instanceof PersistentMap) return ((PersistentMap) a).containsKey(b);
+        if (a instanceof PersistentVector) {
+            int index = PersistentVector.index(b);
+            return index >= 0 && index < ((PersistentVector) a).size();
+        }
+        throw new IllegalArgumentException(this + ": not a collection: " + a);
+    }
+
+    @Override
+    public String toString() {
+        return "<<Native Function>> contains";
+    }
+  
+}
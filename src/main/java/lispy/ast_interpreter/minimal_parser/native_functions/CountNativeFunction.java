@@ -0,0 +1,43 @@
+package lispy.ast_interpreter.minimal_parser.native_functions;
+
+import java.util.List;
+import lispy.ast_interpreter.minimal_parser.Environment;
+import lispy.ast_interpreter.minimal_parser.LispyNativeFunction;
+import lispy.ast_interpreter.minimal_parser.PersistentMap;
+import lispy.ast_interpreter.minimal_parser.PersistentVector;
+
+/**
+ * `(count collection)`: the number of elements of a vector, or of keys of
+ * a map.
+ */
+public class CountNativeFunction implements LispyNativeFunction{
+
+    @Override
+    public boolean isNative() {
+        return true;
+    }
+
+    @Override
+    public int arity() {
+        return 1;
+    }
+
+    @Override
+    public Object call(Environment env, List<Object> arguments) {
+        checkArity(arguments.size());
+        return call1(env, arguments.get(0));
+    }
+
+    @Override
+    public Object call1(Environment env, Object a) {
+        if (a instanceof PersistentMap) return (long) ((PersistentMap) a).size();
+        if (a instanceof PersistentVector) return (long) ((PersistentVector) a).size();
+        throw new IllegalArgumentException(this + ": not a collection: " + a);
+    }
+
+    @Override
+    public String toString() {
+        return "<<Native Function>> count";
+    }
+  
+}
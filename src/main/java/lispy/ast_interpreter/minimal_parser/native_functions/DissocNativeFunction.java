@@ -0,0 +1,40 @@
+package lispy.ast_interpreter.minimal_parser.native_functions;
+
+import java.util.List;
+import lispy.ast_interpreter.minimal_parser.Environment;
+import lispy.ast_interpreter.minimal_parser.LispyNativeFunction;
+import lispy.ast_interpreter.minimal_parser.PersistentMap;
+
+/**
+ * `(dissoc map key)`: the map without the key.
+ */
+public class DissocNativeFunction implements LispyNativeFunction{
+
+    @Override
+    public boolean isNative() {
+        return true;
+    }
+
+    @Override
+    public int arity() {
+        return 2;
+    }
+
+    @Override
+    public Object call(Environment env, List<Object> arguments) {
+        checkArity(arguments.size());
+        return call2(env, arguments.get(0), arguments.get(1));
+    }
+
+    @Override
+    public Object call2(Environment env, Object a, Object b) {
+        if (a instanceof PersistentMap) return ((PersistentMap) a).remove(b);
+        throw new IllegalArgumentException(this + ": not a map: " + a);
+    }
+
+    @Override
+    public String toString() {
+        return "<<Native Function>> dissoc";
+    }
+  
+}
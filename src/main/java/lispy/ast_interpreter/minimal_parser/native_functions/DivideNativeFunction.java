@@ -3,7 +3,11 @@ package lispy.ast_interpreter.minimal_parser.native_functions;
 import java.util.List;
 import lispy.ast_interpreter.minimal_parser.Environment;
 import lispy.ast_interpreter.minimal_parser.LispyNativeFunction;
+import lispy.ast_interpreter.minimal_parser.Numbers;
 
+/**
+ * `(/ number numbers...)`: the first number divided by the others, from the left; `(/ number)` is its inverse.
+ */
 public class DivideNativeFunction implements LispyNativeFunction{
 
     @Override
@@ -13,7 +17,38 @@ public class DivideNativeFunction implements LispyNativeFunction{
 
     @Override
     public Object call(Environment env, List<Object> arguments) {
-        return (double) arguments.get(0) / (double) arguments.get(1);
+        return callN(env, arguments.toArray());
+    }
+
+    @Override
+    public Object call1(Environment env, Object a) {
+        return Numbers.divide(1L, a);
+    }
+
+    @Override
+    public Object call2(Environment env, Object a, Object b) {
+        return Numbers.divide(a, b);
+    }
+
+    @Override
+    public Object call3(Environment env, Object a, Object b, Object c) {
+        return Numbers.divide(Numbers.divide(a, b), c);
+    }
+
+    @Override
+    public Object callN(Environment env, Object[] arguments) {
+        if (arguments.length == 0) throw new IllegalArgumentException(this + ": 0 arguments for at least 1 parameter");
+        if (arguments.length == 1) return call1(env, arguments[0]);
+        Object result = arguments[0];
+        for (int i = 1; i < arguments.length; i++) {
+            result = Numbers.divide(result, arguments[i]);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "<<Native Function>> /";
     }
   
 }
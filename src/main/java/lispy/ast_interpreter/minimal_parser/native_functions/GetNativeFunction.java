@@ -0,0 +1,43 @@
+package lispy.ast_interpreter.minimal_parser.native_functions;
+
+import java.util.List;
+import lispy.ast_interpreter.minimal_parser.Environment;
+import lispy.ast_interpreter.minimal_parser.LispyNativeFunction;
+import lispy.ast_interpreter.minimal_parser.PersistentMap;
+import lispy.ast_interpreter.minimal_parser.PersistentVector;
+
+/**
+ * `(get collection key)`: the element of a vector at the index, or the
+ * value of the key in a map, `none` if the map has no such key.
+ */
+public class GetNativeFunction implements LispyNativeFunction{
+
+    @Override
+    public boolean isNative() {
+        return true;
+    }
+
+    @Override
+    public int arity() {
+        return 2;
+    }
+
+    @Override
+    public Object call(Environment env, List<Object> arguments) {
+        checkArity(arguments.size());
+        return call2(env, arguments.get(0), arguments.get(1));
+    }
+
+    @Override
+    public Object call2(Environment env, Object a, Object b) {
+        if (a instanceof PersistentMap) return ((PersistentMap) a).get(b);
+        if (a instanceof PersistentVector) return ((PersistentVector) a).get(PersistentVector.index(b));
+        throw new IllegalArgumentException(this + ": not a collection: " + a);
+    }
+
+    @Override
+    public String toString() {
+        return "<<Native Function>> get";
+    }
+  
+}
@@ -0,0 +1,49 @@
+package lispy.ast_interpreter.minimal_parser.native_functions;
+
+import java.util.List;
+import lispy.ast_interpreter.minimal_parser.Environment;
+import lispy.ast_interpreter.minimal_parser.LispyNativeFunction;
+import lispy.ast_interpreter.minimal_parser.PersistentMap;
+
+/**
+ * `(hash-map key value ...)`: a new `PersistentMap` binding each key to
+ * the value after it.
+ */
+public class HashMapNativeFunction implements LispyNativeFunction{
+
+    @Override
+    public boolean isNative() {
+        return true;
+    }
+
+    @Override
+    public Object call(Environment env, List<Object> arguments) {
+        return callN(env, arguments.toArray());
+    }
+
+    @Override
+    public Object call0(Environment env) {
+        return PersistentMap.EMPTY;
+    }
+
+    @Override
+    public Object call2(Environment env, Object a, Object b) {
+        return PersistentMap.EMPTY.put(a, b);
+    }
+
+    @Override
+    public Object callN(Environment env, Object[] arguments) {
+        if (arguments.length % 2 != 0) throw new IllegalArgumentException(this + ": a key without a value");
+        var map = PersistentMap.EMPTY;
+        for (int i = 0; i < arguments.length; i += 2) {
+            map = map.put(arguments[i], arguments[i + 1]);
+        }
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return "<<Native Function>> hash-map";
+    }
+  
+}
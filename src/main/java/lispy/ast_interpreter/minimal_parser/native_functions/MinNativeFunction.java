@@ -0,0 +1,44 @@
+package lispy.ast_interpreter.minimal_parser.native_functions;
+
+import java.util.List;
+import lispy.ast_interpreter.minimal_parser.Environment;
+import lispy.ast_interpreter.minimal_parser.LispyNativeFunction;
+import lispy.ast_interpreter.minimal_parser.Numbers;
+
+/**
+ * `(min number numbers...)`: the least of the numbers.
+ */
+public class MinNativeFunction implements LispyNativeFunction{
+
+    @Override
+    public boolean isNative() {
+        return true;
+    }
+
+    @Override
+    public Object call(Environment env, List<Object> arguments) {
+        return callN(env, arguments.toArray());
+    }
+
+    @Override
+    public Object call1(Environment env, Object a) {
+        return (Number) a;
+    }
+
+    @Override
+    public Object call2(Environment env, Object a, Object b) {
+        return Numbers.less(b, a) ? b : a;
+    }
+
+    @Override
+    public Object callN(Environment env, Object[] arguments) {
+        if (arguments.length == 0) throw new IllegalArgumentException(this + ": 0 arguments for at least 1 parameter");
+        return Numbers.min(arguments);
+    }
+
+    @Override
+    public String toString() {
+        return "<<Native Function>> min";
+    }
+  
+}
@@ -0,0 +1,40 @@
+package lispy.ast_interpreter.minimal_parser.native_functions;
+
+import java.util.List;
+import lispy.ast_interpreter.minimal_parser.Environment;
+import lispy.ast_interpreter.minimal_parser.LispyNativeFunction;
+import lispy.ast_interpreter.minimal_parser.PersistentVector;
+
+/**
+ * `(pop vector)`: the vector without its last element.
+ */
+public class PopNativeFunction implements LispyNativeFunction{
+
+    @Override
+    public boolean isNative() {
+        return true;
+    }
+
+    @Override
+    public int arity() {
+        return 1;
+    }
+
+    @Override
+    public Object call(Environment env, List<Object> arguments) {
+        checkArity(arguments.size());
+        return call1(env, arguments.get(0));
+    }
+
+    @Override
+    public Object call1(Environment env, Object a) {
+        if (a instanceof PersistentVector) return ((PersistentVector) a).pop();
+        throw new IllegalArgumentException(this + ": not a vector: " + a);
+    }
+
+    @Override
+    public String toString() {
+        return "<<Native Function>> pop";
+    }
+  
+}
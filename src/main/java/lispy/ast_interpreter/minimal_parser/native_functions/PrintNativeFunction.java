@@ -15,11 +15,29 @@ public class PrintNativeFunction implements LispyNativeFunction{
     public Object call(Environment env, List<Object> arguments) {
         
         for (var arg : arguments){
-            System.out.println(arg.getClass() + ":> " + arg);
+            print(arg);
         }
         return true;
     }
 
+    @Override
+    public Object call1(Environment env, Object a) {
+        print(a);
+        return true;
+    }
+
+    @Override
+    public Object callN(Environment env, Object[] arguments) {
+        for (var arg : arguments){
+            print(arg);
+        }
+        return true;
+    }
+
+    private static void print(Object arg) {
+        System.out.println(arg.getClass() + ":> " + arg);
+    }
+
     @Override
     public String toString() {
         return "<<Native Function>> print";
@@ -0,0 +1,43 @@
+package lispy.ast_interpreter.minimal_parser.native_functions;
+
+import java.util.List;
+import lispy.ast_interpreter.minimal_parser.Environment;
+import lispy.ast_interpreter.minimal_parser.LispyNativeFunction;
+import lispy.ast_interpreter.minimal_parser.PersistentVector;
+
+/**
+ * `(vector elements...)`: a new `PersistentVector` of the elements.
+ */
+public class VectorNativeFunction implements LispyNativeFunction{
+
+    @Override
+    public boolean isNative() {
+        return true;
+    }
+
+    @Override
+    public Object call(Environment env, List<Object> arguments) {
+        return callN(env, arguments.toArray());
+    }
+
+    @Override
+    public Object call0(Environment env) {
+        return PersistentVector.EMPTY;
+    }
+
+    @Override
+    public Object call1(Environment env, Object a) {
+        return PersistentVector.EMPTY.add(a);
+    }
+
+    @Override
+    public Object callN(Environment env, Object[] arguments) {
+        return PersistentVector.of(arguments);
+    }
+
+    @Override
+    public String toString() {
+        return "<<Native Function>> vector";
+    }
+  
+}
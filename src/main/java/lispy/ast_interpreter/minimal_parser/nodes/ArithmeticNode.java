@@ -0,0 +1,162 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+import lispy.ast_interpreter.minimal_parser.LispyNativeFunction;
+import lispy.ast_interpreter.minimal_parser.Numbers;
+import lispy.ast_interpreter.minimal_parser.native_functions.*;
+
+/**
+ * A call of one of the builtins `+`, `-`, `*` or `/` with two arguments,
+ * computed on unboxed operands while their types allow (see
+ * `NumericNode`): operands which are arithmetic nodes too pass their value
+ * with `executeLong` or `executeDouble`, and only the result of the
+ * outermost node is boxed. Integer arithmetic which overflows, or a
+ * division with a remainder, leaves the long path for `Numbers`.
+ *
+ * The builtin is a global, which a program can redefine. Each execution
+ * checks that the function read is still the builtin seen at compile
+ * time; if not, it runs the call as written, from then on.
+ */
+final class ArithmeticNode extends NumericNode {
+
+	enum Operator {
+		ADD, SUBTRACT, MULTIPLY, DIVIDE;
+
+		/**
+		 * The operator of the builtin, or null if the function is not one.
+		 */
+		static Operator of(Object function) {
+			if (function instanceof AddNativeFunction) return ADD;
+			if (function instanceof SubtractNativeFunction) return SUBTRACT;
+			if (function instanceof MultiplyNativeFunction) return MULTIPLY;
+			if (function instanceof DivideNativeFunction) return DIVIDE;
+			return null;
+		}
+
+		/**
+		 * The exact result, or `ArithmeticException` if it is not a long.
+		 */
+		long apply(long a, long b) {
+			switch (this) {
+			case ADD: return Math.addExact(a, b);
+			case SUBTRACT: return Math.subtractExact(a, b);
+			case MULTIPLY: return Math.multiplyExact(a, b);
+			default:
+				if (b == 0 || a % b != 0 || (a == Long.MIN_VALUE && b == -1)) throw new ArithmeticException();
+				return a / b;
+			}
+		}
+
+		double apply(double a, double b) {
+			switch (this) {
+			case ADD: return a + b;
+			case SUBTRACT: return a - b;
+			case MULTIPLY: return a * b;
+			default: return a / b;
+			}
+		}
+
+		Number apply(Object a, Object b) {
+			switch (this) {
+			case ADD: return Numbers.add(a, b);
+			case SUBTRACT: return Numbers.subtract(a, b);
+			case MULTIPLY: return Numbers.multiply(a, b);
+			default: return Numbers.divide(a, b);
+			}
+		}
+	}
+
+	final Operator operator;
+	final LispyNativeFunction builtin;
+	/** The call, for when the function is no longer the builtin. */
+	final CallNode call;
+	/** Whether the function was found not to be the builtin. */
+	boolean rebound;
+
+	ArithmeticNode(Operator operator, LispyNativeFunction builtin, CallNode call) {
+		super(call.arguments[0], call.arguments[1]);
+		this.operator = operator;
+		this.builtin = builtin;
+		this.call = call;
+	}
+
+	@Override
+	public Object execute(Object[] frame) {
+		if (rebound || call.function.execute(frame) != builtin) {
+			rebound = true;
+			return call.execute(frame);
+		}
+		try {
+			switch (state) {
+			case LONG: return longs(frame);
+			case DOUBLE: return doubles(frame);
+			}
+		} catch (UnexpectedResultException e) {
+			return e.value;
+		}
+		var a = left.execute(frame);
+		var b = right.execute(frame);
+		specialize(a, b);
+		return operator.apply(a, b);
+	}
+
+	@Override
+	long executeLong(Object[] frame) throws UnexpectedResultException {
+		if (state != LONG || rebound || call.function.execute(frame) != builtin) return super.executeLong(frame);
+		return longs(frame);
+	}
+
+	@Override
+	double executeDouble(Object[] frame) throws UnexpectedResultException {
+		if (state != DOUBLE || rebound || call.function.execute(frame) != builtin) return super.executeDouble(frame);
+		return doubles(frame);
+	}
+
+	/**
+	 * The result on long operands. For other operands, or a result which is
+	 * not a long, generalizes the node and throws with the result.
+	 */
+	private long longs(Object[] frame) throws UnexpectedResultException {
+		long a;
+		try {
+			a = left.executeLong(frame);
+		} catch (UnexpectedResultException e) {
+			throw new UnexpectedResultException(generalize(e.value, right.execute(frame)));
+		}
+		long b;
+		try {
+			b = right.executeLong(frame);
+		} catch (UnexpectedResultException e) {
+			throw new UnexpectedResultException(generalize(a, e.value));
+		}
+		try {
+			return operator.apply(a, b);
+		} catch (ArithmeticException e) {
+			throw new UnexpectedResultException(generalize(a, b));
+		}
+	}
+
+	/**
+	 * The result on double operands, like `longs`.
+	 */
+	private double doubles(Object[] frame) throws UnexpectedResultException {
+		double a;
+		try {
+			a = left.executeDouble(frame);
+		} catch (UnexpectedResultException e) {
+			throw new UnexpectedResultException(generalize(e.value, right.execute(frame)));
+		}
+		double b;
+		try {
+			b = right.executeDouble(frame);
+		} catch (UnexpectedResultException e) {
+			throw new UnexpectedResultException(generalize(a, e.value));
+		}
+		return operator.apply(a, b);
+	}
+
+	private Number generalize(Object a, Object b) {
+		state = GENERIC;
+		return operator.apply(a, b);
+	}
+
+}
@@ -0,0 +1,32 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+/**
+ * `(begin ...)`: runs the block in a new frame, which holds the variables
+ * the block defines; with a `frameSize` of 0, in the enclosing frame (see
+ * `Scope.block`).
+ */
+final class BeginNode extends Node {
+
+	final int frameSize;
+	final Node[] body;
+
+	BeginNode(int frameSize, Node[] body) {
+		this.frameSize = frameSize;
+		this.body = body;
+	}
+
+	@Override
+	public Object execute(Object[] frame) {
+		if (frameSize == 0) return executeBlock(body, frame);
+		var blockFrame = new Object[frameSize];
+		blockFrame[0] = frame;
+		return executeBlock(body, blockFrame);
+	}
+
+	static Object executeBlock(Node[] body, Object[] frame) {
+		Object result = null;
+		for (var node : body) result = node.execute(frame);
+		return result;
+	}
+
+}
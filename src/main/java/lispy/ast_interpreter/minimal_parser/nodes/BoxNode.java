@@ -0,0 +1,23 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+import lispy.ast_interpreter.minimal_parser.Box;
+
+/**
+ * The `Box` of a shared variable, for a new closure to capture.
+ */
+final class BoxNode extends Node {
+
+	final int depth;
+	final int slot;
+
+	BoxNode(int depth, int slot) {
+		this.depth = depth;
+		this.slot = slot;
+	}
+
+	@Override
+	public Object execute(Object[] frame) {
+		return Box.at(frameAt(frame, depth), slot);
+	}
+
+}
@@ -0,0 +1,24 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+import lispy.ast_interpreter.minimal_parser.Box;
+
+/**
+ * Reads a variable which closures share (see `Scope`): through the `Box`
+ * at its lexical address.
+ */
+final class BoxedReadNode extends Node {
+
+	final int depth;
+	final int slot;
+
+	BoxedReadNode(int depth, int slot) {
+		this.depth = depth;
+		this.slot = slot;
+	}
+
+	@Override
+	public Object execute(Object[] frame) {
+		return Box.at(frameAt(frame, depth), slot).value;
+	}
+
+}
@@ -0,0 +1,27 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+import lispy.ast_interpreter.minimal_parser.Box;
+
+/**
+ * `var` or `set` of a variable which closures share, through its `Box`.
+ */
+final class BoxedWriteNode extends Node {
+
+	final int depth;
+	final int slot;
+	final Node value;
+
+	BoxedWriteNode(int depth, int slot, Node value) {
+		this.depth = depth;
+		this.slot = slot;
+		this.value = value;
+	}
+
+	@Override
+	public Object execute(Object[] frame) {
+		var result = value.execute(frame);
+		Box.at(frameAt(frame, depth), slot).value = result;
+		return result;
+	}
+
+}
@@ -0,0 +1,184 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import lispy.ast_interpreter.minimal_parser.Environment;
+import lispy.ast_interpreter.minimal_parser.LispyCallable;
+import lispy.ast_interpreter.minimal_parser.LispyNativeFunction;
+
+/**
+ * A call, with an inline cache of the functions called from here.
+ *
+ * The cache is keyed on the callee: the native function, or the lambda of
+ * a closure, whatever frame the closure captured. An entry for a closure
+ * binds a `MethodHandle` which runs it, with the arguments in a new frame,
+ * which is the only allocation of the call. A native is called through
+ * the entry point for the number of arguments (see `LispyNativeFunction`),
+ * which allocates nothing for up to three arguments. The site starts
+ * monomorphic, caches up to `POLYMORPHIC_LIMIT` callees, and then goes
+ * megamorphic: it stops caching, and dispatches on each call.
+ *
+ * A call in tail position does not run a closure: it returns a `TailCall`
+ * with the callee's frame, for `LambdaNode.invoke` to run.
+ */
+final class CallNode extends Node {
+
+	static final int POLYMORPHIC_LIMIT = 4;
+
+	private static final MethodHandle INVOKE_CLOSURE;
+	private static final MethodHandle TAIL_CALL_CLOSURE;
+
+	static {
+		var lookup = MethodHandles.lookup();
+		try {
+			INVOKE_CLOSURE = lookup.findStatic(CallNode.class, "invokeClosure",
+				MethodType.methodType(Object.class, LambdaNode.class, Object.class, Object[].class));
+			TAIL_CALL_CLOSURE = lookup.findStatic(CallNode.class, "tailCallClosure",
+				MethodType.methodType(Object.class, LambdaNode.class, Object.class, Object[].class));
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/**
+	 * A cached callee.
+	 */
+	private static final class Entry {
+		final Object key;
+		/** Length of the argument array: the frame size for a closure. */
+		final int size;
+		/** Index of the first argument in the array: 1 in a frame. */
+		final int offset;
+		/** (callee, arguments) -> result; null for a native. */
+		final MethodHandle handle;
+		final Entry next;
+
+		Entry(Object key, int size, int offset, MethodHandle handle, Entry next) {
+			this.key = key;
+			this.size = size;
+			this.offset = offset;
+			this.handle = handle;
+			this.next = next;
+		}
+	}
+
+	final Environment global;
+	final Node function;
+	final Node[] arguments;
+	/** Whether the call is in tail position in the body of a lambda. */
+	final boolean tail;
+
+	private Entry cache;
+	private int cacheSize;
+
+	CallNode(Environment global, Node function, Node[] arguments, boolean tail) {
+		this.global = global;
+		this.function = function;
+		this.arguments = arguments;
+		this.tail = tail;
+	}
+
+	@Override
+	public Object execute(Object[] frame) {
+		var callee = function.execute(frame);
+		var key = callee instanceof Closure ? ((Closure) callee).lambda : callee;
+
+		for (var entry = cache; entry != null; entry = entry.next) {
+			if (entry.key == key) return execute(callee, entry, frame);
+		}
+
+		if (cacheSize < POLYMORPHIC_LIMIT) {
+			var entry = entry(callee, key);
+			if (entry != null) {
+				cache = entry;
+				cacheSize++;
+				return execute(callee, entry, frame);
+			}
+		}
+		return dispatch(callee, frame);
+	}
+
+	private Object execute(Object callee, Entry entry, Object[] frame) {
+		if (entry.handle == null) return callNative((LispyNativeFunction) callee, frame);
+		var args = new Object[entry.size];
+		for (int i = 0; i < arguments.length; i++) {
+			args[entry.offset + i] = arguments[i].execute(frame);
+		}
+		try {
+			return (Object) entry.handle.invokeExact(callee, args);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * A new cache entry for the callee, or null if it is not cacheable.
+	 */
+	private Entry entry(Object callee, Object key) {
+		if (key instanceof LambdaNode) {
+			var lambda = (LambdaNode) key;
+			// Left to `dispatch` to fail.
+			if (arguments.length != lambda.parameterCount) return null;
+			var handle = (tail ? TAIL_CALL_CLOSURE : INVOKE_CLOSURE).bindTo(lambda);
+			return new Entry(key, lambda.frameSize, 1, handle, cache);
+		}
+		if (key instanceof LispyNativeFunction) {
+			return new Entry(key, arguments.length, 0, null, cache);
+		}
+		return null;
+	}
+
+	private static Object invokeClosure(LambdaNode lambda, Object callee, Object[] frame) {
+		frame[0] = ((Closure) callee).captured;
+		return lambda.invoke(frame);
+	}
+
+	private static Object tailCallClosure(LambdaNode lambda, Object callee, Object[] frame) {
+		frame[0] = ((Closure) callee).captured;
+		return new TailCall(lambda, frame);
+	}
+
+	/**
+	 * The uncached call.
+	 */
+	private Object dispatch(Object callee, Object[] frame) {
+		var callable = (LispyCallable) callee;
+
+		if (!callable.isNative()) {
+			var closure = (Closure) callable;
+			var calleeFrame = closure.newFrame(arguments.length);
+			for (int i = 0; i < arguments.length; i++) {
+				calleeFrame[i + 1] = arguments[i].execute(frame);
+			}
+			if (tail) return new TailCall(closure.lambda, calleeFrame);
+			return closure.lambda.invoke(calleeFrame);
+		}
+
+		return callNative((LispyNativeFunction) callable, frame);
+	}
+
+	private Object callNative(LispyNativeFunction function, Object[] frame) {
+		switch (arguments.length) {
+		case 0:
+			return function.call0(global);
+		case 1:
+			return function.call1(global, arguments[0].execute(frame));
+		case 2:
+			return function.call2(global, arguments[0].execute(frame), arguments[1].execute(frame));
+		case 3:
+			return function.call3(global, arguments[0].execute(frame), arguments[1].execute(frame),
+				arguments[2].execute(frame));
+		default: {
+			var args = new Object[arguments.length];
+			for (int i = 0; i < args.length; i++) {
+				args[i] = arguments[i].execute(frame);
+			}
+			return function.callN(global, args);
+		}
+		}
+	}
+
+}
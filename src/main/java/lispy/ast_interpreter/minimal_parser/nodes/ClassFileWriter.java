@@ -0,0 +1,314 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Just enough of a class file writer for the JIT: a constant pool, fields,
+ * and methods with a `Code` attribute. Classes are written as version 49
+ * (Java 5), which the JVM verifies by type inference, so there are no
+ * stack map frames to compute.
+ */
+final class ClassFileWriter {
+
+	static final int ACC_PUBLIC = 0x0001;
+	static final int ACC_PRIVATE = 0x0002;
+	static final int ACC_FINAL = 0x0010;
+	static final int ACC_SUPER = 0x0020;
+
+	private static final int CONSTANT_Utf8 = 1;
+	private static final int CONSTANT_Integer = 3;
+	private static final int CONSTANT_Class = 7;
+	private static final int CONSTANT_Fieldref = 9;
+	private static final int CONSTANT_Methodref = 10;
+	private static final int CONSTANT_NameAndType = 12;
+
+	private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+	private final DataOutputStream pool = new DataOutputStream(poolBytes);
+	private final Map<String, Integer> poolIndexes = new HashMap<>();
+	private int poolCount = 1;
+
+	private final String name;
+	private final String superName;
+	private final List<byte[]> fields = new ArrayList<>();
+	private final List<byte[]> methods = new ArrayList<>();
+
+	ClassFileWriter(String name, String superName) {
+		this.name = name;
+		this.superName = superName;
+	}
+
+	// -------------------------------------------------------------------------------
+	// constant pool
+
+	int utf8(String value) {
+		return constant("U" + value, out -> {
+			out.writeByte(CONSTANT_Utf8);
+			out.writeUTF(value);
+		});
+	}
+
+	int integer(int value) {
+		return constant("I" + value, out -> {
+			out.writeByte(CONSTANT_Integer);
+			out.writeInt(value);
+		});
+	}
+
+	int classRef(String internalName) {
+		int nameIndex = utf8(internalName);
+		return constant("C" + internalName, out -> {
+			out.writeByte(CONSTANT_Class);
+			out.writeShort(nameIndex);
+		});
+	}
+
+	int fieldRef(String owner, String name, String descriptor) {
+		return memberRef(CONSTANT_Fieldref, owner, name, descriptor);
+	}
+
+	int methodRef(String owner, String name, String descriptor) {
+		return memberRef(CONSTANT_Methodref, owner, name, descriptor);
+	}
+
+	private int memberRef(int tag, String owner, String name, String descriptor) {
+		int classIndex = classRef(owner);
+		int nameIndex = utf8(name);
+		int descriptorIndex = utf8(descriptor);
+		int nameAndType = constant("N" + name + ":" + descriptor, out -> {
+			out.writeByte(CONSTANT_NameAndType);
+			out.writeShort(nameIndex);
+			out.writeShort(descriptorIndex);
+		});
+		return constant(tag + owner + "." + name + ":" + descriptor, out -> {
+			out.writeByte(tag);
+			out.writeShort(classIndex);
+			out.writeShort(nameAndType);
+		});
+	}
+
+	private interface Entry {
+		void write(DataOutputStream out) throws IOException;
+	}
+
+	private int constant(String key, Entry entry) {
+		var index = poolIndexes.get(key);
+		if (index != null) return index;
+		try {
+			entry.write(pool);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		poolIndexes.put(key, poolCount);
+		return poolCount++;
+	}
+
+	// -------------------------------------------------------------------------------
+	// members
+
+	void field(int access, String name, String descriptor) {
+		var bytes = new ByteArrayOutputStream();
+		var out = new DataOutputStream(bytes);
+		try {
+			out.writeShort(access);
+			out.writeShort(utf8(name));
+			out.writeShort(utf8(descriptor));
+			out.writeShort(0);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		fields.add(bytes.toByteArray());
+	}
+
+	void method(int access, String name, String descriptor, Code code) {
+		if (code.length > 65535) throw new IllegalStateException("Method too large");
+		var bytes = new ByteArrayOutputStream();
+		var out = new DataOutputStream(bytes);
+		try {
+			out.writeShort(access);
+			out.writeShort(utf8(name));
+			out.writeShort(utf8(descriptor));
+			out.writeShort(1);
+			out.writeShort(utf8("Code"));
+			out.writeInt(12 + code.length);
+			out.writeShort(code.maxStack);
+			out.writeShort(code.maxLocals);
+			out.writeInt(code.length);
+			out.write(code.bytes, 0, code.length);
+			out.writeShort(0); // exception table
+			out.writeShort(0); // attributes
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		methods.add(bytes.toByteArray());
+	}
+
+	byte[] toByteArray(int access) {
+		int thisIndex = classRef(name);
+		int superIndex = classRef(superName);
+		var bytes = new ByteArrayOutputStream();
+		var out = new DataOutputStream(bytes);
+		try {
+			out.writeInt(0xCAFEBABE);
+			out.writeShort(0);
+			out.writeShort(49);
+			out.writeShort(poolCount);
+			out.write(poolBytes.toByteArray());
+			out.writeShort(access);
+			out.writeShort(thisIndex);
+			out.writeShort(superIndex);
+			out.writeShort(0); // interfaces
+			out.writeShort(fields.size());
+			for (var field : fields) out.write(field);
+			out.writeShort(methods.size());
+			for (var method : methods) out.write(method);
+			out.writeShort(0); // attributes
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	// -------------------------------------------------------------------------------
+
+	/**
+	 * The code of a method, with the operand stack depth tracked by the
+	 * caller through `stack(delta)`.
+	 */
+	static final class Code {
+
+		static final int ACONST_NULL = 0x01;
+		static final int ICONST_0 = 0x03;
+		static final int LCONST_0 = 0x09;
+		static final int BIPUSH = 0x10;
+		static final int SIPUSH = 0x11;
+		static final int LDC_W = 0x13;
+		static final int LLOAD = 0x16;
+		static final int ALOAD = 0x19;
+		static final int AALOAD = 0x32;
+		static final int LSTORE = 0x37;
+		static final int ASTORE = 0x3a;
+		static final int AASTORE = 0x53;
+		static final int POP = 0x57;
+		static final int DUP = 0x59;
+		static final int LADD = 0x61;
+		static final int LSUB = 0x65;
+		static final int LMUL = 0x69;
+		static final int LSHR = 0x7b;
+		static final int LAND = 0x7f;
+		static final int LXOR = 0x83;
+		static final int LCMP = 0x94;
+		static final int IFEQ = 0x99;
+		static final int IFNE = 0x9a;
+		static final int IFLT = 0x9b;
+		static final int IFGE = 0x9c;
+		static final int IFLE = 0x9e;
+		static final int IF_ACMPNE = 0xa6;
+		static final int GOTO = 0xa7;
+		static final int ARETURN = 0xb0;
+		static final int RETURN = 0xb1;
+		static final int GETSTATIC = 0xb2;
+		static final int GETFIELD = 0xb4;
+		static final int PUTFIELD = 0xb5;
+		static final int INVOKEVIRTUAL = 0xb6;
+		static final int INVOKESPECIAL = 0xb7;
+		static final int INVOKESTATIC = 0xb8;
+		static final int ANEWARRAY = 0xbd;
+		static final int CHECKCAST = 0xc0;
+		static final int INSTANCEOF = 0xc1;
+
+		private byte[] bytes = new byte[256];
+		int length;
+		int maxStack;
+		int maxLocals;
+		private int stack;
+
+		void op(int opcode) {
+			u1(opcode);
+		}
+
+		void op(int opcode, int u2) {
+			u1(opcode);
+			u2(u2);
+		}
+
+		void local(int opcode, int index) {
+			if (index > 255) throw new IllegalStateException("Too many locals");
+			u1(opcode);
+			u1(index);
+			// A long takes two slots.
+			maxLocals = Math.max(maxLocals, index + (opcode == LLOAD || opcode == LSTORE ? 2 : 1));
+		}
+
+		void pushInt(ClassFileWriter cf, int value) {
+			if (value >= -1 && value <= 5) op(ICONST_0 + value);
+			else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+				u1(BIPUSH);
+				u1(value);
+			}
+			else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) op(SIPUSH, value);
+			else op(LDC_W, cf.integer(value));
+		}
+
+		/**
+		 * Emits a branch to a label not placed yet; returns the position
+		 * to `place` later.
+		 */
+		int jump(int opcode) {
+			u1(opcode);
+			u2(0);
+			return length - 3;
+		}
+
+		/**
+		 * Points the branch at `jump` to the current position.
+		 */
+		void place(int jump) {
+			patch(jump, length);
+		}
+
+		void jump(int opcode, int target) {
+			u1(opcode);
+			u2(0);
+			patch(length - 3, target);
+		}
+
+		private void patch(int jump, int target) {
+			int offset = target - jump;
+			if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) throw new IllegalStateException("Method too large");
+			bytes[jump + 1] = (byte) (offset >> 8);
+			bytes[jump + 2] = (byte) offset;
+		}
+
+		int stack() {
+			return stack;
+		}
+
+		void stack(int delta) {
+			stack += delta;
+			maxStack = Math.max(maxStack, stack);
+		}
+
+		void resetStack(int depth) {
+			stack = depth;
+		}
+
+		private void u1(int value) {
+			if (length == bytes.length) bytes = Arrays.copyOf(bytes, length * 2);
+			bytes[length++] = (byte) value;
+		}
+
+		private void u2(int value) {
+			u1(value >> 8);
+			u1(value);
+		}
+	}
+
+}
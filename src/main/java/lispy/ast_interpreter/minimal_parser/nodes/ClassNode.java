@@ -0,0 +1,35 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+import lispy.ast_interpreter.minimal_parser.Environment;
+import lispy.ast_interpreter.minimal_parser.LispyClass;
+
+/**
+ * `(class Name parent (begin members...))`, without the binding of the
+ * name: evaluates to the class (a `LispyClass` environment), in which the
+ * members are defined. Its parent is the parent class; a class without one (`none`)
+ * gets a root environment, and its members see the variables around the
+ * class lexically instead (see `DynamicReadNode`).
+ *
+ * The members run in a frame whose slot 1 is the class environment.
+ */
+final class ClassNode extends Node {
+
+	final String name;
+	final Node parent;
+	final Node[] body;
+
+	ClassNode(String name, Node parent, Node[] body) {
+		this.name = name;
+		this.parent = parent;
+		this.body = body;
+	}
+
+	@Override
+	public Object execute(Object[] frame) {
+		var parentEnv = (Environment) parent.execute(frame);
+		var classEnv = new LispyClass(name, parentEnv);
+		BeginNode.executeBlock(body, new Object[] { frame, classEnv });
+		return classEnv;
+	}
+
+}
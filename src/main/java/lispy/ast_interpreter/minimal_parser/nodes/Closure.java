@@ -0,0 +1,50 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+import lispy.ast_interpreter.minimal_parser.LispyCallable;
+
+/**
+ * User-defined function of the node engine: the compiled lambda, and the
+ * variables it captured, from slot 1 on (null if none), which the frame
+ * of a call links to in slot 0.
+ */
+final class Closure implements LispyCallable {
+
+	final LambdaNode lambda;
+	final Object[] captured;
+
+	Closure(LambdaNode lambda, Object[] captured) {
+		this.lambda = lambda;
+		this.captured = captured;
+	}
+
+	/**
+	 * A frame for a call with `argumentCount` arguments, to be stored from
+	 * slot 1 on; the count must be the number of parameters.
+	 */
+	Object[] newFrame(int argumentCount) {
+		if (argumentCount != lambda.parameterCount) {
+			throw new IllegalArgumentException(this + ": " + argumentCount
+				+ " arguments for " + lambda.parameterCount + " parameters");
+		}
+		var calleeFrame = new Object[lambda.frameSize];
+		calleeFrame[0] = captured;
+		return calleeFrame;
+	}
+
+	Object call(Object[] args) {
+		var calleeFrame = newFrame(args.length);
+		System.arraycopy(args, 0, calleeFrame, 1, args.length);
+		return lambda.invoke(calleeFrame);
+	}
+
+	@Override
+	public boolean isNative() {
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return "<<Function>> " + (lambda.name != null ? lambda.name : "lambda");
+	}
+
+}
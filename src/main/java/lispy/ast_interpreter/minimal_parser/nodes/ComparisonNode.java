@@ -0,0 +1,65 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+/**
+ * `<` or `>`, computed on unboxed operands while their types allow (see
+ * `NumericNode`).
+ */
+abstract class ComparisonNode extends NumericNode {
+
+	ComparisonNode(Node left, Node right) {
+		super(left, right);
+	}
+
+	abstract boolean compare(long a, long b);
+
+	abstract boolean compare(double a, double b);
+
+	abstract boolean compare(Object a, Object b);
+
+	@Override
+	public Object execute(Object[] frame) {
+		return executeBoolean(frame);
+	}
+
+	@Override
+	public boolean executeBoolean(Object[] frame) {
+		switch (state) {
+		case LONG: {
+			long a;
+			try {
+				a = left.executeLong(frame);
+			} catch (UnexpectedResultException e) {
+				return generalize(e.value, right.execute(frame));
+			}
+			try {
+				return compare(a, right.executeLong(frame));
+			} catch (UnexpectedResultException e) {
+				return generalize(a, e.value);
+			}
+		}
+		case DOUBLE: {
+			double a;
+			try {
+				a = left.executeDouble(frame);
+			} catch (UnexpectedResultException e) {
+				return generalize(e.value, right.execute(frame));
+			}
+			try {
+				return compare(a, right.executeDouble(frame));
+			} catch (UnexpectedResultException e) {
+				return generalize(a, e.value);
+			}
+		}
+		}
+		var a = left.execute(frame);
+		var b = right.execute(frame);
+		specialize(a, b);
+		return compare(a, b);
+	}
+
+	private boolean generalize(Object a, Object b) {
+		state = GENERIC;
+		return compare(a, b);
+	}
+
+}
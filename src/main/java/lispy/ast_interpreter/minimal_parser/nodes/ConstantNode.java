@@ -0,0 +1,16 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+final class ConstantNode extends Node {
+
+	final Object value;
+
+	ConstantNode(Object value) {
+		this.value = value;
+	}
+
+	@Override
+	public Object execute(Object[] frame) {
+		return value;
+	}
+
+}
@@ -0,0 +1,38 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+import lispy.ast_interpreter.minimal_parser.Environment;
+import lispy.ast_interpreter.minimal_parser.Symbol;
+
+/**
+ * Reads a variable from inside a class body. Class members live in the
+ * class environment (slot 1 of the class body frame, `depth` levels up, or
+ * the `slot` where a closure captured it), which chains to the parent
+ * classes; names which are not members resolve lexically around the
+ * class, through `outer`.
+ */
+final class DynamicReadNode extends Node {
+
+	final int depth;
+	final int slot;
+	final Symbol name;
+	final Node outer;
+
+	DynamicReadNode(int depth, int slot, Symbol name, Node outer) {
+		this.depth = depth;
+		this.slot = slot;
+		this.name = name;
+		this.outer = outer;
+	}
+
+	@Override
+	public Object execute(Object[] frame) {
+		var env = ((Environment) frameAt(frame, depth)[slot]).find(name);
+		if (env == null) return outer.execute(frame);
+		try {
+			return env.lookup(name);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,40 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+import lispy.ast_interpreter.minimal_parser.Environment;
+import lispy.ast_interpreter.minimal_parser.Symbol;
+
+/**
+ * `var` directly in a class body, which defines a member in the class
+ * environment; or `set` from inside a class body, which assigns a member
+ * if there is one, and otherwise goes to `outer`, like `DynamicReadNode`.
+ */
+final class DynamicWriteNode extends Node {
+
+	final int depth;
+	final int slot;
+	final Symbol name;
+	final Node value;
+	final Node outer;
+
+	/**
+	 * @param outer the assignment around the class, or null to define
+	 */
+	DynamicWriteNode(int depth, int slot, Symbol name, Node value, Node outer) {
+		this.depth = depth;
+		this.slot = slot;
+		this.name = name;
+		this.value = value;
+		this.outer = outer;
+	}
+
+	@Override
+	public Object execute(Object[] frame) {
+		var classEnv = (Environment) frameAt(frame, depth)[slot];
+		if (outer == null) return classEnv.define(name, value.execute(frame));
+
+		var env = classEnv.find(name);
+		if (env == null) return outer.execute(frame);
+		return env.define(name, value.execute(frame));
+	}
+
+}
@@ -0,0 +1,50 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+import java.lang.invoke.SwitchPoint;
+import lispy.ast_interpreter.minimal_parser.Environment;
+import lispy.ast_interpreter.minimal_parser.Symbol;
+
+/**
+ * Reads a variable which is not lexically bound: a builtin, or a variable
+ * defined at the top level, in the global environment.
+ *
+ * The value is cached until the binding changes (see `Environment.watch`),
+ * so reading a function or a builtin does not look it up each time. A
+ * binding which keeps changing, like a global counter, is no longer
+ * cached after `MAX_INVALIDATIONS` changes.
+ */
+final class GlobalReadNode extends Node {
+
+	static final int MAX_INVALIDATIONS = 8;
+
+	final Environment global;
+	final Symbol name;
+
+	private Object cachedValue;
+	private SwitchPoint cachedWatch;
+	private int invalidations;
+
+	GlobalReadNode(Environment global, Symbol name) {
+		this.global = global;
+		this.name = name;
+	}
+
+	@Override
+	public Object execute(Object[] frame) {
+		var watch = cachedWatch;
+		if (watch != null && !watch.hasBeenInvalidated()) return cachedValue;
+
+		Object value;
+		try {
+			value = global.lookup(name);
+		} catch (IllegalAccessException e) {
+			throw new Error(name + ": variable not defined/found in env=" + global);
+		}
+		if (watch == null || ++invalidations < MAX_INVALIDATIONS) {
+			cachedWatch = global.watch(name);
+			cachedValue = value;
+		}
+		return value;
+	}
+
+}
@@ -0,0 +1,31 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+import lispy.ast_interpreter.minimal_parser.Environment;
+import lispy.ast_interpreter.minimal_parser.Symbol;
+
+/**
+ * `var` at the top level, or `set` of a variable which is not lexically
+ * bound, in the global environment.
+ */
+final class GlobalWriteNode extends Node {
+
+	final Environment global;
+	final Symbol name;
+	final Node value;
+	final boolean define;
+
+	GlobalWriteNode(Environment global, Symbol name, Node value, boolean define) {
+		this.global = global;
+		this.name = name;
+		this.value = value;
+		this.define = define;
+	}
+
+	@Override
+	public Object execute(Object[] frame) {
+		var result = value.execute(frame);
+		if (define) return global.define(name, result);
+		return global.assign(name, result);
+	}
+
+}
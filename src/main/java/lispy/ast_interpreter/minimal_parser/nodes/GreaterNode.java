@@ -0,0 +1,26 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+import lispy.ast_interpreter.minimal_parser.Numbers;
+
+final class GreaterNode extends ComparisonNode {
+
+	GreaterNode(Node left, Node right) {
+		super(left, right);
+	}
+
+	@Override
+	boolean compare(long a, long b) {
+		return a > b;
+	}
+
+	@Override
+	boolean compare(double a, double b) {
+		return a > b;
+	}
+
+	@Override
+	boolean compare(Object a, Object b) {
+		return Numbers.greater(a, b);
+	}
+
+}
@@ -0,0 +1,21 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+final class IfNode extends Node {
+
+	final Node condition;
+	final Node thenBranch;
+	final Node elseBranch;
+
+	IfNode(Node condition, Node thenBranch, Node elseBranch) {
+		this.condition = condition;
+		this.thenBranch = thenBranch;
+		this.elseBranch = elseBranch;
+	}
+
+	@Override
+	public Object execute(Object[] frame) {
+		if (condition.executeBoolean(frame)) return thenBranch.execute(frame);
+		else return elseBranch.execute(frame);
+	}
+
+}
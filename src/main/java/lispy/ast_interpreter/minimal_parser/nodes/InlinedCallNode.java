@@ -0,0 +1,54 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+/**
+ * A call with the body of the function inlined (see `InlinedCallExp`): runs
+ * the body while the function read is still the one inlined; else the
+ * call, from then on. The body passes primitive values through, so an
+ * inlined arithmetic body stays unboxed in an arithmetic expression.
+ */
+final class InlinedCallNode extends Node {
+
+	final Node function;
+	final Object expected;
+	final Node body;
+	final Node call;
+	/** Whether the function was found not to be the one inlined. */
+	boolean rebound;
+
+	InlinedCallNode(Node function, Object expected, Node body, Node call) {
+		this.function = function;
+		this.expected = expected;
+		this.body = body;
+		this.call = call;
+	}
+
+	@Override
+	public Object execute(Object[] frame) {
+		if (rebound(frame)) return call.execute(frame);
+		return body.execute(frame);
+	}
+
+	@Override
+	long executeLong(Object[] frame) throws UnexpectedResultException {
+		if (rebound(frame)) return call.executeLong(frame);
+		return body.executeLong(frame);
+	}
+
+	@Override
+	double executeDouble(Object[] frame) throws UnexpectedResultException {
+		if (rebound(frame)) return call.executeDouble(frame);
+		return body.executeDouble(frame);
+	}
+
+	@Override
+	public boolean executeBoolean(Object[] frame) {
+		if (rebound(frame)) return call.executeBoolean(frame);
+		return body.executeBoolean(frame);
+	}
+
+	private boolean rebound(Object[] frame) {
+		if (!rebound && function.execute(frame) != expected) rebound = true;
+		return rebound;
+	}
+
+}
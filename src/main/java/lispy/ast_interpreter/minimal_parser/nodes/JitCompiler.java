@@ -0,0 +1,694 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+import static lispy.ast_interpreter.minimal_parser.nodes.ClassFileWriter.Code.*;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles the body of a hot function, or a hot loop, to JVM bytecode, in
+ * a hidden class extending `Node`, so that HotSpot compiles and inlines it
+ * like Java code.
+ *
+ * Frames stay `Object[]`s, for the closures and the nodes which share
+ * them. Control flow, frame accesses, arithmetic, comparisons and calls
+ * are compiled inline, arithmetic and comparisons as calls of `Numbers`,
+ * which HotSpot inlines and specializes on the types it profiles; any
+ * other node is kept, and called from the compiled code with the current
+ * frame. The generated class holds the kept nodes, and the constants, in
+ * its final field `k`, which HotSpot trusts for hidden classes.
+ *
+ * The code speculates on what the nodes have seen so far (see `Tier`): an
+ * arithmetic builtin or an inlined function is assumed to be still bound,
+ * and a numeric node specialized on longs computes on longs inline. Each
+ * assumption is checked; where it fails, the code calls `JitRuntime` to
+ * deoptimize, and runs the generic path.
+ */
+final class JitCompiler {
+
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+	private static final String NODE = "lispy/ast_interpreter/minimal_parser/nodes/Node";
+	private static final String RUNTIME = "lispy/ast_interpreter/minimal_parser/nodes/JitRuntime";
+	private static final String NUMBERS = "lispy/ast_interpreter/minimal_parser/Numbers";
+	private static final String BOX = "lispy/ast_interpreter/minimal_parser/Box";
+	private static final String CLOSURE = "lispy/ast_interpreter/minimal_parser/nodes/Closure";
+	private static final String LAMBDA = "lispy/ast_interpreter/minimal_parser/nodes/LambdaNode";
+	private static final String CLASS_NAME = "lispy/ast_interpreter/minimal_parser/nodes/Compiled";
+	private static final String OBJECTS = "[Ljava/lang/Object;";
+	private static final String EXECUTE = "([Ljava/lang/Object;)Ljava/lang/Object;";
+
+	private final ClassFileWriter cf = new ClassFileWriter(CLASS_NAME, NODE);
+	private final ClassFileWriter.Code code = new ClassFileWriter.Code();
+	private final List<Object> constants = new ArrayList<>();
+	private final Map<Object, Integer> constantIndexes = new IdentityHashMap<>();
+	/** The tier which the code deoptimizes. */
+	private final Tier tier;
+	private int locals = 2; // this, frame
+	/** The three long locals of the numeric nodes, once allocated. */
+	private int longs = -1;
+
+	private JitCompiler(Tier tier) {
+		this.tier = tier;
+	}
+
+	/**
+	 * The compiled body of the lambda, or null if it cannot be compiled.
+	 */
+	static Node compile(LambdaNode lambda) {
+		try {
+			var compiler = new JitCompiler(lambda.tier);
+			compiler.node(lambda.body, 1);
+			return compiler.define();
+		} catch (IllegalStateException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * The compiled loop, or null if it cannot be compiled. Its value is
+	 * `WhileNode.NO_ITERATION` if it does not iterate, so that the loop can
+	 * move on to it between two iterations.
+	 */
+	static Node compile(WhileNode loop) {
+		try {
+			var compiler = new JitCompiler(loop.tier);
+			compiler.loop(loop, 1, WhileNode.NO_ITERATION);
+			return compiler.define();
+		} catch (IllegalStateException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Defines the class of the code emitted, and returns its instance.
+	 */
+	private Node define() {
+		code.op(ARETURN);
+
+		var constructor = new ClassFileWriter.Code();
+		constructor.local(ALOAD, 0);
+		constructor.op(INVOKESPECIAL, cf.methodRef(NODE, "<init>", "()V"));
+		constructor.local(ALOAD, 0);
+		constructor.local(ALOAD, 1);
+		constructor.op(PUTFIELD, cf.fieldRef(CLASS_NAME, "k", OBJECTS));
+		constructor.op(RETURN);
+		constructor.maxStack = 2;
+
+		cf.field(ClassFileWriter.ACC_PRIVATE | ClassFileWriter.ACC_FINAL, "k", OBJECTS);
+		cf.method(ClassFileWriter.ACC_PUBLIC, "<init>", "([Ljava/lang/Object;)V", constructor);
+		cf.method(ClassFileWriter.ACC_PUBLIC, "execute", EXECUTE, code);
+		var bytes = cf.toByteArray(ClassFileWriter.ACC_PUBLIC | ClassFileWriter.ACC_FINAL | ClassFileWriter.ACC_SUPER);
+
+		try {
+			var lookup = LOOKUP.defineHiddenClass(bytes, true);
+			var newInstance = lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class, Object[].class));
+			return (Node) newInstance.invoke(constants.toArray());
+		} catch (Throwable e) {
+			throw new IllegalStateException("JIT failed", e);
+		}
+	}
+
+	/**
+	 * Emits code which pushes the value of the node, running in the frame
+	 * held by local variable `frame`.
+	 */
+	private void node(Node node, int frame) {
+		if (node instanceof ConstantNode && ((ConstantNode) node).value == null) {
+			code.op(ACONST_NULL);
+			code.stack(1);
+		}
+
+		else if (node instanceof ConstantNode) {
+			constant(((ConstantNode) node).value);
+		}
+
+		else if (node instanceof LocalReadNode) {
+			var read = (LocalReadNode) node;
+			frameAt(frame, read.depth);
+			code.pushInt(cf, read.slot);
+			code.stack(1);
+			code.op(AALOAD);
+			code.stack(-1);
+		}
+
+		else if (node instanceof LocalWriteNode) {
+			var write = (LocalWriteNode) node;
+			node(write.value, frame);
+			int value = locals++;
+			code.local(ASTORE, value);
+			code.stack(-1);
+			frameAt(frame, write.depth);
+			code.pushInt(cf, write.slot);
+			code.stack(1);
+			code.local(ALOAD, value);
+			code.stack(1);
+			code.op(AASTORE);
+			code.stack(-3);
+			code.local(ALOAD, value);
+			code.stack(1);
+		}
+
+		else if (node instanceof BoxedReadNode) {
+			var read = (BoxedReadNode) node;
+			box(frame, read.depth, read.slot);
+			code.op(GETFIELD, cf.fieldRef(BOX, "value", "Ljava/lang/Object;"));
+		}
+
+		else if (node instanceof BoxedWriteNode) {
+			var write = (BoxedWriteNode) node;
+			node(write.value, frame);
+			int value = locals++;
+			code.local(ASTORE, value);
+			code.stack(-1);
+			box(frame, write.depth, write.slot);
+			code.local(ALOAD, value);
+			code.stack(1);
+			code.op(PUTFIELD, cf.fieldRef(BOX, "value", "Ljava/lang/Object;"));
+			code.stack(-2);
+			code.local(ALOAD, value);
+			code.stack(1);
+		}
+
+		else if (node instanceof BeginNode && ((BeginNode) node).frameSize == 0) {
+			block(((BeginNode) node).body, frame);
+		}
+
+		else if (node instanceof BeginNode) {
+			var begin = (BeginNode) node;
+			int blockFrame = locals++;
+			code.pushInt(cf, begin.frameSize);
+			code.stack(1);
+			code.op(ANEWARRAY, cf.classRef("java/lang/Object"));
+			code.op(DUP);
+			code.stack(1);
+			code.op(ICONST_0);
+			code.stack(1);
+			code.local(ALOAD, frame);
+			code.stack(1);
+			code.op(AASTORE);
+			code.stack(-3);
+			code.local(ASTORE, blockFrame);
+			code.stack(-1);
+			block(begin.body, blockFrame);
+		}
+
+		else if (node instanceof IfNode) {
+			var ifNode = (IfNode) node;
+			condition(ifNode.condition, frame);
+			int toElse = code.jump(IFEQ);
+			code.stack(-1);
+			int depth = code.stack();
+			node(ifNode.thenBranch, frame);
+			int toEnd = code.jump(GOTO);
+			code.place(toElse);
+			code.resetStack(depth);
+			node(ifNode.elseBranch, frame);
+			code.place(toEnd);
+		}
+
+		else if (node instanceof WhileNode) {
+			loop((WhileNode) node, frame, null);
+		}
+
+		else if (node instanceof ComparisonNode) {
+			compare((ComparisonNode) node, frame);
+			code.op(INVOKESTATIC, cf.methodRef("java/lang/Boolean", "valueOf", "(Z)Ljava/lang/Boolean;"));
+		}
+
+		else if (node instanceof ArithmeticNode) {
+			arithmetic((ArithmeticNode) node, frame);
+		}
+
+		else if (node instanceof CallNode) {
+			call((CallNode) node, frame);
+		}
+
+		else if (node instanceof InlinedCallNode) {
+			inlined((InlinedCallNode) node, frame);
+		}
+
+		else {
+			// Left to the interpreter.
+			constant(node);
+			code.op(CHECKCAST, cf.classRef(NODE));
+			code.local(ALOAD, frame);
+			code.stack(1);
+			code.op(INVOKEVIRTUAL, cf.methodRef(NODE, "execute", EXECUTE));
+			code.stack(-1);
+		}
+	}
+
+	/**
+	 * Pushes the value of the loop: of the body on the last iteration, else
+	 * `initial`.
+	 */
+	private void loop(WhileNode node, int frame, Object initial) {
+		int result = locals++;
+		if (initial == null) {
+			code.op(ACONST_NULL);
+			code.stack(1);
+		}
+		else constant(initial);
+		code.local(ASTORE, result);
+		code.stack(-1);
+		int loop = code.length;
+		condition(node.condition, frame);
+		int toEnd = code.jump(IFEQ);
+		code.stack(-1);
+		node(node.body, frame);
+		code.local(ASTORE, result);
+		code.stack(-1);
+		code.jump(GOTO, loop);
+		code.place(toEnd);
+		code.local(ALOAD, result);
+		code.stack(1);
+	}
+
+	/**
+	 * A call of a closure evaluates the arguments into the callee's frame,
+	 * as `CallNode` does; a native gets them through the entry point for
+	 * their number, as parameters up to three. A closure called in tail
+	 * position is returned as a `TailCall`.
+	 */
+	private void call(CallNode call, int frame) {
+		int argc = call.arguments.length;
+		int function = locals++;
+		node(call.function, frame);
+		code.local(ASTORE, function);
+		code.stack(-1);
+
+		code.local(ALOAD, function);
+		code.stack(1);
+		code.op(INSTANCEOF, cf.classRef(CLOSURE));
+		int toNative = code.jump(IFEQ);
+		code.stack(-1);
+		int depth = code.stack();
+
+		int calleeFrame = locals++;
+		code.local(ALOAD, function);
+		code.stack(1);
+		code.op(CHECKCAST, cf.classRef(CLOSURE));
+		code.pushInt(cf, argc);
+		code.stack(1);
+		code.op(INVOKEVIRTUAL, cf.methodRef(CLOSURE, "newFrame", "(I)[Ljava/lang/Object;"));
+		code.stack(-1);
+		code.local(ASTORE, calleeFrame);
+		code.stack(-1);
+		for (int i = 0; i < argc; i++) {
+			code.local(ALOAD, calleeFrame);
+			code.stack(1);
+			code.pushInt(cf, i + 1);
+			code.stack(1);
+			node(call.arguments[i], frame);
+			code.op(AASTORE);
+			code.stack(-3);
+		}
+		code.local(ALOAD, function);
+		code.stack(1);
+		code.op(CHECKCAST, cf.classRef(CLOSURE));
+		code.op(GETFIELD, cf.fieldRef(CLOSURE, "lambda", "L" + LAMBDA + ";"));
+		code.local(ALOAD, calleeFrame);
+		code.stack(1);
+		if (call.tail) {
+			code.op(INVOKESTATIC, cf.methodRef(RUNTIME, "tailCall", "(L" + LAMBDA + ";" + EXECUTE.substring(1)));
+		} else {
+			code.op(INVOKEVIRTUAL, cf.methodRef(LAMBDA, "invoke", EXECUTE));
+		}
+		code.stack(-1);
+		int toEnd = code.jump(GOTO);
+
+		code.place(toNative);
+		code.resetStack(depth);
+		code.local(ALOAD, function);
+		code.stack(1);
+		String arguments;
+		if (argc <= 3) {
+			// The arguments as they are, for the entry point of their number.
+			for (int i = 0; i < argc; i++) node(call.arguments[i], frame);
+			arguments = "Ljava/lang/Object;".repeat(argc);
+		}
+		else {
+			code.pushInt(cf, argc);
+			code.stack(1);
+			code.op(ANEWARRAY, cf.classRef("java/lang/Object"));
+			for (int i = 0; i < argc; i++) {
+				code.op(DUP);
+				code.stack(1);
+				code.pushInt(cf, i);
+				code.stack(1);
+				node(call.arguments[i], frame);
+				code.op(AASTORE);
+				code.stack(-3);
+			}
+			arguments = "[Ljava/lang/Object;";
+		}
+		constant(call.global);
+		code.op(CHECKCAST, cf.classRef("lispy/ast_interpreter/minimal_parser/Environment"));
+		code.op(INVOKESTATIC, cf.methodRef(RUNTIME, "call" + (argc <= 3 ? argc : "N"),
+			"(Ljava/lang/Object;" + arguments + "Llispy/ast_interpreter/minimal_parser/Environment;)Ljava/lang/Object;"));
+		code.stack(-(argc <= 3 ? argc + 1 : 2));
+		code.place(toEnd);
+	}
+
+	private void block(Node[] body, int frame) {
+		if (body.length == 0) {
+			code.op(ACONST_NULL);
+			code.stack(1);
+		}
+		for (int i = 0; i < body.length; i++) {
+			if (i > 0) {
+				code.op(POP);
+				code.stack(-1);
+			}
+			node(body[i], frame);
+		}
+	}
+
+	/**
+	 * Pushes the condition as an int, 0 for false.
+	 */
+	private void condition(Node node, int frame) {
+		if (node instanceof ComparisonNode) {
+			compare((ComparisonNode) node, frame);
+			return;
+		}
+		node(node, frame);
+		code.op(CHECKCAST, cf.classRef("java/lang/Boolean"));
+		code.op(INVOKEVIRTUAL, cf.methodRef("java/lang/Boolean", "booleanValue", "()Z"));
+	}
+
+	/**
+	 * Pushes the comparison as an int, 0 for false.
+	 */
+	private void compare(ComparisonNode node, int frame) {
+		var name = node instanceof LessNode ? "less" : "greater";
+		if (node.state != NumericNode.LONG) {
+			node(node.left, frame);
+			node(node.right, frame);
+			code.op(INVOKESTATIC, cf.methodRef(NUMBERS, name, "(Ljava/lang/Object;Ljava/lang/Object;)Z"));
+			code.stack(-1);
+			return;
+		}
+
+		int a = locals++;
+		int b = locals++;
+		int depth = code.stack();
+		int[] toGeneric = operands(node, frame, a, b);
+		unbox(a);
+		unbox(b);
+		code.op(LCMP);
+		code.stack(-3);
+		int toFalse = code.jump(node instanceof LessNode ? IFGE : IFLE);
+		code.stack(-1);
+		code.pushInt(cf, 1);
+		code.stack(1);
+		int toEnd = code.jump(GOTO);
+		code.place(toFalse);
+		code.resetStack(depth);
+		code.pushInt(cf, 0);
+		code.stack(1);
+		int toEnd2 = code.jump(GOTO);
+
+		generic(toGeneric, depth, node, "generalize", a, b);
+		code.op(INVOKESTATIC, cf.methodRef(NUMBERS, name, "(Ljava/lang/Object;Ljava/lang/Object;)Z"));
+		code.stack(-1);
+		code.place(toEnd);
+		code.place(toEnd2);
+	}
+
+	/**
+	 * Pushes the result of the builtin, once the function read is checked
+	 * to be the builtin; else deoptimizes, and runs the call.
+	 */
+	private void arithmetic(ArithmeticNode node, int frame) {
+		if (node.rebound) {
+			call(node.call, frame);
+			return;
+		}
+		node(node.call.function, frame);
+		constant(node.builtin);
+		int toCall = code.jump(IF_ACMPNE);
+		code.stack(-2);
+		int depth = code.stack();
+
+		var name = node.operator.name().toLowerCase();
+		var descriptor = "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Number;";
+		if (node.state == NumericNode.LONG && node.operator != ArithmeticNode.Operator.DIVIDE) {
+			longs(node, frame);
+		}
+		else {
+			node(node.left, frame);
+			node(node.right, frame);
+			code.op(INVOKESTATIC, cf.methodRef(NUMBERS, name, descriptor));
+			code.stack(-1);
+		}
+		int toEnd = code.jump(GOTO);
+
+		code.place(toCall);
+		code.resetStack(depth);
+		deoptimize(node, "rebound");
+		call(node.call, frame);
+		code.place(toEnd);
+	}
+
+	/**
+	 * Pushes the result of `+`, `-` or `*` computed on longs, and boxed;
+	 * for other operands, or a result which overflows, deoptimizes, and
+	 * pushes the result of `Numbers`.
+	 */
+	private void longs(ArithmeticNode node, int frame) {
+		int a = locals++;
+		int b = locals++;
+		if (longs < 0) {
+			longs = locals;
+			locals += 6;
+		}
+		int x = longs;
+		int y = longs + 2;
+		int r = longs + 4;
+		int depth = code.stack();
+		int[] toGeneric = operands(node, frame, a, b);
+
+		unbox(b);
+		code.local(LSTORE, y);
+		code.stack(-2);
+		unbox(a);
+		code.local(LSTORE, x);
+		code.stack(-2);
+		load(x);
+		load(y);
+		switch (node.operator) {
+		case ADD: code.op(LADD); break;
+		case SUBTRACT: code.op(LSUB); break;
+		default: code.op(LMUL); break;
+		}
+		code.stack(-2);
+		code.local(LSTORE, r);
+		code.stack(-2);
+
+		// The overflow checks of `Numbers`.
+		switch (node.operator) {
+		case ADD:
+			// ((x ^ r) & (y ^ r)) < 0
+			xor(x, r);
+			xor(y, r);
+			code.op(LAND);
+			code.stack(-2);
+			code.op(LCONST_0);
+			code.stack(2);
+			code.op(LCMP);
+			code.stack(-3);
+			toGeneric[2] = code.jump(IFLT);
+			break;
+		case SUBTRACT:
+			// ((x ^ y) & (x ^ r)) < 0
+			xor(x, y);
+			xor(x, r);
+			code.op(LAND);
+			code.stack(-2);
+			code.op(LCONST_0);
+			code.stack(2);
+			code.op(LCMP);
+			code.stack(-3);
+			toGeneric[2] = code.jump(IFLT);
+			break;
+		default:
+			// Math.multiplyHigh(x, y) != r >> 63
+			load(x);
+			load(y);
+			code.op(INVOKESTATIC, cf.methodRef("java/lang/Math", "multiplyHigh", "(JJ)J"));
+			code.stack(-2);
+			load(r);
+			code.pushInt(cf, 63);
+			code.stack(1);
+			code.op(LSHR);
+			code.stack(-1);
+			code.op(LCMP);
+			code.stack(-3);
+			toGeneric[2] = code.jump(IFNE);
+			break;
+		}
+		code.stack(-1);
+
+		load(r);
+		code.op(INVOKESTATIC, cf.methodRef("java/lang/Long", "valueOf", "(J)Ljava/lang/Long;"));
+		code.stack(-1);
+		int toEnd = code.jump(GOTO);
+
+		generic(toGeneric, depth, node, "generalize", a, b);
+		var name = node.operator.name().toLowerCase();
+		code.op(INVOKESTATIC, cf.methodRef(NUMBERS, name, "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Number;"));
+		code.stack(-1);
+		code.place(toEnd);
+	}
+
+	/**
+	 * Stores the operands of the node in locals `a` and `b`, and checks
+	 * that they are `Long`s. Returns the branches taken if not, with a
+	 * third one free for the caller.
+	 */
+	private int[] operands(NumericNode node, int frame, int a, int b) {
+		node(node.left, frame);
+		code.local(ASTORE, a);
+		code.stack(-1);
+		node(node.right, frame);
+		code.local(ASTORE, b);
+		code.stack(-1);
+		var toGeneric = new int[] { -1, -1, -1 };
+		code.local(ALOAD, a);
+		code.stack(1);
+		code.op(INSTANCEOF, cf.classRef("java/lang/Long"));
+		toGeneric[0] = code.jump(IFEQ);
+		code.stack(-1);
+		code.local(ALOAD, b);
+		code.stack(1);
+		code.op(INSTANCEOF, cf.classRef("java/lang/Long"));
+		toGeneric[1] = code.jump(IFEQ);
+		code.stack(-1);
+		return toGeneric;
+	}
+
+	/**
+	 * Places the branches, deoptimizes, and pushes the operands for the
+	 * generic operation.
+	 */
+	private void generic(int[] branches, int depth, Node node, String deoptimization, int a, int b) {
+		for (int branch : branches) {
+			if (branch >= 0) code.place(branch);
+		}
+		code.resetStack(depth);
+		deoptimize(node, deoptimization);
+		code.local(ALOAD, a);
+		code.stack(1);
+		code.local(ALOAD, b);
+		code.stack(1);
+	}
+
+	/**
+	 * Pushes the long value of the `Long` in local `object`.
+	 */
+	private void unbox(int object) {
+		code.local(ALOAD, object);
+		code.stack(1);
+		code.op(CHECKCAST, cf.classRef("java/lang/Long"));
+		code.op(INVOKEVIRTUAL, cf.methodRef("java/lang/Long", "longValue", "()J"));
+		code.stack(1);
+	}
+
+	private void load(int local) {
+		code.local(LLOAD, local);
+		code.stack(2);
+	}
+
+	private void xor(int x, int y) {
+		load(x);
+		load(y);
+		code.op(LXOR);
+		code.stack(-2);
+	}
+
+	/**
+	 * Calls `JitRuntime.<deoptimization>` with the node whose assumption
+	 * failed, the tier and this code.
+	 */
+	private void deoptimize(Node node, String deoptimization) {
+		constant(node);
+		constant(tier);
+		code.local(ALOAD, 0);
+		code.stack(1);
+		code.op(INVOKESTATIC, cf.methodRef(RUNTIME, deoptimization,
+			"(Ljava/lang/Object;Ljava/lang/Object;Ljava/lang/Object;)V"));
+		code.stack(-3);
+	}
+
+	/**
+	 * Pushes the value of the inlined body, once the function read is
+	 * checked to be the one inlined; else deoptimizes, and runs the call.
+	 */
+	private void inlined(InlinedCallNode node, int frame) {
+		if (node.rebound) {
+			node(node.call, frame);
+			return;
+		}
+		node(node.function, frame);
+		constant(node.expected);
+		int toCall = code.jump(IF_ACMPNE);
+		code.stack(-2);
+		int depth = code.stack();
+
+		node(node.body, frame);
+		int toEnd = code.jump(GOTO);
+
+		code.place(toCall);
+		code.resetStack(depth);
+		deoptimize(node, "rebound");
+		node(node.call, frame);
+		code.place(toEnd);
+	}
+
+	/**
+	 * Pushes the `Box` of the shared variable at the address.
+	 */
+	private void box(int frame, int depth, int slot) {
+		frameAt(frame, depth);
+		code.pushInt(cf, slot);
+		code.stack(1);
+		code.op(INVOKESTATIC, cf.methodRef(BOX, "at", "(" + OBJECTS + "I)L" + BOX + ";"));
+		code.stack(-1);
+	}
+
+	private void frameAt(int frame, int depth) {
+		code.local(ALOAD, frame);
+		code.stack(1);
+		for (int i = 0; i < depth; i++) {
+			code.op(ICONST_0);
+			code.stack(1);
+			code.op(AALOAD);
+			code.stack(-1);
+			code.op(CHECKCAST, cf.classRef(OBJECTS));
+		}
+	}
+
+	/**
+	 * Pushes `k[index]`, the constant.
+	 */
+	private void constant(Object value) {
+		int index = constantIndexes.computeIfAbsent(value, v -> {
+			constants.add(v);
+			return constants.size() - 1;
+		});
+		code.local(ALOAD, 0);
+		code.stack(1);
+		code.op(GETFIELD, cf.fieldRef(CLASS_NAME, "k", OBJECTS));
+		code.pushInt(cf, index);
+		code.stack(1);
+		code.op(AALOAD);
+		code.stack(-1);
+	}
+
+}
@@ -0,0 +1,59 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+import lispy.ast_interpreter.minimal_parser.Environment;
+import lispy.ast_interpreter.minimal_parser.LispyNativeFunction;
+
+/**
+ * Operations which compiled code calls instead of inlining them.
+ */
+final class JitRuntime {
+
+	private JitRuntime() {
+	}
+
+	static Object call0(Object function, Environment global) {
+		return ((LispyNativeFunction) function).call0(global);
+	}
+
+	static Object call1(Object function, Object a, Environment global) {
+		return ((LispyNativeFunction) function).call1(global, a);
+	}
+
+	static Object call2(Object function, Object a, Object b, Environment global) {
+		return ((LispyNativeFunction) function).call2(global, a, b);
+	}
+
+	static Object call3(Object function, Object a, Object b, Object c, Environment global) {
+		return ((LispyNativeFunction) function).call3(global, a, b, c);
+	}
+
+	static Object callN(Object function, Object[] args, Environment global) {
+		return ((LispyNativeFunction) function).callN(global, args);
+	}
+
+	static Object tailCall(LambdaNode lambda, Object[] frame) {
+		return new TailCall(lambda, frame);
+	}
+
+	/**
+	 * A numeric node met operands of another type than the code assumed,
+	 * or a result which overflows: the node handles any operands from now
+	 * on, and the code is dropped (see `Tier`).
+	 */
+	static void generalize(Object node, Object tier, Object code) {
+		((NumericNode) node).state = NumericNode.GENERIC;
+		((Tier) tier).deoptimize((Node) code);
+	}
+
+	/**
+	 * The builtin of an arithmetic node, or the function of an inlined
+	 * call, is no longer bound: the node runs the call from now on, and the
+	 * code is dropped.
+	 */
+	static void rebound(Object node, Object tier, Object code) {
+		if (node instanceof ArithmeticNode) ((ArithmeticNode) node).rebound = true;
+		else ((InlinedCallNode) node).rebound = true;
+		((Tier) tier).deoptimize((Node) code);
+	}
+
+}
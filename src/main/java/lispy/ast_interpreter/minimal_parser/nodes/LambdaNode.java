@@ -0,0 +1,67 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+/**
+ * `(lambda (parameters) body)`, and `def`, which is a `var` bound to a
+ * named lambda. Each execution creates a `Closure` with the values of
+ * `captures`, the variables the body uses from the enclosing scopes (see
+ * `Scope`); the body is compiled once and shared. A call runs the body in
+ * a frame of `frameSize` slots: the captured variables, the parameters,
+ * then the local variables.
+ *
+ * The calls of all the closures are counted here; once they are hot, the
+ * body is compiled to JVM bytecode, and later calls run the compiled body,
+ * until it deoptimizes (see `Tier`).
+ *
+ * A body returns a `TailCall` for a call in tail position; `invoke` runs
+ * it in a loop, so tail calls do not grow the Java stack.
+ */
+final class LambdaNode extends Node {
+
+	final String name;
+	final int parameterCount;
+	final int frameSize;
+	final Node body;
+	/** Read in the frame of the creation, into the closure from slot 1 on. */
+	final Node[] captures;
+
+	final Tier tier;
+
+	LambdaNode(String name, int parameterCount, int frameSize, Node body, Node[] captures, int jitThreshold) {
+		this.name = name;
+		this.parameterCount = parameterCount;
+		this.frameSize = frameSize;
+		this.body = body;
+		this.captures = captures;
+		this.tier = new Tier(jitThreshold);
+	}
+
+	@Override
+	public Object execute(Object[] frame) {
+		if (captures.length == 0) return new Closure(this, null);
+		var captured = new Object[captures.length + 1];
+		for (int i = 0; i < captures.length; i++) captured[i + 1] = captures[i].execute(frame);
+		return new Closure(this, captured);
+	}
+
+	/**
+	 * Runs the body in the frame of a call, then the calls it made in tail
+	 * position.
+	 */
+	Object invoke(Object[] frame) {
+		var result = run(frame);
+		while (result instanceof TailCall) {
+			var call = (TailCall) result;
+			result = call.lambda.run(call.frame);
+		}
+		return result;
+	}
+
+	private Object run(Object[] frame) {
+		var compiled = tier.compiled;
+		if (compiled != null) return compiled.execute(frame);
+
+		if (tier.hot()) tier.compiled = JitCompiler.compile(this);
+		return body.execute(frame);
+	}
+
+}
@@ -0,0 +1,21 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+/**
+ * Reads a variable at its lexical address: `depth` frames up, at `slot`.
+ */
+final class LocalReadNode extends Node {
+
+	final int depth;
+	final int slot;
+
+	LocalReadNode(int depth, int slot) {
+		this.depth = depth;
+		this.slot = slot;
+	}
+
+	@Override
+	public Object execute(Object[] frame) {
+		return frameAt(frame, depth)[slot];
+	}
+
+}
@@ -0,0 +1,25 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+/**
+ * `var` or `set` of a variable at its lexical address.
+ */
+final class LocalWriteNode extends Node {
+
+	final int depth;
+	final int slot;
+	final Node value;
+
+	LocalWriteNode(int depth, int slot, Node value) {
+		this.depth = depth;
+		this.slot = slot;
+		this.value = value;
+	}
+
+	@Override
+	public Object execute(Object[] frame) {
+		var result = value.execute(frame);
+		frameAt(frame, depth)[slot] = result;
+		return result;
+	}
+
+}
@@ -0,0 +1,32 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+import lispy.ast_interpreter.minimal_parser.LispyClass;
+import lispy.ast_interpreter.minimal_parser.LispyObject;
+import lispy.ast_interpreter.minimal_parser.Symbol;
+
+/**
+ * `(new Class args...)`: calls the class constructor with a new instance
+ * (a `LispyObject`) as `self`, followed by the arguments.
+ */
+final class NewNode extends Node {
+
+	final Node className;
+	final Node[] arguments;
+
+	NewNode(Node className, Node[] arguments) {
+		this.className = className;
+		this.arguments = arguments;
+	}
+
+	@Override
+	public Object execute(Object[] frame) {
+		var classEnv = (LispyClass) className.execute(frame);
+		var args = new Object[arguments.length + 1];
+		args[0] = new LispyObject(classEnv);
+		for (int i = 0; i < arguments.length; i++) {
+			args[i + 1] = arguments[i].execute(frame);
+		}
+		return ((Closure) classEnv.member(Symbol.CONSTRUCTOR)).call(args);
+	}
+
+}
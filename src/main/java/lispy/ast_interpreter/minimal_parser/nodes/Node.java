@@ -0,0 +1,48 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+/**
+ * Executable node. `NodeCompiler` turns a parsed expression into a tree of
+ * nodes once; each node knows which form it is, so executing it does not
+ * look at the list structure or the keywords again.
+ *
+ * Nodes run against a frame: an `Object[]` whose slot 0 is the enclosing
+ * frame, and whose other slots hold the parameters and local variables of
+ * a function or a `begin` block. Code outside any block runs with a `null`
+ * frame.
+ *
+ * A node whose value is used as a number or a condition can be run with
+ * `executeLong`, `executeDouble` or `executeBoolean`. Arithmetic and
+ * comparison nodes override them to compute the primitive value without
+ * boxing it; the others unbox the value of `execute`. `executeLong` and
+ * `executeDouble` throw `UnexpectedResultException` with the value when it
+ * is not a `Long` or a `Double`.
+ */
+public abstract class Node {
+
+	public abstract Object execute(Object[] frame);
+
+	long executeLong(Object[] frame) throws UnexpectedResultException {
+		var value = execute(frame);
+		if (value instanceof Long) return (Long) value;
+		throw new UnexpectedResultException(value);
+	}
+
+	double executeDouble(Object[] frame) throws UnexpectedResultException {
+		var value = execute(frame);
+		if (value instanceof Double) return (Double) value;
+		throw new UnexpectedResultException(value);
+	}
+
+	public boolean executeBoolean(Object[] frame) {
+		return (boolean) execute(frame);
+	}
+
+	/**
+	 * The frame `depth` levels up the chain from `frame`.
+	 */
+	static Object[] frameAt(Object[] frame, int depth) {
+		for (int i = 0; i < depth; i++) frame = (Object[]) frame[0];
+		return frame;
+	}
+
+}
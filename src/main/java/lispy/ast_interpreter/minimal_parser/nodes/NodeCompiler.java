@@ -0,0 +1,236 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+import lispy.ast_interpreter.minimal_parser.Environment;
+import lispy.ast_interpreter.minimal_parser.LispyNativeFunction;
+import lispy.ast_interpreter.minimal_parser.PropertyCache;
+import lispy.ast_interpreter.minimal_parser.Scope;
+import lispy.ast_interpreter.minimal_parser.SpecialForm;
+import lispy.ast_interpreter.minimal_parser.Symbol;
+import lispy.ast_interpreter.minimal_parser.ast.*;
+
+/**
+ * Compiles a parsed expression into a tree of executable nodes, with the
+ * same semantics as `Lispy.eval`. Special forms are recognized here, once,
+ * instead of on every evaluation, and variables are resolved to their
+ * lexical address (see `Scope`).
+ *
+ * Calls in tail position in the body of a lambda (in the branches of an
+ * `if` or at the end of a `begin` in tail position) are marked, to run as
+ * tail calls (see `TailCall`).
+ */
+public final class NodeCompiler {
+
+	/**
+	 * Calls of a function before its body is compiled to JVM bytecode.
+	 */
+	public static final int DEFAULT_JIT_THRESHOLD = 1000;
+
+	private final Environment global;
+	private final int jitThreshold;
+	private Scope scope;
+
+	private NodeCompiler(Environment global, int jitThreshold) {
+		this.global = global;
+		this.jitThreshold = jitThreshold;
+	}
+
+	/**
+	 * Compiles the expression to run at the top level of the global
+	 * environment, with a `null` frame.
+	 */
+	public static Node compile(Exp expr, Environment global) {
+		return compile(expr, global, DEFAULT_JIT_THRESHOLD);
+	}
+
+	/**
+	 * Same as `compile(Exp, Environment)`, with the number of calls of a
+	 * function before its body is JIT-compiled; 0 disables the JIT.
+	 */
+	public static Node compile(Exp expr, Environment global, int jitThreshold) {
+		return new NodeCompiler(global, jitThreshold).node(expr);
+	}
+
+	private Node node(Exp expr) {
+		return node(expr, false);
+	}
+
+	private Node node(Exp expr, boolean tail) {
+		if (expr instanceof SymbolExp) {
+			var name = ((SymbolExp) expr).symbol;
+			return read(name, Scope.resolve(scope, name));
+		}
+
+		if (expr instanceof ListExp) return list((ListExp) expr, tail);
+
+		if (expr instanceof InlinedCallExp) {
+			var inlined = (InlinedCallExp) expr;
+			return new InlinedCallNode(node(inlined.function), inlined.expected,
+				node(inlined.body, tail), node(inlined.call, tail));
+		}
+
+		if (expr instanceof NumberExp) return new ConstantNode(((NumberExp) expr).value);
+
+		if (expr instanceof StringExp) return new ConstantNode(((StringExp) expr).value);
+
+		else throw new UnsupportedOperationException("Expression must be an atom (Number, String, Symbol) or List of expressions. Got " + expr.getClass() + ":" + expr.toString());
+	}
+
+	private Node list(ListExp expr, boolean tail) {
+		switch (SpecialForm.of(expr)) {
+		case GREATER:
+			return new GreaterNode(node(expr.get(1)), node(expr.get(2)));
+
+		case LESS:
+			return new LessNode(node(expr.get(1)), node(expr.get(2)));
+
+		case VAR:
+			return define(symbol(expr.get(1)), node(expr.get(2)));
+
+		case SET: {
+			if (expr.get(1) instanceof ListExp) {
+				// (set (prop object name) value)
+				var target = (ListExp) expr.get(1);
+				return new PropWriteNode(node(target.get(1)), new PropertyCache(symbol(target.get(2))), node(expr.get(2)));
+			}
+			var name = symbol(expr.get(1));
+			return write(name, Scope.resolve(scope, name), node(expr.get(2)), false);
+		}
+
+		case PROP:
+			return new PropReadNode(node(expr.get(1)), new PropertyCache(symbol(expr.get(2))));
+
+		case BEGIN: {
+			var outer = scope;
+			scope = Scope.block(outer, expr);
+			try {
+				var body = new Node[expr.size() - 1];
+				for (int i = 0; i < body.length; i++) body[i] = node(expr.get(i + 1), tail && i == body.length - 1);
+				return new BeginNode(scope != outer && scope.hasFrame() ? scope.size() : 0, body);
+			} finally {
+				scope = outer;
+			}
+		}
+
+		case IF:
+			return new IfNode(node(expr.get(1)), node(expr.get(2), tail),
+				expr.size() > 3 ? node(expr.get(3), tail) : new ConstantNode(null));
+
+		case WHILE:
+			return new WhileNode(node(expr.get(1)), node(expr.get(2)), jitThreshold);
+
+		case DEF: {
+			// (var name (lambda parameters body))
+			var name = symbol(expr.get(1));
+			return define(name, lambda(name.name, expr.get(2), expr.get(3)));
+		}
+
+		case LAMBDA:
+			return lambda(null, expr.get(1), expr.get(2));
+
+		case CLASS: {
+			var name = symbol(expr.get(1));
+			var parent = node(expr.get(2));
+			var body = (ListExp) expr.get(3);
+			Node[] members;
+			scope = new Scope(scope, Scope.Kind.CLASS);
+			try {
+				members = nodes(body, 1);
+			} finally {
+				scope = scope.parent;
+			}
+			return define(name, new ClassNode(name.name, parent, members));
+		}
+
+		case NEW:
+			return new NewNode(node(expr.get(1)), nodes(expr, 2));
+
+		default:
+			return arithmetic(new CallNode(global, node(expr.get(0)), nodes(expr, 1), tail));
+		}
+	}
+
+	/**
+	 * An `ArithmeticNode` for a call of an arithmetic builtin with two
+	 * arguments, else the call.
+	 */
+	private Node arithmetic(CallNode call) {
+		if (call.arguments.length != 2 || !(call.function instanceof GlobalReadNode)) return call;
+		Object function;
+		try {
+			function = global.lookup(((GlobalReadNode) call.function).name);
+		} catch (IllegalAccessException e) {
+			return call;
+		}
+		var operator = ArithmeticNode.Operator.of(function);
+		if (operator == null) return call;
+		return new ArithmeticNode(operator, (LispyNativeFunction) function, call);
+	}
+
+	private LambdaNode lambda(String name, Exp parameters, Exp body) {
+		var list = (ListExp) parameters;
+		var function = new Scope(scope, Scope.Kind.FUNCTION);
+		Node bodyNode;
+		scope = function;
+		try {
+			for (int i = 0; i < list.size(); i++) scope.bind(symbol(list.get(i)));
+			scope.hoist(body);
+			bodyNode = node(body, true);
+		} finally {
+			scope = scope.parent;
+		}
+
+		// Read around the lambda, when the closure is created.
+		var captures = new Node[function.captures().size()];
+		for (int i = 0; i < captures.length; i++) {
+			var address = function.captures().get(i);
+			captures[i] = address.boxed ? new BoxNode(address.depth, address.slot)
+				: new LocalReadNode(address.depth, address.slot);
+		}
+		return new LambdaNode(name, list.size(), function.size(), bodyNode, captures, jitThreshold);
+	}
+
+	// -------------------------------------------------------------------------------
+	// variable access, by address
+
+	private Node define(Symbol name, Node value) {
+		return write(name, Scope.define(scope, name), value, true);
+	}
+
+	private Node read(Symbol name, Scope.Address address) {
+		switch (address.kind) {
+		case LOCAL:
+			if (address.boxed) return new BoxedReadNode(address.depth, address.slot);
+			return new LocalReadNode(address.depth, address.slot);
+		case MEMBER:
+			return new DynamicReadNode(address.depth, address.slot, name, read(name, address.outer));
+		default:
+			return new GlobalReadNode(global, name);
+		}
+	}
+
+	private Node write(Symbol name, Scope.Address address, Node value, boolean define) {
+		switch (address.kind) {
+		case LOCAL:
+			if (address.boxed) return new BoxedWriteNode(address.depth, address.slot, value);
+			return new LocalWriteNode(address.depth, address.slot, value);
+		case MEMBER:
+			return new DynamicWriteNode(address.depth, address.slot, name, value,
+				address.outer == null ? null : write(name, address.outer, value, define));
+		default:
+			return new GlobalWriteNode(global, name, value, define);
+		}
+	}
+
+	// -------------------------------------------------------------------------------
+
+	private Node[] nodes(ListExp expr, int from) {
+		var nodes = new Node[expr.size() - from];
+		for (int i = 0; i < nodes.length; i++) nodes[i] = node(expr.get(from + i));
+		return nodes;
+	}
+
+	private static Symbol symbol(Exp expr) {
+		return ((SymbolExp) expr).symbol;
+	}
+
+}
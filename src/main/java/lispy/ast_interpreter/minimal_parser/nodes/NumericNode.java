@@ -0,0 +1,36 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+/**
+ * An operation on two numbers (see `Numbers`), which specializes on the
+ * types of the operands seen on its first execution. While both are
+ * `Long`s, or both `Double`s, it reads them unboxed with `executeLong` or
+ * `executeDouble`; once it meets other operands, it handles them boxed,
+ * from then on.
+ */
+abstract class NumericNode extends Node {
+
+	static final int UNINITIALIZED = 0;
+	static final int LONG = 1;
+	static final int DOUBLE = 2;
+	static final int GENERIC = 3;
+
+	final Node left;
+	final Node right;
+	int state;
+
+	NumericNode(Node left, Node right) {
+		this.left = left;
+		this.right = right;
+	}
+
+	/**
+	 * Sets the state on the first execution, from the boxed operands.
+	 */
+	final void specialize(Object a, Object b) {
+		if (state != UNINITIALIZED) return;
+		if (a instanceof Long && b instanceof Long) state = LONG;
+		else if (a instanceof Double && b instanceof Double) state = DOUBLE;
+		else state = GENERIC;
+	}
+
+}
@@ -0,0 +1,23 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+import lispy.ast_interpreter.minimal_parser.PropertyCache;
+
+/**
+ * `(prop object name)`, through the inline cache of the site.
+ */
+final class PropReadNode extends Node {
+
+	final Node object;
+	final PropertyCache cache;
+
+	PropReadNode(Node object, PropertyCache cache) {
+		this.object = object;
+		this.cache = cache;
+	}
+
+	@Override
+	public Object execute(Object[] frame) {
+		return cache.get(object.execute(frame));
+	}
+
+}
@@ -0,0 +1,26 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+import lispy.ast_interpreter.minimal_parser.PropertyCache;
+
+/**
+ * `(set (prop object name) value)`, through the inline cache of the site.
+ */
+final class PropWriteNode extends Node {
+
+	final Node object;
+	final PropertyCache cache;
+	final Node value;
+
+	PropWriteNode(Node object, PropertyCache cache, Node value) {
+		this.object = object;
+		this.cache = cache;
+		this.value = value;
+	}
+
+	@Override
+	public Object execute(Object[] frame) {
+		var receiver = object.execute(frame);
+		return cache.set(receiver, value.execute(frame));
+	}
+
+}
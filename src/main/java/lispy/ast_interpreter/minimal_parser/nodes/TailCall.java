@@ -0,0 +1,20 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+/**
+ * A call of a closure in tail position, which is not run where it is: the
+ * `CallNode` returns it instead, out of the caller's body, and
+ * `LambdaNode.invoke` runs it in its loop. The Java stack then stays
+ * constant through any chain of tail calls.
+ */
+final class TailCall {
+
+	final LambdaNode lambda;
+	/** The frame of the callee, with its arguments. */
+	final Object[] frame;
+
+	TailCall(LambdaNode lambda, Object[] frame) {
+		this.lambda = lambda;
+		this.frame = frame;
+	}
+
+}
@@ -0,0 +1,51 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+/**
+ * Which tier a function body or a loop runs in (see `LambdaNode` and
+ * `WhileNode`). It starts interpreted by its nodes, which count its calls,
+ * or the back edges of the loop; at `threshold` counts, it is compiled to
+ * JVM bytecode (see `JitCompiler`), and runs compiled from then on.
+ *
+ * Compiled code relies on what the nodes had seen when it was compiled:
+ * that a global still holds the builtin or the function which a node was
+ * specialized for, and that the operands of a numeric node keep the type
+ * it had specialized on. Where an assumption fails, the compiled code runs
+ * the generic path of the node, then deoptimizes: the node is generalized,
+ * so it no longer assumes anything, and the compiled code is dropped. The
+ * next call, or the next run of the loop, is interpreted again, and counts
+ * up to a new compilation. After `MAX_DEOPTIMIZATIONS`, the code stays
+ * interpreted.
+ */
+final class Tier {
+
+	static final int MAX_DEOPTIMIZATIONS = 8;
+
+	/** Counts before compilation; 0 disables the JIT. */
+	final int threshold;
+	int count;
+	int deoptimizations;
+	/** The compiled code, while it holds. */
+	Node compiled;
+
+	Tier(int threshold) {
+		this.threshold = threshold;
+	}
+
+	/**
+	 * Counts a call or a back edge; whether the code just became hot.
+	 */
+	boolean hot() {
+		return count < threshold && ++count == threshold && deoptimizations < MAX_DEOPTIMIZATIONS;
+	}
+
+	/**
+	 * Drops the compiled code, if it is still the code installed.
+	 */
+	void deoptimize(Node code) {
+		if (compiled != code) return;
+		compiled = null;
+		count = 0;
+		deoptimizations++;
+	}
+
+}
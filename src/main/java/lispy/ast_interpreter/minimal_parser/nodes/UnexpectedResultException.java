@@ -0,0 +1,19 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+/**
+ * Thrown by `Node.executeLong` or `Node.executeDouble` when the value is
+ * not of the type asked for, with the value, already computed. Thrown only
+ * when a speculation on the types fails, so it has no stack trace.
+ */
+final class UnexpectedResultException extends Exception {
+
+	private static final long serialVersionUID = 1L;
+
+	final Object value;
+
+	UnexpectedResultException(Object value) {
+		super(null, null, false, false);
+		this.value = value;
+	}
+
+}
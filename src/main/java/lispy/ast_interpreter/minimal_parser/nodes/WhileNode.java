@@ -0,0 +1,49 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+/**
+ * `(while condition body)`, whose value is the value of the body on the
+ * last iteration.
+ *
+ * The iterations are counted as back edges (see `Tier`). A loop which gets
+ * hot is compiled on its own, and the loop running in the interpreter
+ * moves on to the compiled loop between two iterations: the variables are
+ * in the frame, which the compiled loop reads the same way. Later runs of
+ * the loop start compiled.
+ */
+final class WhileNode extends Node {
+
+	/**
+	 * The value of a compiled loop run on its own, which did not iterate.
+	 */
+	static final Object NO_ITERATION = new Object();
+
+	final Node condition;
+	final Node body;
+	final Tier tier;
+
+	WhileNode(Node condition, Node body, int jitThreshold) {
+		this.condition = condition;
+		this.body = body;
+		this.tier = new Tier(jitThreshold);
+	}
+
+	@Override
+	public Object execute(Object[] frame) {
+		var compiled = tier.compiled;
+		if (compiled != null) return result(compiled.execute(frame), null);
+
+		Object result = null;
+		while (condition.executeBoolean(frame)) {
+			result = body.execute(frame);
+			if (tier.hot()) tier.compiled = JitCompiler.compile(this);
+			compiled = tier.compiled;
+			if (compiled != null) return result(compiled.execute(frame), result);
+		}
+		return result;
+	}
+
+	private static Object result(Object compiledResult, Object result) {
+		return compiledResult == NO_ITERATION ? result : compiledResult;
+	}
+
+}
@@ -0,0 +1,13 @@
+package lispy.ast_interpreter.minimal_parser;
+
+/**
+ * Runs the `LispyTest` suite on the bytecode VM.
+ */
+class BytecodeLispyTest extends LispyTest {
+
+	@Override
+	Lispy lispy(String name) {
+		return new Lispy(name, Lispy.Engine.BYTECODE);
+	}
+
+}
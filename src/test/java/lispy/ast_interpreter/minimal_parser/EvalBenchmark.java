@@ -0,0 +1,80 @@
+package lispy.ast_interpreter.minimal_parser;
+
+/**
+ * Evaluation throughput of each `Lispy` engine on recursive functions and
+ * loops. Not a unit test; results go to stderr, so the interpreter's
+ * tracing on stdout can be discarded:
+ *
+ *   mvn test-compile
+ *   java -cp target/classes:target/test-classes \
+ *     lispy.ast_interpreter.minimal_parser.EvalBenchmark > /dev/null
+ */
+public class EvalBenchmark {
+
+	static final String FIB = """
+		(begin
+			(def fib (n)
+				(if (< n 2)
+					n
+					(+ (fib (- n 1)) (fib (- n 2)))
+				)
+			)
+			(fib 20)
+		)
+		""";
+
+	static final String SUM = """
+		(begin
+			(def sum (n acc)
+				(if (< n 1)
+					acc
+					(sum (- n 1) (+ acc n))
+				)
+			)
+			(sum 1000 0)
+		)
+		""";
+
+	static final String LOOP = """
+		(begin
+			(var counter 0)
+			(var result 0)
+			(while (< counter 100000)
+				(begin
+					(set result (+ result 3))
+					(set counter (+ counter 1))
+				)
+			)
+			result
+		)
+		""";
+
+	static void measure(String label, String code, Lispy lispy) {
+		var expr = lispy.parse(code);
+
+		// Warm up.
+		for (int i = 0; i < 5; i++) lispy.eval(expr);
+
+		int iterations = 0;
+		Object result = null;
+		long start = System.nanoTime();
+		long elapsed;
+		do {
+			result = lispy.eval(expr);
+			iterations++;
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < 3_000_000_000L);
+
+		System.err.printf("%-6s %12.3f ms/op  (= %s)%n", label, elapsed / 1e6 / iterations, result);
+	}
+
+	public static void main(String[] args) {
+		for (var engine : Lispy.Engine.values()) {
+			System.err.println(engine);
+			measure("fib", FIB, new Lispy(engine));
+			measure("sum", SUM, new Lispy(engine));
+			measure("loop", LOOP, new Lispy(engine));
+		}
+	}
+
+}
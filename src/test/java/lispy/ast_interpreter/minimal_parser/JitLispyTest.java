@@ -0,0 +1,16 @@
+package lispy.ast_interpreter.minimal_parser;
+
+/**
+ * Runs the `LispyTest` suite on the node engine, with every function
+ * JIT-compiled at its first call.
+ */
+class JitLispyTest extends LispyTest {
+
+	@Override
+	Lispy lispy(String name) {
+		var lispy = new Lispy(name, Lispy.Engine.NODES);
+		lispy.setJitThreshold(1);
+		return lispy;
+	}
+
+}
@@ -0,0 +1,164 @@
+package lispy.ast_interpreter.minimal_parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import lispy.ast_interpreter.minimal_parser.ast.*;
+import org.junit.jupiter.api.Test;
+
+class LispyParserTest {
+
+	/**
+	 * Hands out the source one char per `read`, and counts the chars read.
+	 */
+	static class TrickleReader extends Reader {
+		final String source;
+		int position = 0;
+
+		TrickleReader(String source) {
+			this.source = source;
+		}
+
+		@Override
+		public int read(char[] buffer, int offset, int length) {
+			if (position == source.length()) return -1;
+			buffer[offset] = source.charAt(position++);
+			return 1;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
+	@Test
+	void testParseNext() throws ParseException, IOException {
+		var p = new LispyParser();
+		p.initReader(new StringReader("""
+			(var x 5)
+			"text" 42 sym
+			(+ (* x x)
+			   ())
+			"""));
+
+		assertEquals("(var x 5)", p.parseNext().toString());
+		assertEquals("\"text\"", p.parseNext().toString());
+		assertEquals(42L, ((NumberExp) p.parseNext()).value);
+		assertEquals("sym", ((SymbolExp) p.parseNext()).symbol.name);
+		assertEquals("(+ (* x x) ())", p.parseNext().toString());
+		assertNull(p.parseNext());
+		assertNull(p.parseNext());
+
+		p.initReader(new StringReader("  \n "));
+		assertNull(p.parseNext());
+	}
+
+	@Test
+	void testParseNextReadsOnlyOneForm() throws ParseException, IOException {
+		var p = new LispyParser();
+		var reader = new TrickleReader("(print 1) (print 2)");
+		p.initReader(reader);
+
+		assertEquals("(print 1)", p.parseNext().toString());
+		assertEquals("(print 1)".length(), reader.position);
+		assertEquals("(print 2)", p.parseNext().toString());
+		assertNull(p.parseNext());
+	}
+
+	@Test
+	void testParseNextLongTokens() throws ParseException, IOException {
+		var text = "x".repeat(100_000);
+		var p = new LispyParser();
+		p.initReader(new TrickleReader("(\"" + text + "\" " + text + ")"));
+
+		assertEquals("(\"" + text + "\" " + text + ")", p.parseNext().toString());
+		assertNull(p.parseNext());
+	}
+
+	@Test
+	void testParseNextErrors() throws IOException {
+		var p = new LispyParser();
+		p.initReader(new StringReader("(+ 1 2)\n(+ 1 #)"));
+
+		assertDoesNotThrow(() -> p.parseNext());
+		var error = assertThrows(ParseException.class, () -> p.parseNext());
+		assertTrue(error.getMessage().contains("(+ 1 #)\n     ^\n"), error.getMessage());
+
+		p.initReader(new StringReader("(+ 1 2"));
+		assertThrows(ParseException.class, () -> p.parseNext());
+
+		p.initReader(new StringReader(") 1"));
+		assertThrows(ParseException.class, () -> p.parseNext());
+	}
+
+	@Test
+	void testParseMappedSource() throws ParseException, IOException {
+		var source = new MappedSource(ByteBuffer.wrap("""
+			(print "na\u00efve" x1)
+			(+ 1 2)
+			""".getBytes(StandardCharsets.UTF_8)));
+		var p = new LispyParser();
+		p.initString(source);
+
+		assertEquals("(print \"na\u00efve\" x1)", p.parseNext().toString());
+		assertEquals("(+ 1 2)", p.parseNext().toString());
+		assertNull(p.parseNext());
+
+		var tokenizer = new Tokenizer(source);
+		tokenizer.getNextToken();
+		tokenizer.getNextToken();
+		var string = tokenizer.getNextToken();
+		assertEquals("\"na\u00efve\"", string.getValue());
+		// Byte offsets: "\u00ef" is two bytes.
+		assertEquals(7, string.loc.startOffset);
+		assertEquals(15, string.loc.endOffset);
+	}
+
+	@Test
+	void testTypedNodes() throws ParseException {
+		var p = new LispyParser();
+		var list = (ListExp) p.parse("""
+			(print
+			  "a b" -2.5 x)""");
+
+		assertEquals(4, list.size());
+		assertEquals("print", ((SymbolExp) list.get(0)).symbol.name);
+		assertEquals("a b", ((StringExp) list.get(1)).value);
+		assertEquals(-2.5, ((NumberExp) list.get(2)).value);
+		assertEquals("x", ((SymbolExp) list.get(3)).symbol.name);
+
+		assertEquals(0, list.loc.startOffset);
+		assertEquals(22, list.loc.endOffset);
+		assertEquals(1, list.loc.startLine);
+		assertEquals(2, list.loc.endLine);
+		assertEquals(2, list.get(1).loc.startLine);
+		assertEquals(2, list.get(1).loc.startColumn);
+		assertEquals(7, list.get(1).loc.endColumn);
+	}
+
+	@Test
+	void testInternedSymbols() throws ParseException {
+		var list = (ListExp) new LispyParser().parse("(if x (set x x))");
+		var x = ((SymbolExp) list.get(1)).symbol;
+
+		assertSame(Symbol.intern("x"), x);
+		assertSame(x, ((SymbolExp) ((ListExp) list.get(2)).get(1)).symbol);
+		assertEquals(SpecialForm.IF, ((SymbolExp) list.get(0)).symbol.form);
+		assertEquals(SpecialForm.SET, ((SymbolExp) ((ListExp) list.get(2)).get(0)).symbol.form);
+		assertEquals(SpecialForm.CALL, x.form);
+	}
+
+	@Test
+	void testParseSingleExpression() {
+		var p = new LispyParser();
+		assertThrows(ParseException.class, () -> p.parse("(+ 1 2) (+ 3 4)"));
+		assertThrows(ParseException.class, () -> p.parse(""));
+		assertDoesNotThrow(() -> p.parse("(+ 1 2)"));
+	}
+
+}
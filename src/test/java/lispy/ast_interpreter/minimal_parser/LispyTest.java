@@ -1,12 +1,35 @@
 package lispy.ast_interpreter.minimal_parser;
 
 import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigInteger;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.List;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 //import lispy.ast_interpreter.no_parser.Lispy;
 
 class LispyTest {
+
+	/**
+	 * The interpreter under test; subclasses run the suite on other engines.
+	 */
+	Lispy lispy(String name) {
+		return new Lispy(name);
+	}
+
+	Lispy lispy() {
+		return lispy("default");
+	}
 	
 	Object list(Object ... objects) {
 		return objects;
@@ -14,18 +37,18 @@ class LispyTest {
 	
 	@Test
 	void testNumbers() {
-		Lispy lispy = new Lispy();
+		Lispy lispy = lispy();
 		var expr = lispy.parse("1");
-		assertEquals(1., lispy.eval(expr));
+		assertEquals(1L, lispy.eval(expr));
 		expr = lispy.parse("+10");
-		assertEquals(10., lispy.eval(expr));
+		assertEquals(10L, lispy.eval(expr));
 		expr = lispy.parse("-5.34");
 		assertEquals(-5.34, lispy.eval(expr));
 	}
 	
 	@Test
 	void testStrings() {
-		Lispy lispy = new Lispy();
+		Lispy lispy = lispy();
 		var expr = lispy.parse("""
 				"string_literal" 
 				""");
@@ -39,7 +62,7 @@ class LispyTest {
 
 	@Test
 	void testVariables() {
-		Lispy lispy = new Lispy();
+		Lispy lispy = lispy();
 
 		// var expr = lispy.parse("name");
 		//assertEquals(null, lispy.eval(expr));
@@ -54,13 +77,13 @@ class LispyTest {
 	
 	@Test
 	void testMathOperations() {
-		Lispy lispy = new Lispy();
+		Lispy lispy = lispy();
 		
 		var mathOp = lispy.parse("(+ 1 5)");
-		assertEquals(6., lispy.eval(mathOp));
+		assertEquals(6L, lispy.eval(mathOp));
 		
 		mathOp = lispy.parse("(- 7 -9)");
-		assertEquals(16., lispy.eval(mathOp));
+		assertEquals(16L, lispy.eval(mathOp));
 
 		mathOp = lispy.parse("(* 8 0.5)");
 		assertEquals(4., lispy.eval(mathOp));
@@ -68,6 +91,9 @@ class LispyTest {
 		mathOp = lispy.parse("(/ 7 2)");
 		assertEquals(3.5, lispy.eval(mathOp));
 
+		mathOp = lispy.parse("(/ 8 2)");
+		assertEquals(4L, lispy.eval(mathOp));
+
 		mathOp = lispy.parse("(> -7.2 +9.6)");
 		assertEquals(false, lispy.eval(mathOp));
 
@@ -77,32 +103,32 @@ class LispyTest {
 
 	@Test
 	void testListOfExpressions() {
-		Lispy lispy = new Lispy("List of Expressions");
+		Lispy lispy = lispy("List of Expressions");
 		
 		var expr = lispy.parse("(+ (+ 3 2) 6)");
-		assertEquals(11., lispy.eval(expr));
+		assertEquals(11L, lispy.eval(expr));
 		
 		expr = lispy.parse("(+ (- 4 6) (+ 4 5))");
-		assertEquals(7., lispy.eval(expr));
+		assertEquals(7L, lispy.eval(expr));
 		
 		expr = lispy.parse("(+ (+ (- 3 2) 4) (+ 4 5))");
 		//list("+", list("+", 4, list("+", 3, -2)), list("+", 4, 5));
-		assertEquals(14., lispy.eval(expr));
+		assertEquals(14L, lispy.eval(expr));
 	}
 	
 	@Test
 	void testDefineVar() {
-		Lispy lispy = new Lispy();
+		Lispy lispy = lispy();
 		
 		var expr = lispy.parse("(var x 25)");
-		assertEquals(25., lispy.eval(expr));
+		assertEquals(25L, lispy.eval(expr));
 		expr = lispy.parse("x");
-		assertEquals(25., lispy.eval(expr));
+		assertEquals(25L, lispy.eval(expr));
 		
 		expr = lispy.parse("(var y 100)");
-		assertEquals(100., lispy.eval(expr));
+		assertEquals(100L, lispy.eval(expr));
 		expr = lispy.parse("y");
-		assertEquals(100., lispy.eval(expr));
+		assertEquals(100L, lispy.eval(expr));
 		
 		expr = lispy.parse("(var isTrue true)");
 		assertEquals(true, lispy.eval(expr));
@@ -110,9 +136,9 @@ class LispyTest {
 		assertEquals(true, lispy.eval(expr));
 
 		expr = lispy.parse("(var z (+ 2 3))");
-		assertEquals(5., lispy.eval(expr));
+		assertEquals(5L, lispy.eval(expr));
 		expr = lispy.parse("z");
-		assertEquals(5., lispy.eval(expr));
+		assertEquals(5L, lispy.eval(expr));
 
 		expr = lispy.parse("""
 			(var alpha "bobby")
@@ -132,7 +158,7 @@ class LispyTest {
 	
 	@Test
 	void testBlocks() {
-		Lispy lispy = new Lispy();
+		Lispy lispy = lispy();
 		
 		var expr = lispy.parse("""
 			(begin 
@@ -142,12 +168,12 @@ class LispyTest {
 			)
 			""");
 			
-		assertEquals(130., lispy.eval(expr));
+		assertEquals(130L, lispy.eval(expr));
 	}
 	
 	@Test
 	void testNestedBlocks() {
-		Lispy lispy = new Lispy();
+		Lispy lispy = lispy();
 		
 		var expr = lispy.parse("""
 				(begin
@@ -159,12 +185,12 @@ class LispyTest {
 					x
 				)
 				""");
-		assertEquals(5., lispy.eval(expr));
+		assertEquals(5L, lispy.eval(expr));
 	}
 	
 	@Test
 	void testAcessOuterBlocks() {
-		Lispy lispy = new Lispy();
+		Lispy lispy = lispy();
 		var expr = lispy.parse("""
 				(begin
 					(var value 15)
@@ -177,12 +203,12 @@ class LispyTest {
 				)
 				""");
 	
-		assertEquals(25., lispy.eval(expr));
+		assertEquals(25L, lispy.eval(expr));
 	}
 	
 	@Test
 	void testSetWithBlocks() {
-		Lispy lispy = new Lispy();
+		Lispy lispy = lispy();
 		var expr = lispy.parse("""
 				(begin
 					(var data 10)
@@ -194,12 +220,12 @@ class LispyTest {
 				)
 				""");
 
-		assertEquals(100., lispy.eval(expr));
+		assertEquals(100L, lispy.eval(expr));
 	}
 	
 	@Test
 	void testIfExpr() {
-		Lispy lispy = new Lispy();
+		Lispy lispy = lispy();
 
 		var expr = lispy.parse("""
 				(begin
@@ -213,12 +239,12 @@ class LispyTest {
 				)
 				""");
 		
-		assertEquals(45., lispy.eval(expr));
+		assertEquals(45L, lispy.eval(expr));
 	}
 	
 	@Test
 	void testWhile() {
-		Lispy lispy = new Lispy();
+		Lispy lispy = lispy();
 		var expr = lispy.parse("""
 			(begin
 				(var counter 0)
@@ -232,7 +258,7 @@ class LispyTest {
 				result
 			)
 			""");
-		assertEquals(30., lispy.eval(expr));
+		assertEquals(30L, lispy.eval(expr));
 
 		expr = lispy.parse("""
 			(begin
@@ -247,12 +273,12 @@ class LispyTest {
 				counter
 			)
 			""");
-		assertEquals(10., lispy.eval(expr));
+		assertEquals(10L, lispy.eval(expr));
 	}
 
 	@Test
 	void testNativeFunctions() {
-		Lispy lispy = new Lispy();
+		Lispy lispy = lispy();
 		
 		var expr = lispy.parse("""
 			(print "hello" "world")
@@ -267,9 +293,106 @@ class LispyTest {
 		assertEquals(true, lispy.eval(expr));
 	}
 
+	@Test
+	void testRegisteredNatives() {
+		Lispy lispy = lispy();
+		lispy
+			.register("max", new LispyNativeFunction() {
+				@Override
+				public int arity() {
+					return 2;
+				}
+
+				@Override
+				public Object call(Environment env, List<Object> arguments) {
+					throw new AssertionError("called with a list");
+				}
+
+				@Override
+				public Object call2(Environment env, Object a, Object b) {
+					return Numbers.greater(a, b) ? a : b;
+				}
+			})
+			.register("count", (env, arguments) -> (long) arguments.size());
+
+		assertEquals(7L, lispy.eval(lispy.parse("(max 3 7)")));
+		assertEquals(5L, lispy.eval(lispy.parse("(count 1 2 3 4 5)")));
+		assertEquals(0L, lispy.eval(lispy.parse("(count)")));
+		assertThrows(IllegalArgumentException.class, () -> lispy.eval(lispy.parse("(max 1 2 3)")));
+	}
+
+	@Test
+	void testBlockScopes() {
+		Lispy lispy = lispy();
+		// Blocks which define nothing, and blocks merged into the enclosing
+		// one, keep their scoping.
+		assertEquals(21L, lispy.eval(lispy.parse("""
+			(begin
+				(var x 1)
+				(var sum 0)
+				(begin
+					(var x 10)
+					(set sum (+ sum x))
+				)
+				(begin (set sum (+ sum x)))
+				(while (< x 4)
+					(begin
+						(var y (* x 2))
+						(set sum (+ sum y))
+						(set x (+ x 1))
+					)
+				)
+				(- sum 2)
+			)
+			""")));
+		// A closure made in a loop body sees the variables of its own run.
+		assertEquals(3L, lispy.eval(lispy.parse("""
+			(begin
+				(var i 0)
+				(var first none)
+				(while (< i 3)
+					(begin
+						(var j i)
+						(var f (lambda () j))
+						(if (< i 1) (set first f) none)
+						(set i (+ i 1))
+					)
+				)
+				(+ (first) 3)
+			)
+			""")));
+	}
+
+	@Test
+	void testVariadicArithmetic() {
+		Lispy lispy = lispy();
+		assertEquals(0L, lispy.eval(lispy.parse("(+)")));
+		assertEquals(1L, lispy.eval(lispy.parse("(*)")));
+		assertEquals(6L, lispy.eval(lispy.parse("(+ 1 2 3)")));
+		assertEquals(15L, lispy.eval(lispy.parse("(+ 1 2 3 4 5)")));
+		assertEquals(120L, lispy.eval(lispy.parse("(* 1 2 3 4 5)")));
+		assertEquals(-5L, lispy.eval(lispy.parse("(- 5)")));
+		assertEquals(4L, lispy.eval(lispy.parse("(- 10 1 2 3)")));
+		assertEquals(0.5, lispy.eval(lispy.parse("(/ 2)")));
+		assertEquals(2.5, lispy.eval(lispy.parse("(/ 20 2 4)")));
+		assertEquals(1L, lispy.eval(lispy.parse("(min 3 1 2)")));
+		assertEquals(3.5, lispy.eval(lispy.parse("(max 3 1 3.5 2)")));
+		assertEquals(new BigInteger("9223372036854775810"),
+			lispy.eval(lispy.parse("(+ 9223372036854775807 1 1 1)")));
+		assertEquals(6.5, lispy.eval(lispy.parse("(+ 1 2.5 3)")));
+		assertEquals(10L, lispy.eval(lispy.parse("""
+			(begin
+				(var x 4)
+				(+ x x 1 1)
+			)
+			""")));
+		assertThrows(IllegalArgumentException.class, () -> lispy.eval(lispy.parse("(-)")));
+		assertThrows(IllegalArgumentException.class, () -> lispy.eval(lispy.parse("(min)")));
+	}
+
 	@Test
 	void testFunctions() {
-		Lispy lispy = new Lispy();
+		Lispy lispy = lispy();
 		
 		var expr = lispy.parse("""
 			(begin
@@ -280,7 +403,7 @@ class LispyTest {
 			)
 			""");
 			
-		assertEquals(25., lispy.eval(expr));
+		assertEquals(25L, lispy.eval(expr));
 
 		expr = lispy.parse("""
 			(begin
@@ -291,12 +414,12 @@ class LispyTest {
 			)
 			""");
 			
-		assertEquals(13., lispy.eval(expr));
+		assertEquals(13L, lispy.eval(expr));
 	}
 
 	@Test
 	void testHigherOrderFucntions() {
-		Lispy lispy = new Lispy();
+		Lispy lispy = lispy();
 		
 		var expr = lispy.parse("""
 			(begin
@@ -313,7 +436,7 @@ class LispyTest {
 			)
 			""");
 			
-		assertEquals(13., lispy.eval(expr));
+		assertEquals(13L, lispy.eval(expr));
 
 		
 		expr = lispy.parse("""
@@ -329,14 +452,14 @@ class LispyTest {
 			)
 			""");
 			
-		assertEquals(25., lispy.eval(expr));
+		assertEquals(25L, lispy.eval(expr));
 	}
 
 
 
 	@Test
 	void testClosures() {
-		Lispy lispy = new Lispy();
+		Lispy lispy = lispy();
 		var expr = lispy.parse("""
 			(begin
 				(var y 10)
@@ -347,7 +470,7 @@ class LispyTest {
 			)
 			""");
 			
-		assertEquals(35., lispy.eval(expr));
+		assertEquals(35L, lispy.eval(expr));
 
 		expr = lispy.parse("""
 			(begin
@@ -359,7 +482,7 @@ class LispyTest {
 			)
 			""");
 			
-		assertEquals(35., lispy.eval(expr));
+		assertEquals(35L, lispy.eval(expr));
 		
 		expr = lispy.parse("""
 			(begin
@@ -384,7 +507,7 @@ class LispyTest {
 	
 	@Test
 	void testInnerFunctions() {
-		Lispy lispy = new Lispy();
+		Lispy lispy = lispy();
 		
 		var expr = lispy.parse("""
 			(begin
@@ -400,13 +523,13 @@ class LispyTest {
 			)
 			""");
 			
-		assertEquals(-25., lispy.eval(expr));
+		assertEquals(-25L, lispy.eval(expr));
 	
 	}
 
 	@Test
 	void testInnerFunctionsWithClosures() {
-		Lispy lispy = new Lispy();
+		Lispy lispy = lispy();
 		
 		var expr = lispy.parse("""
 			(begin
@@ -429,13 +552,54 @@ class LispyTest {
 			)
 			""");
 			
-		assertEquals(13., lispy.eval(expr));
+		assertEquals(13L, lispy.eval(expr));
 	
 	}
 
+	@Test
+	void testSharedClosureVariables() {
+		Lispy lispy = lispy();
+
+		// Each counter has its own count, which its calls update.
+		var expr = lispy.parse("""
+			(begin
+				(def counter (count)
+					(lambda () (begin (set count (+ count 1)) count))
+				)
+				(var c1 (counter 0))
+				(var c2 (counter 100))
+				(c1)
+				(c1)
+				(c2)
+				(+ (c1) (c2))
+			)
+			""");
+		assertEquals(105L, lispy.eval(expr));
+
+		// Captured through an intermediate function, and defined after the
+		// closures which use them.
+		expr = lispy.parse("""
+			(begin
+				(def make (x)
+					(begin
+						(def get () (lambda () (+ x offset)))
+						(def even (n) (if (< n 1) 1 (odd (- n 1))))
+						(def odd (n) (if (< n 1) 0 (even (- n 1))))
+						(var offset (even 10))
+						(var f (get))
+						(set x (* x 10))
+						(f)
+					)
+				)
+				(make 4)
+			)
+			""");
+		assertEquals(41L, lispy.eval(expr));
+	}
+
 	@Test
 	void testLambdaFunctions() {
-		Lispy lispy = new Lispy();
+		Lispy lispy = lispy();
 		
 		var expr = lispy.parse("""
 			(begin
@@ -450,13 +614,13 @@ class LispyTest {
 			)
 			""");
 			
-		assertEquals(450., lispy.eval(expr));
+		assertEquals(450L, lispy.eval(expr));
 	
 	}
 
 	@Test
 	void testImmediatlyInvokedLambdaExpression() {
-		Lispy lispy = new Lispy();
+		Lispy lispy = lispy();
 		
 		var expr = lispy.parse("""
 			(begin
@@ -464,13 +628,13 @@ class LispyTest {
 			)
 			""");
 			
-		assertEquals(25., lispy.eval(expr));
+		assertEquals(25L, lispy.eval(expr));
 	
 	}
 
 	@Test
 	void testAssignLambda() {
-		Lispy lispy = new Lispy();
+		Lispy lispy = lispy();
 		
 		var expr = lispy.parse("""
 			(begin
@@ -479,12 +643,356 @@ class LispyTest {
 			)
 			""");
 			
-		assertEquals(16., lispy.eval(expr));
+		assertEquals(16L, lispy.eval(expr));
+	}
+
+	@Test
+	void testScopes() {
+		Lispy lispy = lispy();
+
+		var expr = lispy.parse("""
+			(begin
+				(var x 1)
+				(begin
+					(var y x)
+					(var x 2)
+					(+ y x)
+				)
+			)
+			""");
+		assertEquals(3L, lispy.eval(expr));
+
+		expr = lispy.parse("""
+			(begin
+				(def even (n) (if (< n 1) true (odd (- n 1))))
+				(def odd (n) (if (< n 1) false (even (- n 1))))
+				(even 10)
+			)
+			""");
+		assertEquals(true, lispy.eval(expr));
+
+		expr = lispy.parse("""
+			(begin
+				(var offset 5)
+				(class Counter none
+					(begin
+						(var start 10)
+						(def constructor (self x) (+ (+ x start) offset))
+					)
+				)
+				(new Counter 1)
+			)
+			""");
+		assertEquals(16L, lispy.eval(expr));
+	}
+
+	@Test
+	void testRedefinedFunctions() throws ParseException, IOException {
+		Lispy lispy = lispy();
+
+		var result = lispy.evalAll(new StringReader("""
+			(def f (x) (+ x 1))
+			(def apply (g x) (g x))
+			(def twice (x) (f (f x)))
+			(var a (twice 1))
+			(set f (lambda (x) (* x 10)))
+			(var b (twice 1))
+			(set + (lambda (x y) (- x y)))
+			(var c (twice 1))
+			(var d (apply f 1))
+			(var e (apply (lambda (x) (* x 2)) 1))
+			(var h (apply (lambda (x) (* x 3)) 1))
+			(var i (apply (lambda (x) (* x 4)) 1))
+			(var j (apply (lambda (x) (* x 5)) 1))
+			(var k (apply print 1))
+			(print a b c d e h i j k)
+			(* (* (* a b) c) (+ (* 1000 d) (+ e (+ h (+ i j)))))
+			"""));
+		// a 3, b 100, c 100, d 10, e 2, h 3, i 4, j 5: (+ x y) is (- x y) from c on
+		assertEquals(3L * 100 * 100 * (1000 * 10 - (2 - (3 - (4 - 5)))), result);
+	}
+
+	@Test
+	void testInlinedFunctions() throws ParseException, IOException {
+		Lispy lispy = lispy();
+
+		// The calls of square are inlined into sumSquares, until square is set.
+		var result = lispy.evalAll(new StringReader("""
+			(def square (x) (* x x))
+			(def sumSquares (a b) (+ (square a) (square b)))
+			(var before (sumSquares 3 4))
+			(set square (lambda (x) x))
+			(+ (* before 100) (sumSquares 3 4))
+			"""));
+		assertEquals(2507L, result);
+	}
+
+	@Test
+	void testNumericTower() throws ParseException, IOException {
+		Lispy lispy = lispy();
+
+		// The products overflow a long from 21! on.
+		var result = lispy.evalAll(new StringReader("""
+			(def fact (n acc) (if (< n 2) acc (fact (- n 1) (* acc n))))
+			(var big (fact 25 1))
+			(print big)
+			(/ big (fact 20 1))
+			"""));
+		assertEquals(new BigInteger("15511210043330985984000000"), lispy.eval(lispy.parse("big")));
+		assertEquals(21L * 22 * 23 * 24 * 25, result);
+		assertEquals(9223372036854775807L, lispy.eval(lispy.parse("(- (+ 9223372036854775807 1) 1)")));
+		assertEquals(2.5, lispy.eval(lispy.parse("(+ (fact 2 1) 0.5)")));
+	}
+
+	@Test
+	void testTailCalls() throws ParseException, IOException {
+		Lispy lispy = lispy();
+
+		// Deeper than the Java stack allows for non-tail calls.
+		var result = lispy.evalAll(new StringReader("""
+			(def sum (n acc)
+				(if (< n 1)
+					acc
+					(begin
+						(var next (- n 1))
+						(sum next (+ acc n))
+					)
+				)
+			)
+			(sum 100000 0)
+			"""));
+		assertEquals(5000050000L, result);
+
+		result = lispy.evalAll(new StringReader("""
+			(def even (n) (if (< n 1) true (odd (- n 1))))
+			(def odd (n) (if (< n 1) false (even (- n 1))))
+			(var r (lambda (n) (even n)))
+			(r 100001)
+			"""));
+		assertEquals(false, result);
+	}
+
+	@Test
+	void testEvalAll() throws ParseException, IOException {
+		Lispy lispy = lispy();
+
+		var result = lispy.evalAll(new StringReader("""
+			(var counter 0)
+			(def increment (by)
+				(set counter (+ counter by))
+			)
+			(increment 5)
+			(increment 10)
+			counter
+			"""));
+		assertEquals(15L, result);
+
+		var source = "(increment 1)\n".repeat(1000) + "counter";
+		var channel = Channels.newChannel(new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)));
+		assertEquals(1015L, lispy.evalAll(channel));
+	}
+
+	@Test
+	void testArgumentCount() {
+		Lispy lispy = lispy();
+		lispy.eval(lispy.parse("(def f (x y) y)"));
+		assertEquals(2L, lispy.eval(lispy.parse("(f 1 2)")));
+
+		var tooFew = assertThrows(IllegalArgumentException.class, () -> lispy.eval(lispy.parse("(f 1)")));
+		assertTrue(tooFew.getMessage().endsWith("1 arguments for 2 parameters"), tooFew.getMessage());
+		var tooMany = assertThrows(IllegalArgumentException.class, () -> lispy.eval(lispy.parse("(f 1 2 3)")));
+		assertTrue(tooMany.getMessage().endsWith("3 arguments for 2 parameters"), tooMany.getMessage());
+		assertThrows(IllegalArgumentException.class, () -> lispy.eval(lispy.parse("((lambda (x) x))")));
+	}
+
+	@Test
+	void testRedefinedBuiltins() {
+		Lispy lispy = lispy();
+		var sum = lispy.parse("(+ 2 3)");
+		var branch = lispy.parse("(if true 1 0)");
+		assertEquals(5L, lispy.eval(sum));
+		assertEquals(1L, lispy.eval(branch));
+
+		// The same parsed forms, folded again against the new bindings.
+		lispy.eval(lispy.parse("(set + -)"));
+		assertEquals(-1L, lispy.eval(sum));
+		lispy.eval(lispy.parse("(var true false)"));
+		assertEquals(0L, lispy.eval(branch));
+		assertEquals(-1L, lispy.eval(sum));
+	}
+
+	@Test
+	void testEvalAllReleasesForms() throws ParseException, IOException, InterruptedException {
+		Lispy lispy = lispy();
+		lispy.setOptimize(false);
+
+		var source = new StringBuilder();
+		for (int i = 0; i < 20000; i++) source.append("(var x").append(i).append(' ').append(i).append(")\n");
+		assertEquals(19999L, lispy.evalAll(new StringReader(source.toString())));
+
+		// Nothing but the cache refers to the forms evaluated.
+		for (int i = 0; i < 10 && lispy.compiled.size() > 1; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertTrue(lispy.compiled.size() <= 1, lispy.compiled.size() + " forms held");
+	}
+
+	@Test
+	void testEvalFile(@TempDir Path dir) throws ParseException, IOException {
+		Lispy lispy = lispy();
+
+		var file = dir.resolve("script.lispy");
+		Files.writeString(file, """
+			(var greeting "h\u00e9llo w\u00f6rld")
+			(def sqr (x) (* x x))
+			(sqr 12)
+			""");
+		assertEquals(144L, lispy.evalFile(file));
+		assertEquals("h\u00e9llo w\u00f6rld", lispy.eval(lispy.parse("greeting")));
+
+		Files.writeString(file, "(+ 1 (* 2 3))");
+		assertEquals(7L, lispy.eval(lispy.parseFile(file)));
+	}
+
+	@Test
+	void testObjects() {
+		Lispy lispy = lispy();
+		var expr = lispy.parse("""
+			(begin
+				(class Point none
+					(begin
+						(def constructor (self x y)
+							(begin
+								(set (prop self x) x)
+								(set (prop self y) y)
+								self
+							)
+						)
+						(def calc (self)
+							(+ (prop self x) (prop self y))
+						)
+					)
+				)
+				(class Point3D Point
+					(begin
+						(def constructor (self x y z)
+							(begin
+								((prop Point constructor) self x y)
+								(set (prop self z) z)
+								self
+							)
+						)
+						(def calc (self)
+							(+ ((prop Point calc) self) (prop self z))
+						)
+					)
+				)
+				(var p (new Point 10 20))
+				(var q (new Point3D 1 2 3))
+				(set (prop p x) 15)
+				(var i 0)
+				(var sum 0)
+				(while (< i 10)
+					(begin
+						(set sum (+ sum ((prop (new Point i 1) calc) (new Point3D 0 i 0))))
+						(set i (+ i 1))
+					)
+				)
+				(+ (+ ((prop p calc) p) ((prop q calc) q)) sum)
+			)
+			""");
+		assertEquals(86L, lispy.eval(expr));
+
+		var missing = lispy.parse("""
+			(begin
+				(class Empty none
+					(begin
+						(def constructor (self) self)
+					)
+				)
+				(prop (new Empty) z)
+			)
+			""");
+		var error = assertThrows(Error.class, () -> lispy.eval(missing));
+		assertTrue(error.getMessage().contains("property not defined"), error.getMessage());
+	}
+
+	@Test
+	void testCollections() {
+		Lispy lispy = lispy();
+		var expr = lispy.parse("""
+			(begin
+				(var squares (vector))
+				(var index (hash-map))
+				(var i 0)
+				(while (< i 100)
+					(begin
+						(set squares (conj squares (* i i)))
+						(set index (assoc index (* i i) i))
+						(set i (+ i 1))
+					)
+				)
+				(var before squares)
+				(set squares (assoc (pop squares) 0 "zero"))
+				(vector
+					(count squares) (get squares 0) (get before 0) (get squares 98)
+					(get index 81) (get index 82) (contains index 81) (count (dissoc index 81))
+					(get (hash-map "a" 1 "b" 2) "b"))
+			)
+			""");
+		assertEquals(PersistentVector.of(99L, "zero", 0L, 9604L, 9L, null, true, 99L, 2L), lispy.eval(expr));
+
+		assertThrows(IllegalArgumentException.class, () -> lispy.eval(lispy.parse("(get 1 2)")));
+		assertThrows(IllegalArgumentException.class, () -> lispy.eval(lispy.parse("(hash-map 1)")));
+	}
+
+	@Test
+	void testInheritedMethods() {
+		Lispy lispy = lispy();
+		for (var code : List.of(
+				"""
+				(class A none
+					(begin
+						(def constructor (self) self)
+						(def name (self) "a")
+						(def size (self) 1)
+					)
+				)
+				""",
+				"(class B A (begin (def size (self) 2)))",
+				"(class C B (begin (var unused 0)))",
+				"(class D C (begin (def name (self) \"d\")))",
+				"(var d (new D))")) {
+			lispy.eval(lispy.parse(code));
+		}
+		var expr = lispy.parse("""
+			(begin
+				(var sizes 0)
+				(var i 0)
+				(while (< i 10)
+					(begin
+						(set sizes (+ sizes ((prop d size) d)))
+						(set i (+ i 1))
+					)
+				)
+				sizes
+			)
+			""");
+		assertEquals(20L, lispy.eval(expr));
+		assertEquals("d", lispy.eval(lispy.parse("((prop d name) d)")));
+
+		// Redefining a member of a parent class reaches its subclasses.
+		lispy.eval(lispy.parse("(set (prop B size) (lambda (self) 3))"));
+		assertEquals(30L, lispy.eval(expr));
+		lispy.eval(lispy.parse("(set (prop A name) (lambda (self) \"A\"))"));
+		assertEquals("A", lispy.eval(lispy.parse("((prop (new C) name) (new C))")));
+		assertEquals("d", lispy.eval(lispy.parse("((prop d name) d)")));
 	}
 
 	@Test
 	void testClass() {
-		Lispy lispy = new Lispy();
+		Lispy lispy = lispy();
 
 		/*
 			(begin
@@ -0,0 +1,71 @@
+package lispy.ast_interpreter.minimal_parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigInteger;
+import org.junit.jupiter.api.Test;
+
+class NumbersTest {
+
+	@Test
+	void testParse() {
+		assertEquals(42L, Numbers.parse("42"));
+		assertEquals(-7L, Numbers.parse("-7"));
+		assertEquals(9L, Numbers.parse("+9"));
+		assertEquals(Long.MAX_VALUE, Numbers.parse("9223372036854775807"));
+		assertEquals(Long.MIN_VALUE, Numbers.parse("-9223372036854775808"));
+		assertEquals(new BigInteger("9223372036854775808"), Numbers.parse("9223372036854775808"));
+		assertEquals(new BigInteger("-99999999999999999999"), Numbers.parse("-99999999999999999999"));
+		assertEquals(2.5, Numbers.parse("2.5"));
+		assertEquals(-9., Numbers.parse("-9."));
+		assertThrows(NumberFormatException.class, () -> Numbers.parse("|5"));
+	}
+
+	@Test
+	void testPromotion() {
+		var max = Long.MAX_VALUE;
+		var overflow = BigInteger.valueOf(max).add(BigInteger.ONE);
+		assertEquals(overflow, Numbers.add(max, 1L));
+		assertEquals(max, Numbers.subtract(overflow, 1L));
+		assertEquals(overflow.negate().subtract(BigInteger.ONE), Numbers.subtract(Long.MIN_VALUE, 1L));
+		assertEquals(new BigInteger("9223372037000250000"), Numbers.multiply(3037000500L, 3037000500L));
+		assertEquals(overflow, Numbers.divide(Long.MIN_VALUE, -1L));
+		assertEquals(4L, Numbers.divide(8L, 2L));
+		assertEquals(3.5, Numbers.divide(7L, 2L));
+		assertEquals(Double.POSITIVE_INFINITY, Numbers.divide(1L, 0L));
+		assertEquals(3.5, Numbers.add(1L, 2.5));
+		assertEquals(max + 1., Numbers.add(overflow, 0.));
+		assertEquals(2L, Numbers.divide(overflow.multiply(BigInteger.TWO), overflow));
+	}
+
+	@Test
+	void testBulk() {
+		var max = Long.MAX_VALUE;
+		assertEquals(0L, Numbers.sum(new Object[0]));
+		assertEquals(10L, Numbers.sum(new Object[] { 1L, 2L, 3L, 4L }));
+		assertEquals(new BigInteger("9223372036854775809"), Numbers.sum(new Object[] { max, 1L, 1L }));
+		assertEquals(max, Numbers.sum(new Object[] { max, 1L, -1L }));
+		assertEquals(7.5, Numbers.sum(new Object[] { 1L, 2.5, 4L }));
+		assertEquals(1L, Numbers.product(new Object[0]));
+		assertEquals(24L, Numbers.product(new Object[] { 1L, 2L, 3L, 4L }));
+		assertEquals(new BigInteger("18446744073709551614"), Numbers.product(new Object[] { max, 2L, 1L }));
+		assertEquals(0L, Numbers.product(new Object[] { max, 2L, 0L }));
+		assertEquals(5., Numbers.product(new Object[] { 2L, 0.5, 5L }));
+		assertEquals(-1L, Numbers.min(new Object[] { 3L, -1L, 2.5 }));
+		assertEquals(2.5, Numbers.max(new Object[] { 1L, 2.5, 2L }));
+		assertEquals(2L, Numbers.max(new Object[] { 2L, 2.0 }));
+	}
+
+	@Test
+	void testComparisons() {
+		var big = new BigInteger("99999999999999999999");
+		assertTrue(Numbers.less(1L, 2L));
+		assertTrue(Numbers.less(1L, 1.5));
+		assertTrue(Numbers.less(Long.MAX_VALUE, big));
+		assertFalse(Numbers.greater(Long.MAX_VALUE, big));
+		assertTrue(Numbers.greater(big.negate(), -1e30));
+		assertFalse(Numbers.less(Double.NaN, 1L));
+		assertFalse(Numbers.greater(Double.NaN, 1L));
+	}
+
+}
@@ -0,0 +1,109 @@
+package lispy.ast_interpreter.minimal_parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.text.ParseException;
+import lispy.ast_interpreter.minimal_parser.ast.Exp;
+import lispy.ast_interpreter.minimal_parser.ast.InlinedCallExp;
+import lispy.ast_interpreter.minimal_parser.ast.ListExp;
+import lispy.ast_interpreter.minimal_parser.native_functions.PrintNativeFunction;
+import lispy.ast_interpreter.minimal_parser.native_functions.SubtractNativeFunction;
+import org.junit.jupiter.api.Test;
+
+class OptimizerTest {
+
+	static String optimize(String code, Environment global) throws ParseException {
+		return Optimizer.optimize((Exp) new LispyParser().parse(code), global).toString();
+	}
+
+	static String optimize(String code) throws ParseException {
+		return optimize(code, new DefaultGlobalEnvironment());
+	}
+
+	@Test
+	void testFolding() throws ParseException {
+		assertEquals("14", optimize("(+ 2 (* 3 4))"));
+		assertEquals("(print 3.5 (/ x 2))", optimize("(print (/ 7 2) (/ x 2))"));
+		assertEquals("\"yes\"", optimize("(if (< 1 2) \"yes\" (print \"no\"))"));
+		assertEquals("(print \"no\")", optimize("(if (> 1 2) \"yes\" (print \"no\"))"));
+		assertEquals("(if false 1)", optimize("(if false 1)"));
+		assertEquals("(var b true)", optimize("(var b (< 1 (+ 1 1)))"));
+	}
+
+	@Test
+	void testConstantVariables() throws ParseException {
+		assertEquals("(begin (var x 5) (var y 6) (set y 2) (* 5 y))",
+			optimize("(begin (var x 5) (var y (+ x 1)) (set y 2) (* x y))"));
+		assertEquals("(begin (var x 5) (def f (x) (+ x 1)) 6)",
+			optimize("(begin (var x 5) (def f (x) (+ x 1)) (f x))"));
+		// A function before the inner declaration may see it when called.
+		assertEquals("(begin (var x 1) (begin (def f () x) (var x 2) (f)))",
+			optimize("(begin (var x 1) (begin (def f () x) (var x 2) (f)))"));
+		assertEquals("(begin (var x 1) (if c (var x 2) 0) x)",
+			optimize("(begin (var x 1) (if c (var x 2) 0) x)"));
+		// Top-level variables can be set by later expressions.
+		assertEquals("(var x 1)", optimize("(var x 1)"));
+	}
+
+	@Test
+	void testShadowedBuiltins() throws ParseException {
+		assertEquals("(begin (var + (lambda (a b) (print a b))) (+ 2 3))",
+			optimize("(begin (var + (lambda (a b) (print a b))) (+ 2 3))"));
+		assertEquals("(begin (var true false) (if true 1 2))",
+			optimize("(begin (var true false) (if true 1 2))"));
+
+		// Folded as the builtin which the name is bound to.
+		var global = new DefaultGlobalEnvironment();
+		global.define(Symbol.intern("+"), new SubtractNativeFunction());
+		assertEquals("-1", optimize("(+ 2 3)", global));
+		global.define(Symbol.intern("+"), new PrintNativeFunction());
+		assertEquals("(+ 2 3)", optimize("(+ 2 3)", global));
+	}
+
+	@Test
+	void testInlining() throws ParseException {
+		assertEquals("(begin (var sqr (lambda (x) (* x x))) 16)",
+			optimize("(begin (var sqr (lambda (x) (* x x))) (sqr 4))"));
+		assertEquals("(begin (def max (a b) (if (> a b) a b)) (print (if (> y z) y z)))",
+			optimize("(begin (def max (a b) (if (> a b) a b)) (print (max y z)))"));
+		assertEquals("(begin (var + (lambda (a b) (- a b))) -1)",
+			optimize("(begin (var + (lambda (a b) (- a b))) (+ 2 3))"));
+
+		// An expression argument is moved only to a single use.
+		assertEquals("(begin (def inc (x) (+ x 1)) (* (+ (* y 2) 1) 3))",
+			optimize("(begin (def inc (x) (+ x 1)) (* (inc (* y 2)) 3))"));
+		assertEquals("(begin (def sqr (x) (* x x)) (sqr (+ y 1)))",
+			optimize("(begin (def sqr (x) (* x x)) (sqr (+ y 1)))"));
+		// Recursive, assigned, and reading a local variable.
+		assertEquals("(begin (def f (n) (if (< n 1) 0 (f (- n 1)))) (f 3))",
+			optimize("(begin (def f (n) (if (< n 1) 0 (f (- n 1)))) (f 3))"));
+		assertEquals("(begin (var g (lambda (x) x)) (set g print) (g 1))",
+			optimize("(begin (var g (lambda (x) x)) (set g print) (g 1))"));
+		assertEquals("(begin (var k 1) (set k 2) (def h (x) (+ x k)) (h 1))",
+			optimize("(begin (var k 1) (set k 2) (def h (x) (+ x k)) (h 1))"));
+	}
+
+	@Test
+	void testInliningGlobalFunctions() throws ParseException {
+		var global = new DefaultGlobalEnvironment();
+		var optimizer = new Optimizer(global);
+		var definition = (Exp) new LispyParser().parse("(def half (x) (/ x 2))");
+		var function = new Object();
+		global.define(Symbol.intern("half"), function);
+		optimizer.defined(definition);
+
+		var call = (InlinedCallExp) optimizer.optimize((Exp) new LispyParser().parse("(half 7)"));
+		assertEquals("half", call.function.toString());
+		assertSame(function, call.expected);
+		assertEquals("3.5", call.body.toString());
+		assertEquals("(half 7)", call.call.toString());
+
+		// Not once the function is redefined, or where the name is bound.
+		var list = (ListExp) optimizer.optimize((Exp) new LispyParser().parse("(print (half 7) (var half 1))"));
+		assertEquals("(half 7)", list.get(1).toString());
+		assertFalse(list.get(1) instanceof InlinedCallExp);
+		global.define(Symbol.intern("half"), new Object());
+		assertFalse(optimizer.optimize((Exp) new LispyParser().parse("(half 7)")) instanceof InlinedCallExp);
+	}
+
+}
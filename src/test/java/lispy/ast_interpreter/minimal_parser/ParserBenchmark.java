@@ -0,0 +1,49 @@
+package lispy.ast_interpreter.minimal_parser;
+
+import java.text.ParseException;
+
+/**
+ * Parse throughput of `LispyParser` on generated scripts: one `(begin ...)`
+ * form wrapping many copies of a small program. Not a unit test; run with:
+ *
+ *   mvn test-compile
+ *   java -cp target/classes:target/test-classes \
+ *     lispy.ast_interpreter.minimal_parser.ParserBenchmark
+ */
+public class ParserBenchmark {
+
+	static String script(int size) {
+		var sb = new StringBuilder(size + TokenizerBenchmark.FORM.length());
+		sb.append("(begin\n");
+		while (sb.length() < size) sb.append(TokenizerBenchmark.FORM);
+		sb.append(")\n");
+		return sb.toString();
+	}
+
+	static void measure(String code) throws ParseException {
+		var parser = new LispyParser();
+
+		// Warm up.
+		for (int i = 0; i < 10; i++) parser.parse(code);
+
+		int iterations = 0;
+		long start = System.nanoTime();
+		long elapsed;
+		do {
+			parser.parse(code);
+			iterations++;
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < 2_000_000_000L);
+
+		double seconds = elapsed / 1e9 / iterations;
+		System.out.printf("parse %9d chars %10.3f ms %10.2f MB/s%n",
+			code.length(), seconds * 1e3, code.length() / seconds / 1e6);
+	}
+
+	public static void main(String[] args) throws ParseException {
+		for (int size : new int[] { 4_096, 262_144, 8_388_608 }) {
+			measure(script(size));
+		}
+	}
+
+}
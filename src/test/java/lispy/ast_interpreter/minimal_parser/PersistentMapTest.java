@@ -0,0 +1,65 @@
+package lispy.ast_interpreter.minimal_parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import org.junit.jupiter.api.Test;
+
+class PersistentMapTest {
+
+	/** A key whose hash is its number modulo 10, to collide. */
+	record Key(int number) {
+		@Override
+		public int hashCode() {
+			return number % 10;
+		}
+	}
+
+	@Test
+	void testPutAndRemove() {
+		var expected = new HashMap<Object, Object>();
+		var map = PersistentMap.EMPTY;
+		for (long i = 0; i < 10000; i++) {
+			map = map.put(i, i * i);
+			expected.put(i, i * i);
+		}
+		var before = map;
+		for (long i = 0; i < 10000; i += 3) {
+			map = map.remove(i);
+			expected.remove(i);
+		}
+		map = map.put("x", 1L).put(null, 2L);
+		expected.put("x", 1L);
+		expected.put(null, 2L);
+
+		assertEquals(expected.size(), map.size());
+		var actual = new HashMap<Object, Object>();
+		map.forEach(actual::put);
+		assertEquals(expected, actual);
+		assertEquals(100L, map.get(10L));
+		assertNull(map.get(10));
+		assertFalse(map.containsKey(3L));
+		assertTrue(map.containsKey(null));
+
+		// The map it came from is unchanged.
+		assertEquals(10000, before.size());
+		assertEquals(9L, before.get(3L));
+		assertSame(before, before.put(3L, before.get(3L)));
+		assertSame(before, before.remove("x"));
+	}
+
+	@Test
+	void testCollisions() {
+		var map = PersistentMap.EMPTY;
+		for (int i = 0; i < 100; i++) map = map.put(new Key(i), i);
+		assertEquals(100, map.size());
+		for (int i = 0; i < 100; i++) assertEquals(i, map.get(new Key(i)));
+
+		for (int i = 0; i < 100; i += 2) map = map.remove(new Key(i));
+		assertEquals(50, map.size());
+		assertNull(map.get(new Key(10)));
+		assertEquals(11, map.get(new Key(11)));
+		assertEquals(PersistentMap.EMPTY.put(new Key(1), 1), PersistentMap.EMPTY.put(new Key(1), 1));
+	}
+
+}
@@ -0,0 +1,54 @@
+package lispy.ast_interpreter.minimal_parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import org.junit.jupiter.api.Test;
+
+class PersistentVectorTest {
+
+	@Test
+	void testAddAndPop() {
+		// Through three levels of the tree, and back.
+		int n = 32 * 32 * 32 + 100;
+		var vectors = new ArrayList<PersistentVector>();
+		var vector = PersistentVector.EMPTY;
+		for (int i = 0; i < n; i++) {
+			vectors.add(vector);
+			vector = vector.add((long) i);
+		}
+		assertEquals(n, vector.size());
+		for (int i = 0; i < n; i++) assertEquals((long) i, vector.get(i));
+		long i = 0;
+		for (var element : vector) assertEquals(i++, element);
+
+		for (int size = n - 1; size >= 0; size--) {
+			vector = vector.pop();
+			assertEquals(size, vector.size());
+			if (size % 997 == 0) assertEquals(vectors.get(size), vector);
+		}
+		assertSame(PersistentVector.EMPTY, vector);
+		assertThrows(IllegalStateException.class, vector::pop);
+	}
+
+	@Test
+	void testSharing() {
+		var vector = PersistentVector.EMPTY;
+		for (int i = 0; i < 2000; i++) vector = vector.add((long) i);
+
+		var changed = vector.set(1000, "a").set(1999, "b").set(2000, "c");
+		assertEquals(1000L, vector.get(1000));
+		assertEquals(1999L, vector.get(1999));
+		assertEquals(2000, vector.size());
+		assertEquals("a", changed.get(1000));
+		assertEquals("b", changed.get(1999));
+		assertEquals("c", changed.get(2000));
+		assertEquals(999L, changed.get(999));
+		assertNotEquals(vector, changed);
+
+		assertThrows(IndexOutOfBoundsException.class, () -> changed.get(2001));
+		assertThrows(IndexOutOfBoundsException.class, () -> changed.set(-1, 0L));
+		assertEquals("[1 null 3]", PersistentVector.of(1L, null, 3L).toString());
+	}
+
+}
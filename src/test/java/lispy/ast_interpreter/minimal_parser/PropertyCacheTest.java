@@ -0,0 +1,94 @@
+package lispy.ast_interpreter.minimal_parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class PropertyCacheTest {
+
+	static final Symbol X = Symbol.intern("x");
+	static final Symbol Y = Symbol.intern("y");
+
+	@Test
+	void testShapes() {
+		var point = new LispyClass("Point", null);
+		var a = new LispyObject(point);
+		var b = new LispyObject(point);
+		assertSame(a.shape, b.shape);
+
+		a.set(X, 1L);
+		a.set(Y, 2L);
+		b.set(X, 3L);
+		b.set(Y, 4L);
+		assertSame(a.shape, b.shape);
+		assertEquals(2, a.slots.length);
+		assertEquals(2, new LispyObject(point).slots.length);
+
+		// Another order, another shape.
+		var c = new LispyObject(point);
+		c.set(Y, 5L);
+		c.set(X, 6L);
+		assertNotSame(a.shape, c.shape);
+		assertEquals(6L, c.get(X));
+		assertEquals(1, c.shape.slot(X));
+	}
+
+	@Test
+	void testCache() {
+		var point = new LispyClass("Point", null);
+		point.define(Symbol.intern("origin"), 0L);
+		var write = new PropertyCache(X);
+		var read = new PropertyCache(X);
+
+		var a = new LispyObject(point);
+		write.set(a, 1L);
+		var b = new LispyObject(point);
+		write.set(b, 2L);
+		assertSame(a.shape, b.shape);
+		assertEquals(1L, read.get(a));
+		assertEquals(2L, read.get(b));
+		assertEquals(0L, new PropertyCache(Symbol.intern("origin")).get(a));
+		assertEquals(0L, PropertyCache.get(point, Symbol.intern("origin")));
+
+		// More shapes than the cache holds.
+		for (int i = 0; i < 2 * PropertyCache.POLYMORPHIC; i++) {
+			var other = new LispyObject(new LispyClass(null, null));
+			write.set(other, (long) i);
+			assertEquals((long) i, read.get(other));
+		}
+		assertEquals(2L, read.get(b));
+		assertThrows(Error.class, () -> read.get(new LispyObject(point)));
+		assertThrows(Error.class, () -> read.get("x"));
+	}
+
+	@Test
+	void testMethodTables() {
+		var name = Symbol.intern("name");
+		var a = new LispyClass("A", null);
+		a.define(name, "a");
+		var b = new LispyClass("B", a);
+		var c = new LispyClass("C", b);
+		var read = new PropertyCache(name);
+		var object = new LispyObject(c);
+
+		assertEquals("a", read.get(object));
+		var table = c.members;
+		assertSame(table, c.members());
+		assertEquals("a", read.get(object));
+
+		// A definition in a parent class drops the tables below it.
+		b.define(name, "b");
+		assertNull(c.members);
+		assertEquals("b", read.get(object));
+		assertNotSame(table, c.members);
+		c.define(name, "c");
+		assertEquals("c", read.get(object));
+		assertEquals("a", a.member(name));
+
+		// A property of the object hides the member.
+		object.set(name, "object");
+		assertEquals("object", read.get(object));
+		assertThrows(Error.class, () -> c.member(X));
+	}
+
+}
@@ -0,0 +1,126 @@
+package lispy.ast_interpreter.minimal_parser;
+
+import java.text.ParseException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reference copy of the original regexp-based Syntax tokenizer: every token
+ * copies the rest of the input with `substring` and tries the lex patterns
+ * in order. Kept only to check the hand-written scanner in `Tokenizer`
+ * against, and to benchmark it.
+ */
+class RegexTokenizer {
+
+  private static final Pattern[] mLexPatterns = {
+    Pattern.compile("^\\("),
+    Pattern.compile("^\\)"),
+    Pattern.compile("^\\s+"),
+    Pattern.compile("^[+|-]?(\\d)+(\\.[\\d]*)?"),
+    Pattern.compile("^[\\w\\-+*=<>/]+"),
+    Pattern.compile("^\"[^\"]*\"")
+  };
+
+  // Same token numbers as in `Tokenizer`; `null` means "skip".
+  private static final int[] mLexTokenTypes = { 7, 8, -1, 4, 6, 5 };
+
+  private static final Pattern NL_RE = Pattern.compile("\\n");
+
+  private String mString;
+  private int mCursor;
+
+  int mCurrentLine;
+  int mCurrentColumn;
+  int mCurrentLineBeginOffset;
+
+  int mTokenStartOffset;
+  int mTokenEndOffset;
+  int mTokenStartLine;
+  int mTokenEndLine;
+  int mTokenStartColumn;
+  int mTokenEndColumn;
+
+  public RegexTokenizer(String tokenizingString) {
+    mString = tokenizingString;
+    mCursor = 0;
+    mCurrentLine = 1;
+    mCurrentColumn = 0;
+    mCurrentLineBeginOffset = 0;
+  }
+
+  public Token getNextToken() throws ParseException {
+    if (!hasMoreTokens()) {
+      return Tokenizer.EOF_TOKEN;
+    }
+
+    String str = mString.substring(mCursor);
+
+    for (int i = 0; i < mLexPatterns.length; i++) {
+      String matched = match(str, mLexPatterns[i]);
+
+      if (matched != null) {
+        if (mLexTokenTypes[i] < 0) {
+          return getNextToken();
+        }
+        return new Token(
+          mLexTokenTypes[i],
+          matched,
+          new YyLoc(
+            mTokenStartOffset,
+            mTokenEndOffset,
+            mTokenStartLine,
+            mTokenEndLine,
+            mTokenStartColumn,
+            mTokenEndColumn
+          )
+        );
+      }
+    }
+
+    if (isEOF()) {
+      mCursor++;
+      return Tokenizer.EOF_TOKEN;
+    }
+
+    throw new ParseException(
+      "Unexpected token: \"" + str.charAt(0) + "\" " +
+      "at " + mCurrentLine + ":" + mCurrentColumn + ".", 0
+    );
+  }
+
+  public boolean hasMoreTokens() {
+    return mCursor <= mString.length();
+  }
+
+  public boolean isEOF() {
+    return mCursor == mString.length();
+  }
+
+  private void captureLocation(String matched) {
+    mTokenStartOffset = mCursor;
+    mTokenStartLine = mCurrentLine;
+    mTokenStartColumn = mTokenStartOffset - mCurrentLineBeginOffset;
+
+    Matcher nlMatcher = NL_RE.matcher(matched);
+    while (nlMatcher.find()) {
+      mCurrentLine++;
+      mCurrentLineBeginOffset = mTokenStartOffset + nlMatcher.start() + 1;
+    }
+
+    mTokenEndOffset = mCursor + matched.length();
+    mTokenEndLine = mCurrentLine;
+    mTokenEndColumn = mCurrentColumn =
+      (mTokenEndOffset - mCurrentLineBeginOffset);
+  }
+
+  private String match(String str, Pattern re) {
+    Matcher m = re.matcher(str);
+    String v = null;
+    if (m.find()) {
+      v = m.group(0);
+      captureLocation(v);
+      mCursor += v.length();
+    }
+    return v;
+  }
+}
@@ -0,0 +1,89 @@
+package lispy.ast_interpreter.minimal_parser;
+
+import java.text.ParseException;
+
+/**
+ * Tokenizer throughput: the character-scanning `Tokenizer` against the
+ * original regexp-based one (`RegexTokenizer`), on generated scripts of
+ * growing size. Not a unit test; run with:
+ *
+ *   mvn test-compile
+ *   java -cp target/classes:target/test-classes \
+ *     lispy.ast_interpreter.minimal_parser.TokenizerBenchmark
+ */
+public class TokenizerBenchmark {
+
+	static final String FORM = """
+		(begin
+			(var counter 0)
+			(var result -1.5)
+			(while (< counter 10)
+				(begin
+					(set result (+ result 3))
+					(set counter (+ counter 1))
+					(print "counter" counter)
+				)
+			)
+			result
+		)
+		""";
+
+	static String script(int size) {
+		var sb = new StringBuilder(size + FORM.length());
+		while (sb.length() < size) sb.append(FORM);
+		return sb.toString();
+	}
+
+	static int scanTokenizer(String code) throws ParseException {
+		var tokenizer = new Tokenizer(code);
+		int count = 0;
+		while (tokenizer.hasMoreTokens()) {
+			tokenizer.getNextToken();
+			count++;
+		}
+		return count;
+	}
+
+	static int scanRegexTokenizer(String code) throws ParseException {
+		var tokenizer = new RegexTokenizer(code);
+		int count = 0;
+		while (tokenizer.hasMoreTokens()) {
+			tokenizer.getNextToken();
+			count++;
+		}
+		return count;
+	}
+
+	interface Scan {
+		int run(String code) throws ParseException;
+	}
+
+	static void measure(String label, String code, Scan scan) throws ParseException {
+		// Warm up.
+		for (int i = 0; i < 5; i++) scan.run(code);
+
+		int iterations = 0;
+		int tokens = 0;
+		long start = System.nanoTime();
+		long elapsed;
+		do {
+			tokens = scan.run(code);
+			iterations++;
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < 1_000_000_000L);
+
+		double seconds = elapsed / 1e9 / iterations;
+		System.out.printf("%-8s %9d chars %8d tokens %10.3f ms %10.2f MB/s%n",
+			label, code.length(), tokens, seconds * 1e3, code.length() / seconds / 1e6);
+	}
+
+	public static void main(String[] args) throws ParseException {
+		for (int size : new int[] { 4_096, 32_768, 262_144 }) {
+			var code = script(size);
+			measure("regex", code, TokenizerBenchmark::scanRegexTokenizer);
+			measure("scanner", code, TokenizerBenchmark::scanTokenizer);
+		}
+		measure("scanner", script(8_388_608), TokenizerBenchmark::scanTokenizer);
+	}
+
+}
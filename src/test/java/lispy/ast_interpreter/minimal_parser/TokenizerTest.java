@@ -0,0 +1,85 @@
+package lispy.ast_interpreter.minimal_parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.text.ParseException;
+import org.junit.jupiter.api.Test;
+
+class TokenizerTest {
+
+	void assertSameTokens(String code) throws ParseException {
+		var expected = new RegexTokenizer(code);
+		var actual = new Tokenizer(code);
+
+		while (true) {
+			var e = expected.getNextToken();
+			var a = actual.getNextToken();
+
+			assertEquals(e.type, a.type, code);
+			assertEquals(e.getValue(), a.getValue(), code);
+			if (e.loc == null) {
+				assertNull(a.loc);
+				break;
+			}
+			assertEquals(e.loc.startOffset, a.loc.startOffset);
+			assertEquals(e.loc.endOffset, a.loc.endOffset);
+			assertEquals(e.loc.startLine, a.loc.startLine);
+			assertEquals(e.loc.endLine, a.loc.endLine);
+			assertEquals(e.loc.startColumn, a.loc.startColumn);
+			assertEquals(e.loc.endColumn, a.loc.endColumn);
+		}
+		assertEquals(expected.hasMoreTokens(), actual.hasMoreTokens());
+	}
+
+	@Test
+	void testAtoms() throws ParseException {
+		assertSameTokens("1");
+		assertSameTokens("+10");
+		assertSameTokens("-5.34");
+		assertSameTokens("-9.");
+		assertSameTokens("|7");
+		assertSameTokens("helloWorld");
+		assertSameTokens("square_neg");
+		assertSameTokens("*");
+		assertSameTokens("-");
+		assertSameTokens("-x");
+		assertSameTokens("<=");
+		assertSameTokens("5abc");
+		assertSameTokens("\"LISPY\"");
+		assertSameTokens("\"\"");
+		assertSameTokens("");
+		assertSameTokens("   ");
+	}
+
+	@Test
+	void testMultilineSource() throws ParseException {
+		assertSameTokens("""
+			(begin
+				(var x -5.)
+				(var z "hello
+			world")
+				(set x 10)
+				(if (> x +5.2)
+					(+ x 10.)
+					(- x -1.32)
+				)
+			)
+			""");
+		assertSameTokens("(print\r\n\t\"a\"\f 1)\u000B()");
+	}
+
+	@Test
+	void testUnexpectedToken() {
+		var error = assertThrows(ParseException.class, () -> {
+			var tokenizer = new Tokenizer("(+ 1\n  #)");
+			while (tokenizer.hasMoreTokens()) tokenizer.getNextToken();
+		});
+		assertTrue(error.getMessage().endsWith("Unexpected token: \"#\" at 2:2."), error.getMessage());
+
+		assertThrows(ParseException.class, () -> {
+			var tokenizer = new Tokenizer("\"unterminated");
+			while (tokenizer.hasMoreTokens()) tokenizer.getNextToken();
+		});
+	}
+
+}
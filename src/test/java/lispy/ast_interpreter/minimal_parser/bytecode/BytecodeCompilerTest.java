@@ -0,0 +1,145 @@
+package lispy.ast_interpreter.minimal_parser.bytecode;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.text.ParseException;
+import lispy.ast_interpreter.minimal_parser.DefaultGlobalEnvironment;
+import lispy.ast_interpreter.minimal_parser.LispyParser;
+import lispy.ast_interpreter.minimal_parser.ast.Exp;
+import org.junit.jupiter.api.Test;
+
+class BytecodeCompilerTest {
+
+	static Prototype compile(String code) throws ParseException {
+		return BytecodeCompiler.compile((Exp) new LispyParser().parse(code));
+	}
+
+	@Test
+	void testCode() throws ParseException {
+		var main = compile("(begin (def sqr (x) (* x x)) (if (< (sqr 3) 10) (sqr 3) none))");
+
+		assertEquals("""
+			function (top level) (parameters 0, frame 0, stack 2)
+			   0 ENTER 2
+			   2 CLOSURE 0
+			   4 STORE0 1
+			   6 POP
+			   7 LOAD0 1
+			   9 CONST 1  ; 3
+			  11 CALL 1
+			  13 CONST 2  ; 10
+			  15 LESS
+			  16 JUMP_IF_FALSE 26
+			  18 LOAD0 1
+			  20 CONST 1  ; 3
+			  22 CALL 1
+			  24 JUMP 28
+			  26 GLOBAL 3  ; none
+			  28 LEAVE
+			  29 RETURN
+
+			function sqr (parameters 1, frame 2, stack 3)
+			   0 GLOBAL 0  ; *
+			   2 LOAD0 1
+			   4 LOAD0 1
+			   6 TAIL_CALL 2
+			   8 RETURN
+			""", main.disassemble());
+	}
+
+	@Test
+	void testBlockScopes() throws ParseException {
+		// The loop body keeps t in the frame of the outer block, and the last
+		// block, which defines nothing, has no frame.
+		var main = compile("(begin (var s 0) (while (< s 10) (begin (var t (+ s 1)) (set s t))) (begin (print s) s))");
+
+		assertEquals("""
+			function (top level) (parameters 0, frame 0, stack 3)
+			   0 ENTER 3
+			   2 CONST 0  ; 0
+			   4 STORE0 1
+			   6 POP
+			   7 CONST 1  ; null
+			   9 LOAD0 1
+			  11 CONST 2  ; 10
+			  13 LESS
+			  14 JUMP_IF_FALSE 34
+			  16 POP
+			  17 GLOBAL 3  ; +
+			  19 LOAD0 1
+			  21 CONST 4  ; 1
+			  23 CALL 2
+			  25 STORE0 2
+			  27 POP
+			  28 LOAD0 2
+			  30 STORE0 1
+			  32 JUMP 9
+			  34 POP
+			  35 GLOBAL 5  ; print
+			  37 LOAD0 1
+			  39 CALL 1
+			  41 POP
+			  42 LOAD0 1
+			  44 LEAVE
+			  45 RETURN
+			""", main.disassemble());
+	}
+
+	@Test
+	void testClosures() throws ParseException {
+		// The closures capture n, which is assigned, in a box, and k, which
+		// the first closure does not use.
+		var main = compile("(lambda (n) (begin (var k (lambda (x) (+ x n))) (set n 2) (lambda () (k 1))))");
+
+		assertEquals("""
+			function (top level) (parameters 0, frame 0, stack 1)
+			   0 CLOSURE 0
+			   2 RETURN
+
+			function lambda (parameters 1, frame 2, stack 1)
+			   0 ENTER 2
+			   2 BOX 1 1
+			   5 CLOSURE 0
+			   7 STORE_BOXED 0 1
+			  10 POP
+			  11 CONST 1  ; 2
+			  13 STORE_BOXED 1 1
+			  16 POP
+			  17 BOX 0 1
+			  20 CLOSURE 2
+			  22 LEAVE
+			  23 RETURN
+
+			function lambda (parameters 1, frame 2, stack 3)
+			   0 GLOBAL 0  ; +
+			   2 LOAD0 1
+			   4 LOAD_BOXED 1 1
+			   7 TAIL_CALL 2
+			   9 RETURN
+
+			function lambda (parameters 0, frame 1, stack 2)
+			   0 LOAD_BOXED 1 1
+			   3 CONST 0  ; 1
+			   5 TAIL_CALL 1
+			   7 RETURN
+			""", main.disassemble());
+	}
+
+	@Test
+	void testDeepRecursion() throws ParseException {
+		// Calls do not recurse on the Java stack.
+		var main = compile("""
+			(begin
+				(def sum (n)
+					(if (< n 1)
+						0
+						(+ n (sum (- n 1)))
+					)
+				)
+				(sum 100000)
+			)
+			""");
+		assertEquals(5000050000L, new VM(new DefaultGlobalEnvironment()).run(main));
+	}
+
+}
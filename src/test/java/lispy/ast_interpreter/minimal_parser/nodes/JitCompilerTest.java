@@ -0,0 +1,163 @@
+package lispy.ast_interpreter.minimal_parser.nodes;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigInteger;
+import java.text.ParseException;
+import lispy.ast_interpreter.minimal_parser.DefaultGlobalEnvironment;
+import lispy.ast_interpreter.minimal_parser.LispyParser;
+import lispy.ast_interpreter.minimal_parser.Symbol;
+import lispy.ast_interpreter.minimal_parser.ast.Exp;
+import lispy.ast_interpreter.minimal_parser.native_functions.SubtractNativeFunction;
+import org.junit.jupiter.api.Test;
+
+class JitCompilerTest {
+
+	static Closure closure(String code, int jitThreshold) throws ParseException {
+		var expr = (Exp) new LispyParser().parse(code);
+		return (Closure) NodeCompiler.compile(expr, new DefaultGlobalEnvironment(), jitThreshold).execute(null);
+	}
+
+	static Node compile(String code) throws ParseException {
+		return NodeCompiler.compile((Exp) new LispyParser().parse(code), new DefaultGlobalEnvironment(), 10);
+	}
+
+	@Test
+	void testCompilesAtThreshold() throws ParseException {
+		var closure = closure("""
+			(lambda (n)
+				(begin
+					(var i 0)
+					(var sum 0)
+					(while (< i n)
+						(begin
+							(set sum (+ sum i))
+							(set i (+ i 1))
+						)
+					)
+					(if (> sum 100) "big" sum)
+				)
+			)
+			""", 3);
+
+		assertEquals(6L, closure.call(new Object[] { 4L }));
+		assertEquals(10L, closure.call(new Object[] { 5L }));
+		assertNull(closure.lambda.tier.compiled);
+		assertEquals(15L, closure.call(new Object[] { 6L }));
+
+		var compiled = closure.lambda.tier.compiled;
+		assertNotNull(compiled);
+		assertTrue(compiled.getClass().isHidden());
+		assertEquals("big", closure.call(new Object[] { 20L }));
+		assertEquals(0L, closure.call(new Object[] { 0L }));
+	}
+
+	@Test
+	void testCompiledRecursion() throws ParseException {
+		var closure = closure("""
+			(begin
+				(def fib (n)
+					(if (< n 2)
+						n
+						(+ (fib (- n 1)) (fib (- n 2)))
+					)
+				)
+				fib
+			)
+			""", 10);
+
+		assertEquals(6765L, closure.call(new Object[] { 20L }));
+		assertTrue(closure.lambda.tier.compiled.getClass().isHidden());
+	}
+
+	@Test
+	void testCompiledArithmetic() throws ParseException {
+		var global = new DefaultGlobalEnvironment();
+		var expr = (Exp) new LispyParser().parse("""
+			(lambda (x y) (if (< (- x y) 0) (* (+ x 1) (/ y 2)) (- x y)))
+			""");
+		var closure = (Closure) NodeCompiler.compile(expr, global, 1).execute(null);
+
+		assertEquals(12.5, closure.call(new Object[] { 4., 5. }));
+		assertTrue(closure.lambda.tier.compiled.getClass().isHidden());
+		assertEquals(1., closure.call(new Object[] { 6., 5. }));
+
+		// The compiled code runs the redefined function, and deoptimizes.
+		global.define(Symbol.intern("+"), new SubtractNativeFunction());
+		assertEquals(7.5, closure.call(new Object[] { 4., 5. }));
+		assertNull(closure.lambda.tier.compiled);
+		assertEquals(7.5, closure.call(new Object[] { 4., 5. }));
+		assertTrue(closure.lambda.tier.compiled.getClass().isHidden());
+		assertEquals(7.5, closure.call(new Object[] { 4., 5. }));
+	}
+
+	@Test
+	void testDeoptimization() throws ParseException {
+		var closure = closure("(lambda (x y) (* x y))", 2);
+		var tier = closure.lambda.tier;
+
+		assertEquals(12L, closure.call(new Object[] { 3L, 4L }));
+		assertEquals(12L, closure.call(new Object[] { 3L, 4L }));
+		var compiled = tier.compiled;
+		assertNotNull(compiled);
+
+		// The code computes on longs until the product overflows.
+		assertEquals(20L, closure.call(new Object[] { 4L, 5L }));
+		assertSame(compiled, tier.compiled);
+		assertEquals(new BigInteger("18446744073709551614"), closure.call(new Object[] { Long.MAX_VALUE, 2L }));
+		assertNull(tier.compiled);
+		assertEquals(1, tier.deoptimizations);
+
+		// Compiled again, for any operands.
+		assertEquals(5., closure.call(new Object[] { 2.5, 2L }));
+		assertEquals(5., closure.call(new Object[] { 2.5, 2L }));
+		compiled = tier.compiled;
+		assertNotNull(compiled);
+		assertEquals(6L, closure.call(new Object[] { 2L, 3L }));
+		assertEquals(5., closure.call(new Object[] { 2.5, 2L }));
+		assertSame(compiled, tier.compiled);
+	}
+
+	@Test
+	void testCompiledLoops() throws ParseException {
+		// The loop moves on to the compiled loop after 10 iterations.
+		var code = compile("(begin (var n 100) (var i 0) (while (< i n) (set i (+ i 1))))");
+		assertEquals(100L, code.execute(null));
+		var loop = (WhileNode) ((BeginNode) code).body[2];
+		assertTrue(loop.tier.compiled.getClass().isHidden());
+		assertEquals(100L, code.execute(null));
+
+		// With the value of the last iteration, if that was the 10th.
+		code = compile("(begin (var i 0) (while (< i 10) (set i (+ i 1))))");
+		assertEquals(10L, code.execute(null));
+		assertNotNull(((WhileNode) ((BeginNode) code).body[1]).tier.compiled);
+		assertEquals(10L, code.execute(null));
+		code = compile("(begin (var i 0) (while (< i 0) (set i (+ i 1))))");
+		assertNull(code.execute(null));
+	}
+
+	@Test
+	void testCompiledClosures() throws ParseException {
+		// Holds nothing of the frame it was made in.
+		assertNull(closure("(begin (var data 1) (lambda (x) (* x 10)))", 10).captured);
+
+		var counter = closure("""
+			(begin
+				(var count 0)
+				(lambda (step) (begin (set count (+ count step)) count))
+			)
+			""", 10);
+		assertEquals(2, counter.captured.length);
+		for (int i = 1; i < 20; i++) counter.call(new Object[] { 1L });
+		assertTrue(counter.lambda.tier.compiled.getClass().isHidden());
+		assertEquals(25L, counter.call(new Object[] { 6L }));
+	}
+
+	@Test
+	void testDisabled() throws ParseException {
+		var closure = closure("(lambda (x) (* x x))", 0);
+		for (int i = 0; i < 2000; i++) closure.call(new Object[] { 3L });
+		assertNull(closure.lambda.tier.compiled);
+	}
+
+}